@@ -1,15 +1,26 @@
 package ru.practicum.booking;
 
+import org.apache.http.client.HttpClient;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
+import ru.practicum.booking.dto.BookingDecisionDto;
 import ru.practicum.booking.dto.BookingResearchDto;
 import ru.practicum.client.BaseClient;
+import ru.practicum.client.ResponseCache;
+import ru.practicum.client.SingleFlight;
+import ru.practicum.client.UpstreamGuards;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -17,16 +28,30 @@ public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
 
     @Autowired
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                         HttpClient httpClient,
+                         WebClient.Builder webClientBuilder,
+                         ResponseCache responseCache,
+                         SingleFlight singleFlight,
+                         UpstreamGuards upstreamGuards,
+                         @Value("${shareit-gateway.reactive.enabled:false}") boolean reactive) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient))
+                        .build(),
+                reactive
+                        ? webClientBuilder
+                                .uriBuilderFactory(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
+                                .build()
+                        : null,
+                responseCache,
+                singleFlight,
+                upstreamGuards.forClient("bookings")
         );
     }
 
-    public ResponseEntity<Object> getBookings(Integer userId, String state, Integer from, Integer size) {
+    public Mono<ResponseEntity<Object>> getBookings(Integer userId, String state, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "state", state,
                 "from", from,
@@ -35,7 +60,7 @@ public class BookingClient extends BaseClient {
         return get("?state={state}&from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> getBookingsOwner(Integer userId, String state, Integer from, Integer size) {
+    public Mono<ResponseEntity<Object>> getBookingsOwner(Integer userId, String state, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "state", state,
                 "from", from,
@@ -44,15 +69,50 @@ public class BookingClient extends BaseClient {
         return get("/owner?state={state}&from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> saveBooking(BookingResearchDto requestDto, Integer userId) {
+    public Mono<ResponseEntity<Object>> getBookingsByCursor(Integer userId, String state, String cursor, Integer size) {
+        Map<String, Object> parameters = Map.of(
+                "state", state,
+                "cursor", cursor,
+                "size", size
+        );
+        return get("?state={state}&cursor={cursor}&size={size}", userId, parameters);
+    }
+
+    public Mono<ResponseEntity<Object>> getBookingsOwnerByCursor(Integer userId, String state, String cursor,
+                                                                 Integer size) {
+        Map<String, Object> parameters = Map.of(
+                "state", state,
+                "cursor", cursor,
+                "size", size
+        );
+        return get("/owner?state={state}&cursor={cursor}&size={size}", userId, parameters);
+    }
+
+    public void exportBookingsToOwner(Integer userId, String format, HttpServletResponse response)
+            throws IOException {
+        Map<String, Object> parameters = Map.of(
+                "format", format
+        );
+        stream(HttpMethod.GET, "/owner/export?format={format}", userId, parameters, response);
+    }
+
+    public Mono<ResponseEntity<Object>> saveBooking(BookingResearchDto requestDto, Integer userId) {
         return post("", userId, requestDto);
     }
 
-    public ResponseEntity<Object> getBooking(Integer userId, Integer bookingId) {
+    public Mono<ResponseEntity<Object>> approvedOrRejectBookings(Integer userId, List<BookingDecisionDto> decisions) {
+        return patch("/batch", userId, decisions);
+    }
+
+    public Mono<ResponseEntity<Object>> saveBookings(List<BookingResearchDto> requestDtos, Integer userId) {
+        return post("/batch", userId, requestDtos);
+    }
+
+    public Mono<ResponseEntity<Object>> getBooking(Integer userId, Integer bookingId) {
         return get("/" + bookingId, userId);
     }
 
-    public ResponseEntity<Object> approvedOrRejectBooking(Integer bookingId, Integer userId, boolean approved) {
+    public Mono<ResponseEntity<Object>> approvedOrRejectBooking(Integer bookingId, Integer userId, boolean approved) {
         Map<String, Object> parameters = Map.of(
                 "approved", approved
         );
@@ -5,11 +5,19 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import ru.practicum.booking.dto.BookingDecisionDto;
 import ru.practicum.booking.dto.BookingResearchDto;
+import ru.practicum.ratelimit.ExpensiveRoute;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.io.IOException;
+import java.util.List;
 
 @Slf4j
 @RestController
@@ -17,53 +25,93 @@ import javax.validation.constraints.NotNull;
 @RequestMapping(path = "/bookings")
 @Validated
 public class BookingController {
+    public static final int MAX_BATCH_DECISIONS = 500;
+    public static final int MAX_BATCH_BOOKINGS = 10000;
     private final BookingClient bookingClient;
 
     @PostMapping
-    public ResponseEntity<Object> saveBooking(@RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
-                                              @RequestBody @NotNull @Valid BookingResearchDto bookingDto) {
+    public Mono<ResponseEntity<Object>> saveBooking(@RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
+                                                    @RequestBody @NotNull @Valid BookingResearchDto bookingDto) {
         log.debug("Save new booking {}", bookingDto);
         return bookingClient.saveBooking(bookingDto, userId);
     }
 
+    @ExpensiveRoute
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<Object>> saveBookings(
+            @RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
+            @RequestBody @NotEmpty @Size(max = MAX_BATCH_BOOKINGS) List<@Valid BookingResearchDto> bookingDtos) {
+        log.debug("Save {} new bookings", bookingDtos.size());
+        return bookingClient.saveBookings(bookingDtos, userId);
+    }
+
     @PatchMapping("/{bookingId}")
-    public ResponseEntity<Object> approvedOrRejectBooking(@RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
-                                                          @PathVariable @Min(1) Integer bookingId,
-                                                          @RequestParam boolean approved) {
+    public Mono<ResponseEntity<Object>> approvedOrRejectBooking(
+            @RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
+            @PathVariable @Min(1) Integer bookingId,
+            @RequestParam boolean approved) {
         log.debug("Confirmation or rejection of a booking request with id = {}", bookingId);
         return bookingClient.approvedOrRejectBooking(bookingId, userId, approved);
     }
 
+    @ExpensiveRoute
+    @PatchMapping("/batch")
+    public Mono<ResponseEntity<Object>> approvedOrRejectBookings(
+            @RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
+            @RequestBody @NotEmpty @Size(max = MAX_BATCH_DECISIONS) List<@Valid BookingDecisionDto> decisions) {
+        log.debug("Confirmation or rejection of {} booking requests", decisions.size());
+        return bookingClient.approvedOrRejectBookings(userId, decisions);
+    }
+
+    @ExpensiveRoute
+    @GetMapping("/owner/export")
+    public void exportBookingsToOwner(@RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
+                                      @RequestParam(defaultValue = "ndjson") String format,
+                                      HttpServletResponse response) throws IOException {
+        log.debug("Export bookings for owner with id = {} as {}", userId, format);
+        bookingClient.exportBookingsToOwner(userId, format, response);
+    }
+
     @GetMapping("/{bookingId}")
-    public ResponseEntity<Object> getBooking(@RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
-                                             @PathVariable @Min(1) Integer bookingId) {
+    public Mono<ResponseEntity<Object>> getBooking(@RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
+                                                   @PathVariable @Min(1) Integer bookingId) {
         log.debug("Get bookings with id = {}", bookingId);
         return bookingClient.getBooking(userId, bookingId);
     }
 
+    @ExpensiveRoute
     @GetMapping
-    public ResponseEntity<Object> getBookingsToBooker(@RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
-                                                      @RequestParam(defaultValue = "ALL") String state,
-                                                      @RequestParam(defaultValue = "0") @Min(0) Integer from,
-                                                      @RequestParam(required = false) @Min(1) Integer size) {
+    public Mono<ResponseEntity<Object>> getBookingsToBooker(@RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
+                                                            @RequestParam(defaultValue = "ALL") String state,
+                                                            @RequestParam(defaultValue = "0") @Min(0) Integer from,
+                                                            @RequestParam(required = false) @Min(1) Integer size,
+                                                            @RequestParam(required = false) String cursor) {
         if (size == null) {
             size = Integer.MAX_VALUE;
         }
         log.debug("Get bookings for user with id = {} " +
                 "state:{} , from = {}, size = {}", userId, state, from, size);
+        if (cursor != null) {
+            return bookingClient.getBookingsByCursor(userId, state, cursor, size);
+        }
         return bookingClient.getBookings(userId, state, from, size);
     }
 
+    @ExpensiveRoute
     @GetMapping("/owner")
-    public ResponseEntity<Object> getBookingsToOwner(@RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
-                                                     @RequestParam(defaultValue = "ALL") String state,
-                                                     @RequestParam(defaultValue = "0") @Min(0) Integer from,
-                                                     @RequestParam(required = false) @Min(1) Integer size) {
+    public Mono<ResponseEntity<Object>> getBookingsToOwner(@RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
+                                                           @RequestParam(defaultValue = "ALL") String state,
+                                                           @RequestParam(defaultValue = "0") @Min(0) Integer from,
+                                                           @RequestParam(required = false) @Min(1) Integer size,
+                                                           @RequestParam(required = false) String cursor) {
         if (size == null) {
             size = Integer.MAX_VALUE;
         }
         log.debug("Get bookings for user with id = = {}" +
                 " state:{} , from = {}, size = {}", userId, state, from, size);
+        if (cursor != null) {
+            return bookingClient.getBookingsOwnerByCursor(userId, state, cursor, size);
+        }
         return bookingClient.getBookingsOwner(userId, state, from, size);
     }
 }
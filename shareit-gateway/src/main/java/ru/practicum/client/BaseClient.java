@@ -1,87 +1,323 @@
 package ru.practicum.client;
 
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
 public class BaseClient {
+    /**
+     * Hop-by-hop headers describe the server connection, and the container sets its own Date, so they are
+     * not passed on to the caller.
+     */
+    private static final Set<String> NOT_PROXIED_HEADERS = Set.of(
+            HttpHeaders.CONNECTION.toLowerCase(Locale.ROOT),
+            "keep-alive",
+            HttpHeaders.TRANSFER_ENCODING.toLowerCase(Locale.ROOT),
+            HttpHeaders.TE.toLowerCase(Locale.ROOT),
+            HttpHeaders.TRAILER.toLowerCase(Locale.ROOT),
+            HttpHeaders.UPGRADE.toLowerCase(Locale.ROOT),
+            HttpHeaders.CONTENT_LENGTH.toLowerCase(Locale.ROOT),
+            HttpHeaders.DATE.toLowerCase(Locale.ROOT)
+    );
+    /**
+     * Validators of the incoming GET, passed on so the server can answer 304 without building the body.
+     */
+    private static final List<String> FORWARDED_VALIDATORS = List.of(
+            HttpHeaders.IF_NONE_MATCH,
+            HttpHeaders.IF_MODIFIED_SINCE
+    );
+
     protected final RestTemplate rest;
+    @Nullable
+    private final WebClient web;
+    private final ResponseCache responseCache;
+    private final SingleFlight singleFlight;
+    private final UpstreamGuard upstreamGuard;
 
-    public BaseClient(RestTemplate rest) {
+    /**
+     * When a {@link WebClient} is given, requests are sent without holding the calling thread, which is
+     * released until the server answers. Without one, {@code rest} sends them and the returned {@link Mono}
+     * blocks the thread that subscribes to it. Streaming requests always go through {@code rest}.
+     * <p>
+     * Identical GETs in flight at the same time share one server request through {@code singleFlight}.
+     * Every server request, streaming ones included, passes {@code upstreamGuard} first.
+     */
+    public BaseClient(RestTemplate rest, @Nullable WebClient web, ResponseCache responseCache,
+                      SingleFlight singleFlight, UpstreamGuard upstreamGuard) {
         this.rest = rest;
+        this.web = web;
+        this.responseCache = responseCache;
+        this.singleFlight = singleFlight;
+        this.upstreamGuard = upstreamGuard;
     }
 
-    protected ResponseEntity<Object> get(String path) {
+    protected Mono<ResponseEntity<Object>> get(String path) {
         return get(path, null, null);
     }
 
-    protected ResponseEntity<Object> get(String path, Integer userId) {
+    protected Mono<ResponseEntity<Object>> get(String path, Integer userId) {
         return get(path, userId, null);
     }
 
-    protected ResponseEntity<Object> get(String path, Integer userId, @Nullable Map<String, Object> parameters) {
+    protected Mono<ResponseEntity<Object>> get(String path, Integer userId, @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, T body) {
+    /**
+     * Like {@link #get(String, Integer)}, but answers from {@link ResponseCache} when it can. Only for
+     * resources whose changes go through the gateway. A cached response answers {@code If-None-Match} itself
+     * when it has an ETag; other validators are sent to the server.
+     */
+    protected Mono<ResponseEntity<Object>> getCached(String path, Integer userId) {
+        return Mono.defer(() -> {
+            URI uri = rest.getUriTemplateHandler().expand(path);
+            HttpHeaders validators = validators();
+            ResponseEntity<Object> cached = responseCache.get(uri, userId);
+            if (cached != null && validators.isEmpty()) {
+                return Mono.just(cached);
+            }
+            if (cached != null && cached.getHeaders().getETag() != null && !validators.getIfNoneMatch().isEmpty()) {
+                return Mono.just(matchesETag(validators.getIfNoneMatch(), cached.getHeaders().getETag())
+                        ? notModified(cached)
+                        : cached);
+            }
+            long generation = responseCache.startLoad(uri);
+            AtomicReference<ResponseEntity<Object>> loaded = new AtomicReference<>();
+            return get(path, userId)
+                    .doOnNext(response -> {
+                        if (response.getStatusCode() == HttpStatus.OK) {
+                            loaded.set(response);
+                        }
+                    })
+                    .doFinally(signal -> responseCache.finishLoad(uri, userId, generation, loaded.get()));
+        });
+    }
+
+    protected <T> Mono<ResponseEntity<Object>> post(String path, T body) {
         return post(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, Integer userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> post(String path, Integer userId, T body) {
         return post(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, Integer userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> Mono<ResponseEntity<Object>> post(String path, Integer userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, Integer userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> put(String path, Integer userId, T body) {
         return put(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, Integer userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> Mono<ResponseEntity<Object>> put(String path, Integer userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PUT, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, T body) {
         return patch(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, Integer userId) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, Integer userId) {
         return patch(path, userId, null, null);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, Integer userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, Integer userId, T body) {
         return patch(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, Integer userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, Integer userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PATCH, path, userId, parameters, body);
     }
 
-    protected ResponseEntity<Object> delete(String path) {
+    protected Mono<ResponseEntity<Object>> delete(String path) {
         return delete(path, null, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, Integer userId) {
+    protected Mono<ResponseEntity<Object>> delete(String path, Integer userId) {
         return delete(path, userId, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, Integer userId, @Nullable Map<String, Object> parameters) {
+    protected Mono<ResponseEntity<Object>> delete(String path, Integer userId, @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
-    private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Integer userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
-        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
+    /**
+     * Sends the body to the server while it is still being read and copies the server response back as it
+     * arrives, so neither is held in memory. Needs a request factory that does not buffer request bodies.
+     */
+    protected void stream(HttpMethod method, String path, Integer userId, MediaType contentType, InputStream body,
+                          HttpServletResponse response) throws IOException {
+        stream(method, path, userId, null, contentType, body, response);
+    }
+
+    protected void stream(HttpMethod method, String path, Integer userId, @Nullable Map<String, Object> parameters,
+                          HttpServletResponse response) throws IOException {
+        stream(method, path, userId, parameters, null, null, response);
+    }
+
+    private void stream(HttpMethod method, String path, Integer userId, @Nullable Map<String, Object> parameters,
+                        @Nullable MediaType contentType, @Nullable InputStream body,
+                        HttpServletResponse response) throws IOException {
+        CallerStreams caller = new CallerStreams();
+        RequestCallback requestCallback = request -> {
+            if (userId != null) {
+                request.getHeaders().set("X-Sharer-User-Id", String.valueOf(userId));
+            }
+            if (body != null) {
+                request.getHeaders().setContentType(contentType);
+                StreamUtils.copy(caller.input(body), request.getBody());
+            }
+        };
+        ResponseExtractor<Void> responseExtractor = serverResponse -> {
+            copyHeaders(serverResponse.getHeaders(), response);
+            response.setStatus(serverResponse.getRawStatusCode());
+            copyFlushing(serverResponse.getBody(), caller.output(response.getOutputStream()));
+            return null;
+        };
+        CircuitBreaker.Phase phase = upstreamGuard.acquire();
+        // Stays null when the call says nothing about the server.
+        Boolean failed = null;
+        try {
+            rest.execute(path, method, requestCallback, responseExtractor,
+                    parameters != null ? parameters : Map.of());
+            failed = false;
+        } catch (HttpStatusCodeException e) {
+            failed = e.getStatusCode().is5xxServerError();
+            if (e.getResponseHeaders() != null) {
+                copyHeaders(e.getResponseHeaders(), response);
+            }
+            response.setStatus(e.getRawStatusCode());
+            response.getOutputStream().write(e.getResponseBodyAsByteArray());
+        } catch (RuntimeException e) {
+            if (!caller.failed && UpstreamGuard.isServerFailure(e)) {
+                failed = true;
+            }
+            throw e;
+        } finally {
+            if (failed == null) {
+                upstreamGuard.releaseIgnored(phase);
+            } else {
+                upstreamGuard.release(phase, failed);
+            }
+        }
+    }
+
+    private static void copyHeaders(HttpHeaders headers, HttpServletResponse response) {
+        if (headers.getContentType() != null) {
+            response.setContentType(headers.getContentType().toString());
+        }
+        if (headers.containsKey(HttpHeaders.CONTENT_DISPOSITION)) {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, headers.getFirst(HttpHeaders.CONTENT_DISPOSITION));
+        }
+    }
+
+    private static void copyFlushing(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[StreamUtils.BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+            out.flush();
+        }
+    }
+
+    /**
+     * Wraps the caller's side of a streamed request and records whether reading from it or writing to it failed,
+     * so that a caller going away is not taken for a server failure.
+     */
+    private static class CallerStreams {
+        private volatile boolean failed;
+
+        InputStream input(InputStream in) {
+            return new FilterInputStream(in) {
+                @Override
+                public int read(byte[] buffer, int offset, int length) throws IOException {
+                    try {
+                        return super.read(buffer, offset, length);
+                    } catch (IOException e) {
+                        failed = true;
+                        throw e;
+                    }
+                }
+            };
+        }
+
+        OutputStream output(OutputStream out) {
+            return new FilterOutputStream(out) {
+                @Override
+                public void write(byte[] buffer, int offset, int length) throws IOException {
+                    try {
+                        out.write(buffer, offset, length);
+                    } catch (IOException e) {
+                        failed = true;
+                        throw e;
+                    }
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    try {
+                        out.flush();
+                    } catch (IOException e) {
+                        failed = true;
+                        throw e;
+                    }
+                }
+            };
+        }
+    }
+
+    private <T> Mono<ResponseEntity<Object>> makeAndSendRequest(HttpMethod method, String path, Integer userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
+        HttpHeaders headers = defaultHeaders(userId);
+        URI uri = rest.getUriTemplateHandler().expand(path, parameters != null ? parameters : Map.of());
+        if (method == HttpMethod.GET) {
+            HttpHeaders validators = validators();
+            headers.addAll(validators);
+            return singleFlight.execute(uri, userId, validators, () -> send(method, path, headers, parameters, body));
+        }
+        return send(method, path, headers, parameters, body)
+                .doFinally(signal -> responseCache.invalidate(uri));
+    }
 
+    private <T> Mono<ResponseEntity<Object>> send(HttpMethod method, String path, HttpHeaders headers,
+                                                  @Nullable Map<String, Object> parameters, @Nullable T body) {
+        return upstreamGuard.protect(web != null
+                ? sendReactive(web, method, path, headers, parameters, body)
+                : Mono.fromCallable(() -> sendBlocking(method, path, headers, parameters, body)));
+    }
+
+    private <T> ResponseEntity<Object> sendBlocking(HttpMethod method, String path, HttpHeaders headers,
+                                                    @Nullable Map<String, Object> parameters, @Nullable T body) {
+        HttpEntity<T> requestEntity = new HttpEntity<>(body, headers);
         ResponseEntity<Object> shareitServerResponse;
         try {
             if (parameters != null) {
@@ -95,6 +331,43 @@ public class BaseClient {
         return prepareGatewayResponse(shareitServerResponse);
     }
 
+    private <T> Mono<ResponseEntity<Object>> sendReactive(WebClient web, HttpMethod method, String path,
+                                                          HttpHeaders headers,
+                                                          @Nullable Map<String, Object> parameters,
+                                                          @Nullable T body) {
+        WebClient.RequestBodySpec request = web.method(method)
+                .uri(path, parameters != null ? parameters : Map.of())
+                .headers(requestHeaders -> requestHeaders.addAll(headers));
+        return (body != null ? request.bodyValue(body) : request).exchangeToMono(response -> {
+            if (response.statusCode().is2xxSuccessful()) {
+                return toGatewayResponse(response, Object.class, proxiedHeaders(response.headers().asHttpHeaders()));
+            }
+            if (response.statusCode() == HttpStatus.NOT_MODIFIED) {
+                return toGatewayResponse(response, byte[].class, proxiedHeaders(response.headers().asHttpHeaders()));
+            }
+            return toGatewayResponse(response, byte[].class, new HttpHeaders());
+        });
+    }
+
+    private static Mono<ResponseEntity<Object>> toGatewayResponse(ClientResponse response, Class<?> bodyType,
+                                                                  HttpHeaders headers) {
+        return response.bodyToMono(bodyType)
+                .<ResponseEntity<Object>>map(body -> new ResponseEntity<>(body, headers, response.statusCode()))
+                .defaultIfEmpty(new ResponseEntity<>(headers, response.statusCode()));
+    }
+
+    private static HttpHeaders proxiedHeaders(@Nullable HttpHeaders headers) {
+        HttpHeaders proxied = new HttpHeaders();
+        if (headers != null) {
+            headers.forEach((name, values) -> {
+                if (!NOT_PROXIED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                    proxied.addAll(name, values);
+                }
+            });
+        }
+        return proxied;
+    }
+
     private HttpHeaders defaultHeaders(Integer userId) {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
@@ -105,9 +378,46 @@ public class BaseClient {
         return headers;
     }
 
+    private static HttpHeaders validators() {
+        HttpHeaders validators = new HttpHeaders();
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return validators;
+        }
+        HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+        for (String name : FORWARDED_VALIDATORS) {
+            String value = request.getHeader(name);
+            if (value != null) {
+                validators.set(name, value);
+            }
+        }
+        return validators;
+    }
+
+    /**
+     * Weak comparison, as for {@code If-None-Match}.
+     */
+    private static boolean matchesETag(List<String> ifNoneMatch, String eTag) {
+        String opaqueTag = opaqueTag(eTag);
+        return ifNoneMatch.stream()
+                .anyMatch(candidate -> "*".equals(candidate) || opaqueTag(candidate).equals(opaqueTag));
+    }
+
+    private static String opaqueTag(String eTag) {
+        return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+    }
+
+    private static ResponseEntity<Object> notModified(ResponseEntity<Object> cached) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.addAll(cached.getHeaders());
+        headers.remove(HttpHeaders.CONTENT_TYPE);
+        return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+    }
+
     private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<Object> response) {
-        if (response.getStatusCode().is2xxSuccessful()) {
-            return response;
+        if (response.getStatusCode().is2xxSuccessful() || response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+            return new ResponseEntity<>(response.getBody(), proxiedHeaders(response.getHeaders()),
+                    response.getStatusCode());
         }
 
         ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCode());
@@ -0,0 +1,150 @@
+package ru.practicum.client;
+
+import org.springframework.lang.Nullable;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Opens after {@code failureThreshold} failed calls in a row and refuses calls for {@code openNanos}. Then one
+ * probe call is let through: if it succeeds the breaker closes, otherwise it opens again.
+ * <p>
+ * The whole state is one immutable {@link Phase} swapped with compare-and-set, and every change of state starts a
+ * new generation. A call keeps the phase it started in and its outcome only counts while that generation lasts,
+ * so a slow call that started before the breaker opened cannot extend the open window or close it again.
+ */
+class CircuitBreaker {
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final AtomicReference<Phase> phase = new AtomicReference<>(Phase.closed(0));
+
+    CircuitBreaker(int failureThreshold, long openNanos) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openNanos;
+    }
+
+    /**
+     * @return the phase the call starts in, which must be passed back with its outcome, or {@code null} if the
+     * breaker refuses the call, see {@link #getRetryAfterNanos(long)}
+     */
+    @Nullable
+    Phase tryAcquire(long now) {
+        while (true) {
+            Phase current = phase.get();
+            switch (current.state) {
+                case CLOSED:
+                    return current;
+                case OPEN:
+                    if (now - current.openedAt < openNanos) {
+                        return null;
+                    }
+                    phase.compareAndSet(current, Phase.halfOpen(current.generation + 1, false));
+                    break;
+                default:
+                    if (current.probing) {
+                        return null;
+                    }
+                    Phase probe = Phase.halfOpen(current.generation, true);
+                    if (phase.compareAndSet(current, probe)) {
+                        return probe;
+                    }
+            }
+        }
+    }
+
+    /**
+     * @return the nanoseconds until the breaker lets a call through again
+     */
+    long getRetryAfterNanos(long now) {
+        Phase current = phase.get();
+        return current.state == State.OPEN ? Math.max(current.openedAt + openNanos - now, 1) : openNanos;
+    }
+
+    void onSuccess(Phase started) {
+        while (true) {
+            Phase current = phase.get();
+            if (current.generation != started.generation) {
+                return;
+            }
+            Phase next;
+            if (current.state == State.HALF_OPEN) {
+                next = Phase.closed(current.generation + 1);
+            } else if (current.failures > 0) {
+                next = Phase.closed(current.generation, 0);
+            } else {
+                return;
+            }
+            if (phase.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    void onFailure(Phase started, long now) {
+        while (true) {
+            Phase current = phase.get();
+            if (current.generation != started.generation) {
+                return;
+            }
+            Phase next = current.state == State.HALF_OPEN || current.failures + 1 >= failureThreshold
+                    ? Phase.open(current.generation + 1, now)
+                    : Phase.closed(current.generation, current.failures + 1);
+            if (phase.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * A call that ended without an answer either way, e.g. because the caller went away.
+     */
+    void onIgnored(Phase started) {
+        Phase current = phase.get();
+        if (current.generation == started.generation && current.probing) {
+            phase.compareAndSet(current, Phase.halfOpen(current.generation, false));
+        }
+    }
+
+    State getState() {
+        return phase.get().state;
+    }
+
+    int getConsecutiveFailures() {
+        return phase.get().failures;
+    }
+
+    static final class Phase {
+        private final State state;
+        private final long generation;
+        private final long openedAt;
+        private final int failures;
+        private final boolean probing;
+
+        private Phase(State state, long generation, long openedAt, int failures, boolean probing) {
+            this.state = state;
+            this.generation = generation;
+            this.openedAt = openedAt;
+            this.failures = failures;
+            this.probing = probing;
+        }
+
+        private static Phase closed(long generation) {
+            return closed(generation, 0);
+        }
+
+        private static Phase closed(long generation, int failures) {
+            return new Phase(State.CLOSED, generation, 0, failures, false);
+        }
+
+        private static Phase open(long generation, long openedAt) {
+            return new Phase(State.OPEN, generation, openedAt, 0, false);
+        }
+
+        private static Phase halfOpen(long generation, boolean probing) {
+            return new Phase(State.HALF_OPEN, generation, 0, 0, probing);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package ru.practicum.client;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Breaker state and bulkhead use of every client at {@code /actuator/circuitbreakers}.
+ */
+@Component
+@RequiredArgsConstructor
+@Endpoint(id = "circuitbreakers")
+public class CircuitBreakerEndpoint {
+    private final UpstreamGuards upstreamGuards;
+
+    @ReadOperation
+    public Map<String, Map<String, Object>> circuitBreakers() {
+        Map<String, Map<String, Object>> states = new TreeMap<>();
+        for (UpstreamGuard guard : upstreamGuards.getAll()) {
+            states.put(guard.getName(), Map.of(
+                    "state", guard.getState(),
+                    "consecutiveFailures", guard.getConsecutiveFailures(),
+                    "activeCalls", guard.getActiveCalls(),
+                    "maxConcurrentCalls", guard.getMaxConcurrentCalls()));
+        }
+        return states;
+    }
+}
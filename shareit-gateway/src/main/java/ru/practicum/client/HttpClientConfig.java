@@ -0,0 +1,107 @@
+package ru.practicum.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class HttpClientConfig {
+    public static final String POOL_NAME = "shareit-server";
+    public static final String POOL_WAIT_METRIC = "httpcomponents.httpclient.pool.wait";
+    private static final int VALIDATE_AFTER_INACTIVITY_MS = 2000;
+
+    /**
+     * One connection pool is shared by all gateway clients, since they all talk to the same server.
+     * Connections idle for longer than {@code idleTimeout} are closed before the server drops them.
+     * Once {@code maxPoolQueue} requests are waiting for a connection, further ones fail at once instead of
+     * joining the queue. The pool is kept smaller than the 200 request threads, so that some threads are left for
+     * requests that do not need a connection and the queue can fill up before the threads run out.
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient shareitServerHttpClient(
+            MeterRegistry meterRegistry,
+            @Value("${shareit-gateway.http.max-total:150}") int maxTotal,
+            @Value("${shareit-gateway.http.max-per-route:150}") int maxPerRoute,
+            @Value("${shareit-gateway.http.connect-timeout:2s}") Duration connectTimeout,
+            @Value("${shareit-gateway.http.read-timeout:60s}") Duration readTimeout,
+            @Value("${shareit-gateway.http.pool-wait-timeout:5s}") Duration poolWaitTimeout,
+            @Value("${shareit-gateway.http.idle-timeout:15s}") Duration idleTimeout,
+            @Value("${shareit-gateway.shedding.max-pool-queue:25}") int maxPoolQueue) {
+        PoolingHttpClientConnectionManager connectionManager = new TimedConnectionManager(
+                Timer.builder(POOL_WAIT_METRIC)
+                        .description("Time spent waiting for a pooled connection to the server")
+                        .tag("httpclient", POOL_NAME)
+                        .register(meterRegistry),
+                maxPoolQueue);
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MS);
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, POOL_NAME).bindTo(meterRegistry);
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout((int) connectTimeout.toMillis())
+                        .setSocketTimeout((int) readTimeout.toMillis())
+                        .setConnectionRequestTimeout((int) poolWaitTimeout.toMillis())
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(idleTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Times connection leases and refuses one at once when {@code maxWaiting} requests are already blocked
+     * waiting for a connection. Only requests the pool keeps waiting count, not ones leasing a free connection.
+     */
+    private static class TimedConnectionManager extends PoolingHttpClientConnectionManager {
+        private final Timer waitTimer;
+        private final int maxWaiting;
+
+        TimedConnectionManager(Timer waitTimer, int maxWaiting) {
+            this.waitTimer = waitTimer;
+            this.maxWaiting = maxWaiting;
+        }
+
+        @Override
+        public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+            ConnectionRequest request = super.requestConnection(route, state);
+            return new ConnectionRequest() {
+                @Override
+                public HttpClientConnection get(long timeout, TimeUnit timeUnit)
+                        throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+                    if (getTotalStats().getPending() >= maxWaiting) {
+                        throw new ConnectionPoolTimeoutException(maxWaiting
+                                + " requests are already waiting for a connection to the server");
+                    }
+                    Timer.Sample sample = Timer.start();
+                    try {
+                        return request.get(timeout, timeUnit);
+                    } finally {
+                        sample.stop(waitTimer);
+                    }
+                }
+
+                @Override
+                public boolean cancel() {
+                    return request.cancel();
+                }
+            };
+        }
+    }
+}
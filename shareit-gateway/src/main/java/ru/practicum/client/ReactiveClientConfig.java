@@ -0,0 +1,43 @@
+package ru.practicum.client;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(name = "shareit-gateway.reactive.enabled", havingValue = "true")
+public class ReactiveClientConfig {
+
+    /**
+     * Requests beyond the connection limit wait in the pool instead of failing, so the number of in-flight
+     * gateway requests is bounded by {@code pendingAcquireTimeout} and the per-client bulkheads rather than by
+     * the pool size. Once {@code maxPoolQueue} requests are waiting, further ones fail at once.
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider shareitServerConnectionProvider(
+            @Value("${shareit-gateway.reactive.max-connections:500}") int maxConnections,
+            @Value("${shareit-gateway.reactive.pending-acquire-timeout:60s}") Duration pendingAcquireTimeout,
+            @Value("${shareit-gateway.http.idle-timeout:15s}") Duration idleTimeout,
+            @Value("${shareit-gateway.reactive.max-pool-queue:1000}") int maxPoolQueue) {
+        return ConnectionProvider.builder(HttpClientConfig.POOL_NAME)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(maxPoolQueue)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(idleTimeout)
+                .evictInBackground(idleTimeout)
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public ClientHttpConnector shareitServerConnector(ConnectionProvider shareitServerConnectionProvider) {
+        return new ReactorClientHttpConnector(HttpClient.create(shareitServerConnectionProvider));
+    }
+}
@@ -0,0 +1,186 @@
+package ru.practicum.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.EqualsAndHashCode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Successful GET responses from the server, keyed by URI and caller, since the server answers differently
+ * to the owner of a resource. Entries live for a short time and are dropped as soon as the gateway forwards
+ * a change to the same resource, or to a collection whose changes show in it: items render their bookings and
+ * comment authors, requests render the items answering them, and deleting a user removes their items and
+ * requests. The gateway cannot tell from a change which item or request it touches, so the whole dependent
+ * collection is dropped.
+ * <p>
+ * Cached keys are indexed by resource, so a change drops only the keys of its resource. Each change also moves
+ * the resource to a new generation, and a response loaded while that happened is not cached, since the server
+ * may have read it before the change.
+ */
+@Component
+public class ResponseCache {
+    public static final String CACHE_NAME = "gateway-responses";
+    private static final Map<String, List<String>> DEPENDENT_COLLECTIONS = Map.of(
+            "/bookings", List.of("/items"),
+            "/items", List.of("/requests"),
+            "/users", List.of("/items", "/requests")
+    );
+
+    private final Cache<Key, ResponseEntity<Object>> cache;
+    private final Map<String, Resource> resources = new HashMap<>();
+
+    public ResponseCache(MeterRegistry meterRegistry,
+                         @Value("${shareit-gateway.cache.max-size:10000}") long maxSize,
+                         @Value("${shareit-gateway.cache.ttl:30s}") Duration ttl) {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .removalListener((Key key, ResponseEntity<Object> response, RemovalCause cause) -> {
+                    if (key != null && cause.wasEvicted()) {
+                        unindex(key);
+                    }
+                })
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        Gauge.builder("cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .description("Share of cache lookups that were hits")
+                .tag("cache", CACHE_NAME)
+                .register(meterRegistry);
+    }
+
+    @Nullable
+    public ResponseEntity<Object> get(URI uri, @Nullable Integer userId) {
+        return cache.getIfPresent(new Key(uri, userId));
+    }
+
+    /**
+     * Marks a load of the URI as in flight and returns the generation of its resource, which must then be
+     * passed to {@link #finishLoad}.
+     */
+    public synchronized long startLoad(URI uri) {
+        Resource resource = resources.computeIfAbsent(resourceOf(uri), name -> new Resource());
+        resource.loads++;
+        return resource.generation;
+    }
+
+    /**
+     * Ends a load started with {@link #startLoad}, caching the response unless it is {@code null} or the
+     * resource changed in the meantime.
+     */
+    public synchronized void finishLoad(URI uri, @Nullable Integer userId, long generation,
+                                        @Nullable ResponseEntity<Object> response) {
+        Key key = new Key(uri, userId);
+        Resource resource = resources.get(key.resource);
+        resource.loads--;
+        if (response != null && resource.generation == generation) {
+            cache.put(key, response);
+            resource.keys.add(key);
+        }
+        removeIfUnused(key.resource, resource);
+    }
+
+    /**
+     * Drops every cached response for the resource the URI belongs to and for the collections depending on
+     * its collection, whoever asked for them.
+     */
+    public synchronized void invalidate(URI uri) {
+        String name = resourceOf(uri);
+        invalidateResource(name);
+        for (String collection : DEPENDENT_COLLECTIONS.getOrDefault(collectionOf(name), List.of())) {
+            String prefix = collection + "/";
+            for (String dependent : new ArrayList<>(resources.keySet())) {
+                if (dependent.startsWith(prefix)) {
+                    invalidateResource(dependent);
+                }
+            }
+        }
+    }
+
+    private void invalidateResource(String name) {
+        Resource resource = resources.get(name);
+        if (resource == null) {
+            return;
+        }
+        resource.generation++;
+        cache.invalidateAll(resource.keys);
+        resource.keys.clear();
+        removeIfUnused(name, resource);
+    }
+
+    /**
+     * Forgets a key that expired or was evicted for size, unless it was cached again since.
+     */
+    private synchronized void unindex(Key key) {
+        Resource resource = resources.get(key.resource);
+        if (resource != null && !cache.asMap().containsKey(key)) {
+            resource.keys.remove(key);
+            removeIfUnused(key.resource, resource);
+        }
+    }
+
+    private void removeIfUnused(String name, Resource resource) {
+        if (resource.loads == 0 && resource.keys.isEmpty()) {
+            resources.remove(name);
+        }
+    }
+
+    /**
+     * The collection and id, e.g. {@code /items/5} for both {@code /items/5} and {@code /items/5/comment}.
+     */
+    private static String resourceOf(URI uri) {
+        String[] segments = uri.getPath().split("/");
+        StringBuilder resource = new StringBuilder();
+        for (int i = 1; i < segments.length && i <= 2; i++) {
+            resource.append('/').append(segments[i]);
+        }
+        return resource.toString();
+    }
+
+    /**
+     * The first segment of a resource, e.g. {@code /items} for {@code /items/5}.
+     */
+    private static String collectionOf(String resource) {
+        int end = resource.indexOf('/', 1);
+        return end < 0 ? resource : resource.substring(0, end);
+    }
+
+    /**
+     * Kept while it has cached keys or loads in flight, so the generation a load started with stays comparable.
+     */
+    private static class Resource {
+        private final Set<Key> keys = new HashSet<>();
+        private long generation;
+        private int loads;
+    }
+
+    @EqualsAndHashCode
+    private static class Key {
+        private final String resource;
+        private final URI uri;
+        @Nullable
+        private final Integer userId;
+
+        Key(URI uri, @Nullable Integer userId) {
+            this.resource = resourceOf(uri);
+            this.uri = uri;
+            this.userId = userId;
+        }
+    }
+}
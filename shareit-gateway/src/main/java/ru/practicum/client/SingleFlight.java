@@ -0,0 +1,91 @@
+package ru.practicum.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.EqualsAndHashCode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Lets identical GETs that arrive while one of them is still waiting for the server share its response
+ * instead of sending their own. Requests are identical when they have the same URI, caller and validators,
+ * since the server may answer each of those differently.
+ */
+@Component
+public class SingleFlight {
+    public static final String COLLAPSED_METRIC = "gateway.requests.collapsed";
+    public static final String IN_FLIGHT_METRIC = "gateway.requests.in.flight";
+
+    private final Map<Key, Mono<ResponseEntity<Object>>> inFlight = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+
+    public SingleFlight(MeterRegistry meterRegistry,
+                        @Value("${shareit-gateway.single-flight.enabled:true}") boolean enabled) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        Gauge.builder(IN_FLIGHT_METRIC, inFlight, Map::size)
+                .description("Distinct GETs currently waiting for the server")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Joins the GET already sent for the same key, or sends a new one with {@code request}. The server
+     * response is shared only while it is in flight; requests arriving after it completes send their own.
+     */
+    public Mono<ResponseEntity<Object>> execute(URI uri, @Nullable Integer userId, HttpHeaders validators,
+                                                Supplier<Mono<ResponseEntity<Object>>> request) {
+        if (!enabled) {
+            return request.get();
+        }
+        return Mono.defer(() -> {
+            Key key = new Key(uri, userId, validators);
+            Mono<ResponseEntity<Object>> flight = inFlight.get(key);
+            if (flight != null) {
+                collapsed(uri).increment();
+                return flight;
+            }
+            Mono<ResponseEntity<Object>> sent = request.get()
+                    .doFinally(signal -> inFlight.remove(key))
+                    .cache();
+            flight = inFlight.putIfAbsent(key, sent);
+            if (flight != null) {
+                collapsed(uri).increment();
+                return flight;
+            }
+            return sent;
+        });
+    }
+
+    private Counter collapsed(URI uri) {
+        String[] segments = uri.getPath().split("/");
+        return Counter.builder(COLLAPSED_METRIC)
+                .description("GETs answered with the response to an identical request already in flight")
+                .tag("resource", segments.length > 1 ? "/" + segments[1] : "/")
+                .register(meterRegistry);
+    }
+
+    @EqualsAndHashCode
+    private static class Key {
+        private final URI uri;
+        @Nullable
+        private final Integer userId;
+        private final HttpHeaders validators;
+
+        Key(URI uri, @Nullable Integer userId, HttpHeaders validators) {
+            this.uri = uri;
+            this.userId = userId;
+            this.validators = validators;
+        }
+    }
+}
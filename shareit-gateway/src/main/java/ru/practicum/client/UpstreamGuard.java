@@ -0,0 +1,170 @@
+package ru.practicum.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Mono;
+import ru.practicum.exception.ServerUnavailableException;
+
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bulkhead and circuit breaker for the calls of one client. At most {@code maxConcurrentCalls} of its calls
+ * are in flight, so a slow part of the server cannot take every gateway thread and connection; further calls
+ * fail at once. Errors on the connection to the server, timeouts and 5xx answers count as failures for the
+ * breaker. Calls that fail before reaching the server, such as those shed while waiting for a pooled connection,
+ * or on the caller's side say nothing about the server and are ignored by it.
+ */
+public class UpstreamGuard {
+    public static final String REJECTED_METRIC = "gateway.requests.rejected";
+    /**
+     * Refusals of the WebClient connection pool. Reactor Netty only ships them relocated into its internal
+     * shaded package, so they are matched by name.
+     */
+    private static final Set<String> POOL_REFUSALS = Set.of("PoolAcquireTimeoutException",
+            "PoolAcquirePendingLimitException");
+
+    private final String name;
+    private final int maxConcurrentCalls;
+    private final Semaphore bulkhead;
+    private final CircuitBreaker circuitBreaker;
+    private final Counter bulkheadRejected;
+    private final Counter circuitRejected;
+
+    UpstreamGuard(MeterRegistry meterRegistry, String name, int maxConcurrentCalls, int failureThreshold,
+                  long openNanos) {
+        this.name = name;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, openNanos);
+        this.bulkheadRejected = rejectedCounter(meterRegistry, name, "bulkhead-full");
+        this.circuitRejected = rejectedCounter(meterRegistry, name, "circuit-open");
+        Gauge.builder("gateway.bulkhead.active.calls", this, UpstreamGuard::getActiveCalls)
+                .description("Calls to the server in flight for the client")
+                .tag("client", name)
+                .register(meterRegistry);
+        Gauge.builder("gateway.circuit.breaker.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .description("0 closed, 1 open, 2 half-open")
+                .tag("client", name)
+                .register(meterRegistry);
+    }
+
+    public Mono<ResponseEntity<Object>> protect(Mono<ResponseEntity<Object>> call) {
+        return Mono.defer(() -> {
+            CircuitBreaker.Phase phase = acquire();
+            AtomicBoolean released = new AtomicBoolean();
+            return call
+                    .doOnNext(response -> {
+                        if (released.compareAndSet(false, true)) {
+                            release(phase, response.getStatusCode().is5xxServerError());
+                        }
+                    })
+                    .doOnError(e -> {
+                        if (released.compareAndSet(false, true)) {
+                            if (isServerFailure(e)) {
+                                release(phase, true);
+                            } else {
+                                releaseIgnored(phase);
+                            }
+                        }
+                    })
+                    .doFinally(signal -> {
+                        if (released.compareAndSet(false, true)) {
+                            releaseIgnored(phase);
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Takes a bulkhead permit and the breaker's permission for a call, which must then end with
+     * {@link #release(CircuitBreaker.Phase, boolean)} or {@link #releaseIgnored(CircuitBreaker.Phase)}.
+     *
+     * @return the breaker's phase the call started in
+     * @throws ServerUnavailableException if the bulkhead is full or the breaker is open
+     */
+    CircuitBreaker.Phase acquire() {
+        if (!bulkhead.tryAcquire()) {
+            bulkheadRejected.increment();
+            throw new ServerUnavailableException("Too many calls in flight to " + name, 1);
+        }
+        long now = System.nanoTime();
+        CircuitBreaker.Phase phase = circuitBreaker.tryAcquire(now);
+        if (phase == null) {
+            bulkhead.release();
+            circuitRejected.increment();
+            throw new ServerUnavailableException("Circuit breaker for " + name + " is open",
+                    TimeUnit.NANOSECONDS.toSeconds(circuitBreaker.getRetryAfterNanos(now) - 1) + 1);
+        }
+        return phase;
+    }
+
+    void release(CircuitBreaker.Phase phase, boolean failed) {
+        bulkhead.release();
+        if (failed) {
+            circuitBreaker.onFailure(phase, System.nanoTime());
+        } else {
+            circuitBreaker.onSuccess(phase);
+        }
+    }
+
+    /**
+     * Ends a call whose outcome says nothing about the server, e.g. because the caller went away.
+     */
+    void releaseIgnored(CircuitBreaker.Phase phase) {
+        bulkhead.release();
+        circuitBreaker.onIgnored(phase);
+    }
+
+    /**
+     * Whether the error came from the connection to the server. Requests refused while waiting for a pooled
+     * connection never reached it.
+     */
+    public static boolean isServerFailure(Throwable e) {
+        if (!(e instanceof ResourceAccessException) && !(e instanceof WebClientRequestException)) {
+            return false;
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectionPoolTimeoutException
+                    || POOL_REFUSALS.contains(cause.getClass().getSimpleName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getState() {
+        return circuitBreaker.getState().name();
+    }
+
+    public int getConsecutiveFailures() {
+        return circuitBreaker.getConsecutiveFailures();
+    }
+
+    public int getActiveCalls() {
+        return maxConcurrentCalls - bulkhead.availablePermits();
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String name, String reason) {
+        return Counter.builder(REJECTED_METRIC)
+                .description("Calls refused by the client's bulkhead or circuit breaker")
+                .tag("client", name)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,84 @@
+package ru.practicum.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One {@link UpstreamGuard} per client. The concurrency limit can be set per client with
+ * {@code shareit-gateway.bulkhead.<client>.max-concurrent-calls}.
+ * <p>
+ * The default limit depends on the transport. A blocking call holds a request thread while it waits, so
+ * {@code shareit-gateway.bulkhead.max-concurrent-calls} is sized against the blocking connection pool. A reactive
+ * call holds no thread, and {@code shareit-gateway.reactive.bulkhead.max-concurrent-calls} is set high enough that
+ * the bulkheads do not keep the larger reactive pool from filling up.
+ * <p>
+ * Once every client is set up, the limits are checked against the connection pool: load shedding only fires if
+ * more calls can be in flight than the pool has connections plus {@code shareit-gateway.shedding.max-pool-queue}
+ * (or {@code shareit-gateway.reactive.max-pool-queue}), so a setting where it never would fails the startup.
+ */
+@Component
+public class UpstreamGuards implements SmartInitializingSingleton {
+    private final Map<String, UpstreamGuard> guards = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final Environment environment;
+    private final boolean reactive;
+    private final int maxConcurrentCalls;
+    private final int failureThreshold;
+    private final Duration openDuration;
+
+    public UpstreamGuards(MeterRegistry meterRegistry, Environment environment,
+                          @Value("${shareit-gateway.reactive.enabled:false}") boolean reactive,
+                          @Value("${shareit-gateway.bulkhead.max-concurrent-calls:100}") int maxConcurrentCalls,
+                          @Value("${shareit-gateway.reactive.bulkhead.max-concurrent-calls:1000}")
+                          int reactiveMaxConcurrentCalls,
+                          @Value("${shareit-gateway.circuit-breaker.failure-threshold:20}") int failureThreshold,
+                          @Value("${shareit-gateway.circuit-breaker.open-duration:10s}") Duration openDuration) {
+        this.meterRegistry = meterRegistry;
+        this.environment = environment;
+        this.reactive = reactive;
+        this.maxConcurrentCalls = reactive ? reactiveMaxConcurrentCalls : maxConcurrentCalls;
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+    }
+
+    public UpstreamGuard forClient(String name) {
+        return guards.computeIfAbsent(name, key -> new UpstreamGuard(meterRegistry, key,
+                environment.getProperty("shareit-gateway.bulkhead." + key + ".max-concurrent-calls", Integer.class,
+                        maxConcurrentCalls),
+                failureThreshold, openDuration.toNanos()));
+    }
+
+    public Collection<UpstreamGuard> getAll() {
+        return guards.values();
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        int maxCalls = guards.values().stream().mapToInt(UpstreamGuard::getMaxConcurrentCalls).sum();
+        int poolSize;
+        int maxPoolQueue;
+        if (reactive) {
+            poolSize = environment.getProperty("shareit-gateway.reactive.max-connections", Integer.class, 500);
+            maxPoolQueue = environment.getProperty("shareit-gateway.reactive.max-pool-queue", Integer.class, 1000);
+        } else {
+            // Blocking calls run on request threads, so no more of them can be in flight than there are threads.
+            maxCalls = Math.min(maxCalls, environment.getProperty("server.tomcat.threads.max", Integer.class, 200));
+            poolSize = Math.min(
+                    environment.getProperty("shareit-gateway.http.max-total", Integer.class, 150),
+                    environment.getProperty("shareit-gateway.http.max-per-route", Integer.class, 150));
+            maxPoolQueue = environment.getProperty("shareit-gateway.shedding.max-pool-queue", Integer.class, 25);
+        }
+        if (maxPoolQueue >= maxCalls - poolSize) {
+            throw new IllegalStateException("At most " + maxCalls + " calls can be in flight for a pool of "
+                    + poolSize + " connections, so a pool queue limit of " + maxPoolQueue + " is never reached");
+        }
+    }
+}
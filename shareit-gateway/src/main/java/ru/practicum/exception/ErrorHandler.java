@@ -2,18 +2,26 @@ package ru.practicum.exception;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
 
 import javax.validation.ValidationException;
 
 @Slf4j
 @RestControllerAdvice
 public class ErrorHandler {
+    /**
+     * When to retry after the server could not be reached, including when the connection pool queue was full.
+     */
+    private static final long SERVER_UNAVAILABLE_RETRY_AFTER_SECONDS = 1;
 
     @ExceptionHandler
     @ResponseStatus(HttpStatus.BAD_REQUEST)
@@ -43,5 +51,28 @@ public class ErrorHandler {
         return new ErrorResponse("Validation error", e.getMessage(), 500);
     }
 
-}
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> handlerTooManyRequestsException(final TooManyRequestsException e) {
+        log.warn(e.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(new ErrorResponse("Too many requests", e.getMessage(), 429));
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> handlerServerUnavailableException(final ServerUnavailableException e) {
+        log.warn(e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(new ErrorResponse("Server unavailable", e.getMessage(), 503));
+    }
 
+    @ExceptionHandler({ResourceAccessException.class, WebClientRequestException.class})
+    public ResponseEntity<ErrorResponse> handlerServerAccessException(final RuntimeException e) {
+        log.error(e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(SERVER_UNAVAILABLE_RETRY_AFTER_SECONDS))
+                .body(new ErrorResponse("Server unavailable", e.getMessage(), 503));
+    }
+
+}
@@ -1,51 +1,130 @@
 package ru.practicum.item;
 
+import org.apache.http.client.HttpClient;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 import ru.practicum.client.BaseClient;
+import ru.practicum.client.ResponseCache;
+import ru.practicum.client.SingleFlight;
+import ru.practicum.client.UpstreamGuards;
 import ru.practicum.item.dto.CommentResearchDto;
 import ru.practicum.item.dto.ItemDto;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
 @Service
 public class ItemClient extends BaseClient {
     private static final String API_PREFIX = "/items";
 
     @Autowired
-    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                      HttpClient httpClient,
+                      WebClient.Builder webClientBuilder,
+                      ResponseCache responseCache,
+                      SingleFlight singleFlight,
+                      UpstreamGuards upstreamGuards,
+                      @Value("${shareit-gateway.reactive.enabled:false}") boolean reactive) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> unbufferedRequestFactory(httpClient))
+                        .build(),
+                reactive
+                        ? webClientBuilder
+                                .uriBuilderFactory(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
+                                .build()
+                        : null,
+                responseCache,
+                singleFlight,
+                upstreamGuards.forClient("items")
         );
     }
 
-    public ResponseEntity<Object> saveItem(ItemDto requestDto, Integer userId) {
+    /**
+     * Imports can be far larger than memory, so request bodies are streamed to the server instead of
+     * being collected first.
+     */
+    private static ClientHttpRequestFactory unbufferedRequestFactory(HttpClient httpClient) {
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        requestFactory.setBufferRequestBody(false);
+        return requestFactory;
+    }
+
+    public void importItems(Integer userId, InputStream body, HttpServletResponse response) throws IOException {
+        stream(HttpMethod.POST, "/import", userId, MediaType.APPLICATION_NDJSON, body, response);
+    }
+
+    public Mono<ResponseEntity<Object>> saveItem(ItemDto requestDto, Integer userId) {
         return post("", userId, requestDto);
     }
 
-    public ResponseEntity<Object> saveComment(Integer itemId, Integer userId, CommentResearchDto requestDto) {
+    public Mono<ResponseEntity<Object>> saveItems(List<ItemDto> requestDtos, Integer userId) {
+        return post("/batch", userId, requestDtos);
+    }
+
+    public Mono<ResponseEntity<Object>> saveComment(Integer itemId, Integer userId, CommentResearchDto requestDto) {
         return post("/" + itemId + "/comment", userId, requestDto);
     }
 
-    public ResponseEntity<Object> getItem(Integer itemId, Integer userId) {
-        return get("/" + itemId, userId);
+    public Mono<ResponseEntity<Object>> getItem(Integer itemId, Integer userId) {
+        return getCached("/" + itemId, userId);
     }
 
-    public ResponseEntity<Object> getItemToUser(Integer userId) {
+    public Mono<ResponseEntity<Object>> getItemToUser(Integer userId) {
         return get("", userId);
     }
 
-    public ResponseEntity<Object> searchItem(String text, Integer userId) {
-        return get("/search?text=" + text, userId);
+    public Mono<ResponseEntity<Object>> searchItem(String text, Integer userId, Integer from, Integer size) {
+        Map<String, Object> parameters = Map.of(
+                "text", text,
+                "from", from,
+                "size", size
+        );
+        return get("/search?text={text}&from={from}&size={size}", userId, parameters);
+    }
+
+    public Mono<ResponseEntity<Object>> getAvailability(Integer itemId, Integer userId, LocalDateTime from,
+                                                        LocalDateTime to) {
+        Map<String, Object> parameters = new HashMap<>();
+        StringJoiner query = new StringJoiner("&", "?", "").setEmptyValue("");
+        if (from != null) {
+            parameters.put("from", DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(from));
+            query.add("from={from}");
+        }
+        if (to != null) {
+            parameters.put("to", DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(to));
+            query.add("to={to}");
+        }
+        return get("/" + itemId + "/availability" + query, userId, parameters);
+    }
+
+    public Mono<ResponseEntity<Object>> suggest(String prefix, Integer userId, Integer size) {
+        Map<String, Object> parameters = Map.of(
+                "prefix", prefix,
+                "size", size
+        );
+        return get("/suggest?prefix={prefix}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> updateItem(ItemDto requestDto, Integer userId, Integer itemId) {
+    public Mono<ResponseEntity<Object>> updateItem(ItemDto requestDto, Integer userId, Integer itemId) {
         return patch("/" + itemId, userId, requestDto);
     }
 }
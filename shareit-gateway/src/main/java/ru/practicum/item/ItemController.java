@@ -2,66 +2,126 @@ package ru.practicum.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 import ru.practicum.item.dto.CommentResearchDto;
 import ru.practicum.item.dto.ItemDto;
+import ru.practicum.ratelimit.ExpensiveRoute;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.List;
 
 @Slf4j
+@Validated
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/items")
 public class ItemController {
+    public static final int MAX_BATCH_ITEMS = 10000;
     private final ItemClient itemClient;
 
     @PostMapping
-    public ResponseEntity<Object> saveItem(@RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
-                                           @RequestBody @NotNull @Valid ItemDto itemDto) {
+    public Mono<ResponseEntity<Object>> saveItem(@RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
+                                                 @RequestBody @NotNull @Valid ItemDto itemDto) {
         log.debug("Create item {}", itemDto);
         return itemClient.saveItem(itemDto, userId);
     }
 
+    @ExpensiveRoute
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<Object>> saveItems(
+            @RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
+            @RequestBody @NotEmpty @Size(max = MAX_BATCH_ITEMS) List<@Valid ItemDto> itemDtos) {
+        log.debug("Create {} items", itemDtos.size());
+        return itemClient.saveItems(itemDtos, userId);
+    }
+
+    @ExpensiveRoute
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public void importItems(@RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
+                            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        log.debug("Import items for user with id = {}", userId);
+        itemClient.importItems(userId, request.getInputStream(), response);
+    }
+
     @GetMapping("/{itemId}")
-    public ResponseEntity<Object> getItem(@RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
-                                          @PathVariable @Min(1) Integer itemId) {
+    public Mono<ResponseEntity<Object>> getItem(@RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
+                                                @PathVariable @Min(1) Integer itemId) {
         log.debug("Get item with id = {} for user with id = {}", itemId, userId);
         return itemClient.getItem(itemId, userId);
     }
 
+    @ExpensiveRoute
     @GetMapping
-    public ResponseEntity<Object> getItemToUser(@RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId) {
+    public Mono<ResponseEntity<Object>> getItemToUser(@RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId) {
         log.debug("Get all items by owner with id = {}", userId);
         return itemClient.getItemToUser(userId);
     }
 
     @PatchMapping("/{itemId}")
-    public ResponseEntity<Object> updateItem(@RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
-                                             @RequestBody @NotNull ItemDto itemDto,
-                                             @PathVariable @Min(1) Integer itemId) {
+    public Mono<ResponseEntity<Object>> updateItem(@RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
+                                                   @RequestBody @NotNull ItemDto itemDto,
+                                                   @PathVariable @Min(1) Integer itemId) {
         log.debug("Update item {}", itemDto);
         return itemClient.updateItem(itemDto, userId, itemId);
     }
 
+    @ExpensiveRoute
     @GetMapping("/search")
-    public ResponseEntity<Object> getItemToSearch(@RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
-                                                  @RequestParam(defaultValue = "") String text) {
-        log.debug("Text search: {}.", text);
-        if (text.isBlank() || text.contains(" ")) {
-            return new ResponseEntity<>(new ArrayList<>(), HttpStatus.OK);
+    public Mono<ResponseEntity<Object>> getItemToSearch(@RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
+                                                        @RequestParam(defaultValue = "") String text,
+                                                        @RequestParam(defaultValue = "0") @Min(0) Integer from,
+                                                        @RequestParam(required = false) @Min(1) Integer size) {
+        log.debug("Text search: {}, from = {}, size = {}.", text, from, size);
+        if (text.isBlank()) {
+            return Mono.just(new ResponseEntity<>(new ArrayList<>(), HttpStatus.OK));
+        }
+        if (size == null) {
+            size = Integer.MAX_VALUE;
+        }
+        return itemClient.searchItem(text, userId, from, size);
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public Mono<ResponseEntity<Object>> getAvailability(
+            @RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
+            @PathVariable @Min(1) Integer itemId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        log.debug("Get availability of item with id = {} from {} to {}", itemId, from, to);
+        return itemClient.getAvailability(itemId, userId, from, to);
+    }
+
+    @GetMapping("/suggest")
+    public Mono<ResponseEntity<Object>> suggest(@RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
+                                                @RequestParam(defaultValue = "") String prefix,
+                                                @RequestParam(defaultValue = "10") @Min(1) @Max(20) Integer size) {
+        log.debug("Suggest item names for prefix: {}, size = {}.", prefix, size);
+        if (prefix.isBlank()) {
+            return Mono.just(new ResponseEntity<>(new ArrayList<>(), HttpStatus.OK));
         }
-        return itemClient.searchItem(text, userId);
+        return itemClient.suggest(prefix, userId, size);
     }
 
     @PostMapping("/{itemId}/comment")
-    public ResponseEntity<Object> saveComment(@RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
-                                              @PathVariable @Min(1) Integer itemId,
-                                              @NotNull @Valid @RequestBody CommentResearchDto researchDto) {
+    public Mono<ResponseEntity<Object>> saveComment(@RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
+                                                    @PathVariable @Min(1) Integer itemId,
+                                                    @NotNull @Valid @RequestBody CommentResearchDto researchDto) {
         log.debug("Saving comment by user with id = " + userId + " item with id = " + itemId
                 + " comment {}", researchDto);
         return itemClient.saveComment(itemId, userId, researchDto);
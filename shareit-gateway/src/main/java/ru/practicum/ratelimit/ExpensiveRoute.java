@@ -0,0 +1,15 @@
+package ru.practicum.ratelimit;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a handler whose server call can return or write an unbounded number of rows, such as lists, searches,
+ * exports and batches. Such handlers draw from the expensive rate limit budget instead of the cheap one.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ExpensiveRoute {
+}
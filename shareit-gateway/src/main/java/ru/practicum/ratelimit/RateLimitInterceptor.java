@@ -0,0 +1,57 @@
+package ru.practicum.ratelimit;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import ru.practicum.exception.TooManyRequestsException;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Charges each request to its caller, the {@code X-Sharer-User-Id} header or the remote address when the
+ * header is missing or not a user id, before the handler runs. The dispatch that writes an async result is
+ * not charged again.
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimitInterceptor implements HandlerInterceptor {
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+
+    private final RateLimiter rateLimiter;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() != DispatcherType.REQUEST || !(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        String address = "address:" + request.getRemoteAddr();
+        Integer userId = parseUserId(request.getHeader(USER_HEADER));
+        String caller = userId != null ? "user:" + userId : address;
+        boolean expensive = ((HandlerMethod) handler).hasMethodAnnotation(ExpensiveRoute.class);
+        long wait = rateLimiter.tryAcquire(caller, address, expensive);
+        if (wait > 0) {
+            throw new TooManyRequestsException("Rate limit exceeded for " + caller,
+                    TimeUnit.NANOSECONDS.toSeconds(wait - 1) + 1);
+        }
+        return true;
+    }
+
+    /**
+     * @return the id, or {@code null} if the header is missing or not a positive integer
+     */
+    private static Integer parseUserId(String header) {
+        if (header == null) {
+            return null;
+        }
+        try {
+            int userId = Integer.parseInt(header.trim());
+            return userId > 0 ? userId : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package ru.practicum.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * One token bucket per caller and budget. Buckets of callers that have been quiet for longer than
+ * {@code idleTimeout} are dropped, which is the same as keeping them full, and at most {@code maxCallers}
+ * buckets are kept per budget.
+ * <p>
+ * A new bucket starts full, so a client could get a fresh burst by sending a new user id each time. The first
+ * request of a caller is therefore also charged to the address it came from, and an address runs out of new
+ * callers as fast as a single caller runs out of requests.
+ */
+@Component
+public class RateLimiter {
+    public static final String REJECTED_METRIC = "gateway.requests.rate.limited";
+
+    private final Budget cheap;
+    private final Budget expensive;
+
+    public RateLimiter(MeterRegistry meterRegistry,
+                       @Value("${shareit-gateway.rate-limit.cheap.rate:100}") double cheapRate,
+                       @Value("${shareit-gateway.rate-limit.cheap.burst:200}") int cheapBurst,
+                       @Value("${shareit-gateway.rate-limit.expensive.rate:5}") double expensiveRate,
+                       @Value("${shareit-gateway.rate-limit.expensive.burst:20}") int expensiveBurst,
+                       @Value("${shareit-gateway.rate-limit.idle-timeout:10m}") Duration idleTimeout,
+                       @Value("${shareit-gateway.rate-limit.max-callers:100000}") long maxCallers) {
+        cheap = new Budget(meterRegistry, "cheap", cheapRate, cheapBurst, idleTimeout, maxCallers);
+        expensive = new Budget(meterRegistry, "expensive", expensiveRate, expensiveBurst, idleTimeout, maxCallers);
+    }
+
+    /**
+     * @param caller  the bucket to charge
+     * @param address the bucket of the remote address, charged as well when the caller is new
+     * @return 0 if the caller may go on, otherwise the nanoseconds until it may try again
+     */
+    public long tryAcquire(String caller, String address, boolean expensiveRoute) {
+        return (expensiveRoute ? expensive : cheap).tryAcquire(caller, address);
+    }
+
+    private static class Budget {
+        private final Cache<String, TokenBucket> buckets;
+        private final Counter rejected;
+        private final double rate;
+        private final int burst;
+
+        Budget(MeterRegistry meterRegistry, String name, double rate, int burst, Duration idleTimeout,
+               long maxCallers) {
+            this.rate = rate;
+            this.burst = burst;
+            this.buckets = Caffeine.newBuilder()
+                    .expireAfterAccess(idleTimeout)
+                    .maximumSize(maxCallers)
+                    .build();
+            this.rejected = Counter.builder(REJECTED_METRIC)
+                    .description("Requests refused because the caller ran out of its rate limit budget")
+                    .tag("budget", name)
+                    .register(meterRegistry);
+        }
+
+        long tryAcquire(String caller, String address) {
+            long now = System.nanoTime();
+            TokenBucket bucket = buckets.getIfPresent(caller);
+            if (bucket == null && !caller.equals(address)) {
+                long wait = bucket(address, now).tryTake(now);
+                if (wait > 0) {
+                    rejected.increment();
+                    return wait;
+                }
+            }
+            long wait = (bucket != null ? bucket : bucket(caller, now)).tryTake(now);
+            if (wait > 0) {
+                rejected.increment();
+            }
+            return wait;
+        }
+
+        private TokenBucket bucket(String caller, long now) {
+            return buckets.get(caller, key -> new TokenBucket(rate, burst, now));
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package ru.practicum.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket kept as the single instant at which it will be full again, so taking a token is one
+ * compare-and-set and concurrent callers never wait for each other.
+ */
+class TokenBucket {
+    private final long nanosPerToken;
+    private final long capacityNanos;
+    private final AtomicLong fullAt;
+
+    TokenBucket(double tokensPerSecond, int capacity, long now) {
+        this.nanosPerToken = (long) (1_000_000_000L / tokensPerSecond);
+        this.capacityNanos = nanosPerToken * capacity;
+        this.fullAt = new AtomicLong(now);
+    }
+
+    /**
+     * @return 0 if a token was taken, otherwise the nanoseconds until the next one is available
+     */
+    long tryTake(long now) {
+        while (true) {
+            long full = fullAt.get();
+            long next = Math.max(full, now) + nanosPerToken;
+            long wait = next - capacityNanos - now;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(full, next)) {
+                return 0;
+            }
+        }
+    }
+}
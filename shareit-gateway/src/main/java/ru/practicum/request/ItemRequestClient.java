@@ -1,13 +1,19 @@
 package ru.practicum.request;
 
+import org.apache.http.client.HttpClient;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 import ru.practicum.client.BaseClient;
+import ru.practicum.client.ResponseCache;
+import ru.practicum.client.SingleFlight;
+import ru.practicum.client.UpstreamGuards;
 import ru.practicum.request.dto.ItemRequestDto;
 
 import java.util.Map;
@@ -17,16 +23,30 @@ public class ItemRequestClient extends BaseClient {
     private static final String API_PREFIX = "/requests";
 
     @Autowired
-    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                             HttpClient httpClient,
+                             WebClient.Builder webClientBuilder,
+                             ResponseCache responseCache,
+                             SingleFlight singleFlight,
+                             UpstreamGuards upstreamGuards,
+                             @Value("${shareit-gateway.reactive.enabled:false}") boolean reactive) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient))
+                        .build(),
+                reactive
+                        ? webClientBuilder
+                                .uriBuilderFactory(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
+                                .build()
+                        : null,
+                responseCache,
+                singleFlight,
+                upstreamGuards.forClient("requests")
         );
     }
 
-    public ResponseEntity<Object> getRequestsToAnotherUsers(Integer userId, Integer from, Integer size) {
+    public Mono<ResponseEntity<Object>> getRequestsToAnotherUsers(Integer userId, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
@@ -34,15 +54,15 @@ public class ItemRequestClient extends BaseClient {
         return get("/all?from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> getRequestsToUser(Integer userId) {
+    public Mono<ResponseEntity<Object>> getRequestsToUser(Integer userId) {
         return get("", userId);
     }
 
-    public ResponseEntity<Object> saveItemRequest(Integer userId, ItemRequestDto requestDto) {
+    public Mono<ResponseEntity<Object>> saveItemRequest(Integer userId, ItemRequestDto requestDto) {
         return post("", userId, requestDto);
     }
 
-    public ResponseEntity<Object> getRequest(Integer userId, Integer requestId) {
-        return get("/" + requestId, userId);
+    public Mono<ResponseEntity<Object>> getRequest(Integer userId, Integer requestId) {
+        return getCached("/" + requestId, userId);
     }
 }
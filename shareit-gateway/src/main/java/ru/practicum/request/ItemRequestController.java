@@ -5,6 +5,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import ru.practicum.ratelimit.ExpensiveRoute;
 import ru.practicum.request.dto.ItemRequestDto;
 
 import javax.validation.Valid;
@@ -20,20 +22,22 @@ public class ItemRequestController {
     private final ItemRequestClient itemRequestClient;
 
     @PostMapping
-    public ResponseEntity<Object> saveItemRequest(@RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
-                                                  @RequestBody @NotNull @Valid ItemRequestDto requestDto) {
+    public Mono<ResponseEntity<Object>> saveItemRequest(@RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
+                                                        @RequestBody @NotNull @Valid ItemRequestDto requestDto) {
         log.debug("Save item request {}", requestDto);
         return itemRequestClient.saveItemRequest(userId, requestDto);
     }
 
+    @ExpensiveRoute
     @GetMapping
-    public ResponseEntity<Object> getRequestsToUser(@RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId) {
+    public Mono<ResponseEntity<Object>> getRequestsToUser(@RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId) {
         log.debug("Get all user requests with id = {}", userId);
         return itemRequestClient.getRequestsToUser(userId);
     }
 
+    @ExpensiveRoute
     @GetMapping("/all")
-    public ResponseEntity<Object> getRequestsToAnotherUsers(
+    public Mono<ResponseEntity<Object>> getRequestsToAnotherUsers(
             @RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
             @RequestParam(defaultValue = "0") @Min(0) Integer from,
             @RequestParam(required = false) @Min(1) Integer size) {
@@ -45,8 +49,8 @@ public class ItemRequestController {
     }
 
     @GetMapping("/{requestId}")
-    public ResponseEntity<Object> getRequestById(@RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
-                                                 @PathVariable @Min(1) Integer requestId) {
+    public Mono<ResponseEntity<Object>> getRequestById(@RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
+                                                       @PathVariable @Min(1) Integer requestId) {
         log.debug("Get request by user with id = {}", userId);
         return itemRequestClient.getRequest(userId, requestId);
     }
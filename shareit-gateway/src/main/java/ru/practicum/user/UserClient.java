@@ -1,14 +1,20 @@
 package ru.practicum.user;
 
+import org.apache.http.client.HttpClient;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 import ru.practicum.booking.dto.BookingResearchDto;
 import ru.practicum.client.BaseClient;
+import ru.practicum.client.ResponseCache;
+import ru.practicum.client.SingleFlight;
+import ru.practicum.client.UpstreamGuards;
 import ru.practicum.user.dto.UserDto;
 
 import java.util.Map;
@@ -18,37 +24,51 @@ public class UserClient extends BaseClient {
     private static final String API_PREFIX = "/users";
 
     @Autowired
-    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                      HttpClient httpClient,
+                      WebClient.Builder webClientBuilder,
+                      ResponseCache responseCache,
+                      SingleFlight singleFlight,
+                      UpstreamGuards upstreamGuards,
+                      @Value("${shareit-gateway.reactive.enabled:false}") boolean reactive) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient))
+                        .build(),
+                reactive
+                        ? webClientBuilder
+                                .uriBuilderFactory(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
+                                .build()
+                        : null,
+                responseCache,
+                singleFlight,
+                upstreamGuards.forClient("users")
         );
     }
 
-    public ResponseEntity<Object> saveUser(UserDto requestDto) {
+    public Mono<ResponseEntity<Object>> saveUser(UserDto requestDto) {
         return post("", requestDto);
     }
 
-    public ResponseEntity<Object> getUser(Integer userId) {
-        return get("/" + userId);
+    public Mono<ResponseEntity<Object>> getUser(Integer userId) {
+        return getCached("/" + userId, null);
     }
 
-    public ResponseEntity<Object> getAllUser() {
+    public Mono<ResponseEntity<Object>> getAllUser() {
         return get("");
     }
 
 
-    public ResponseEntity<Object> updateUser(Integer userId, UserDto requestDto) {
+    public Mono<ResponseEntity<Object>> updateUser(Integer userId, UserDto requestDto) {
         return patch("/" + userId, requestDto);
     }
 
-    public void removeUser(Integer userId) {
-        delete("/" + userId);
+    public Mono<Void> removeUser(Integer userId) {
+        return delete("/" + userId).then();
     }
 
-    public ResponseEntity<Object> getBookings(Integer userId, String state, Integer from, Integer size) {
+    public Mono<ResponseEntity<Object>> getBookings(Integer userId, String state, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "state", state,
                 "from", from,
@@ -57,7 +77,7 @@ public class UserClient extends BaseClient {
         return get("?state={state}&from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> getBookingsOwner(Integer userId, String state, Integer from, Integer size) {
+    public Mono<ResponseEntity<Object>> getBookingsOwner(Integer userId, String state, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "state", state,
                 "from", from,
@@ -66,15 +86,15 @@ public class UserClient extends BaseClient {
         return get("/owner?state={state}&from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> saveBooking(BookingResearchDto requestDto, Integer userId) {
+    public Mono<ResponseEntity<Object>> saveBooking(BookingResearchDto requestDto, Integer userId) {
         return post("", userId, requestDto);
     }
 
-    public ResponseEntity<Object> getBooking(Integer userId, Integer bookingId) {
+    public Mono<ResponseEntity<Object>> getBooking(Integer userId, Integer bookingId) {
         return get("/" + bookingId, userId);
     }
 
-    public ResponseEntity<Object> approvedOrRejectBooking(Integer bookingId, Integer userId, boolean approved) {
+    public Mono<ResponseEntity<Object>> approvedOrRejectBooking(Integer bookingId, Integer userId, boolean approved) {
         Map<String, Object> parameters = Map.of(
                 "approved", approved
         );
@@ -0,0 +1,92 @@
+package ru.practicum.client;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BlockingTransportTest extends GatewayTransportTest {
+    @LocalServerPort
+    private int port;
+
+    @Override
+    protected int expectedMaxConcurrentCalls() {
+        return 100;
+    }
+
+    /**
+     * With the shipped settings 150 calls hold every connection and 25 wait for one, so of 190 concurrent
+     * calls the last ones are shed.
+     */
+    @Test
+    void callsBeyondPoolQueueShouldBeShed() throws Exception {
+        CountDownLatch slowServer = new CountDownLatch(1);
+        SERVER.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                slowServer.await(30, TimeUnit.SECONDS);
+                return json(200, "{}");
+            }
+        });
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        AtomicInteger shed = new AtomicInteger();
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        try {
+            for (int i = 1; i <= 95; i++) {
+                responses.add(send(client, HttpRequest.newBuilder(gateway("/bookings/" + i))
+                        .header("X-Sharer-User-Id", "2"), shed));
+                responses.add(send(client, HttpRequest.newBuilder(gateway("/users/" + i)), shed));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(4);
+            while (shed.get() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+        } finally {
+            slowServer.countDown();
+        }
+
+        int served = 0;
+        boolean queueFull = false;
+        for (CompletableFuture<HttpResponse<String>> future : responses) {
+            HttpResponse<String> response = future.get(30, TimeUnit.SECONDS);
+            if (response.statusCode() == 200) {
+                served++;
+            } else {
+                assertEquals(503, response.statusCode());
+                assertTrue(response.headers().firstValue("Retry-After").isPresent());
+                queueFull |= response.body().contains("waiting for a connection to the server");
+            }
+        }
+        assertTrue(queueFull, "Some calls should have been shed at the pool queue");
+        assertTrue(served >= 175, "Calls holding or waiting for a connection should be served, got " + served);
+    }
+
+    private CompletableFuture<HttpResponse<String>> send(HttpClient client, HttpRequest.Builder request,
+                                                         AtomicInteger shed) {
+        return client.sendAsync(request.build(), HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, e) -> {
+                    if (response != null && response.statusCode() == 503) {
+                        shed.incrementAndGet();
+                    }
+                });
+    }
+
+    private URI gateway(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
@@ -0,0 +1,164 @@
+package ru.practicum.client;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class CircuitBreakerTest {
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final long OPEN_NANOS = 1000;
+
+    private CircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        breaker = new CircuitBreaker(FAILURE_THRESHOLD, OPEN_NANOS);
+    }
+
+    @Test
+    void breakerShouldOpenAfterThresholdFailuresInRow() {
+        breaker.onFailure(breaker.tryAcquire(0), 0);
+        breaker.onFailure(breaker.tryAcquire(0), 0);
+        breaker.onSuccess(breaker.tryAcquire(0));
+        breaker.onFailure(breaker.tryAcquire(0), 0);
+        breaker.onFailure(breaker.tryAcquire(0), 0);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(2, breaker.getConsecutiveFailures());
+        assertNotNull(breaker.tryAcquire(0));
+
+        breaker.onFailure(breaker.tryAcquire(100), 100);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertNull(breaker.tryAcquire(100));
+        assertEquals(OPEN_NANOS, breaker.getRetryAfterNanos(100));
+        assertEquals(OPEN_NANOS - 400, breaker.getRetryAfterNanos(500));
+    }
+
+    @Test
+    void halfOpenBreakerShouldLetOneProbeThrough() {
+        open();
+
+        assertNotNull(breaker.tryAcquire(OPEN_NANOS));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertNull(breaker.tryAcquire(OPEN_NANOS));
+        assertNull(breaker.tryAcquire(OPEN_NANOS + 1));
+        assertEquals(OPEN_NANOS, breaker.getRetryAfterNanos(OPEN_NANOS + 1));
+    }
+
+    @Test
+    void concurrentCallersShouldGetOneProbe() throws Exception {
+        open();
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> callers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                callers.add(executor.submit(() -> {
+                    start.await();
+                    return breaker.tryAcquire(OPEN_NANOS) != null;
+                }));
+            }
+            start.countDown();
+            int probes = 0;
+            for (Future<Boolean> caller : callers) {
+                if (caller.get()) {
+                    probes++;
+                }
+            }
+
+            assertEquals(1, probes);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void successfulProbeShouldCloseBreaker() {
+        open();
+
+        breaker.onSuccess(breaker.tryAcquire(OPEN_NANOS));
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertNotNull(breaker.tryAcquire(OPEN_NANOS));
+        assertNotNull(breaker.tryAcquire(OPEN_NANOS));
+    }
+
+    @Test
+    void failedProbeShouldOpenBreakerAgain() {
+        open();
+
+        breaker.onFailure(breaker.tryAcquire(OPEN_NANOS), OPEN_NANOS + 10);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertNull(breaker.tryAcquire(OPEN_NANOS + 10));
+        assertEquals(OPEN_NANOS, breaker.getRetryAfterNanos(OPEN_NANOS + 10));
+        assertNotNull(breaker.tryAcquire(2 * OPEN_NANOS + 10));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    void ignoredProbeShouldLetAnotherProbeThrough() {
+        open();
+
+        breaker.onIgnored(breaker.tryAcquire(OPEN_NANOS));
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertNotNull(breaker.tryAcquire(OPEN_NANOS));
+        assertNull(breaker.tryAcquire(OPEN_NANOS));
+    }
+
+    @Test
+    void lateFailureShouldNotExtendOpenWindow() {
+        CircuitBreaker.Phase slowCall = breaker.tryAcquire(0);
+        open();
+
+        breaker.onFailure(slowCall, 500);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(OPEN_NANOS, breaker.getRetryAfterNanos(0));
+        assertNotNull(breaker.tryAcquire(OPEN_NANOS));
+    }
+
+    @Test
+    void lateSuccessShouldNotCloseHalfOpenBreaker() {
+        CircuitBreaker.Phase slowCall = breaker.tryAcquire(0);
+        open();
+        assertNotNull(breaker.tryAcquire(OPEN_NANOS));
+
+        breaker.onSuccess(slowCall);
+        breaker.onIgnored(slowCall);
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertNull(breaker.tryAcquire(OPEN_NANOS));
+    }
+
+    @Test
+    void lateFailureShouldNotCountAfterBreakerClosedAgain() {
+        CircuitBreaker.Phase slowCall = breaker.tryAcquire(0);
+        open();
+        breaker.onSuccess(breaker.tryAcquire(OPEN_NANOS));
+
+        breaker.onFailure(slowCall, OPEN_NANOS);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getConsecutiveFailures());
+    }
+
+    private void open() {
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            breaker.onFailure(breaker.tryAcquire(0), 0);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package ru.practicum.client;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.QueueDispatcher;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import ru.practicum.user.dto.UserDto;
+
+import javax.net.ServerSocketFactory;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.SocketAddress;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the gateway against a stub server. Subclasses pick the transport, so that the blocking and the reactive
+ * client are checked the same way.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+abstract class GatewayTransportTest {
+    protected static final MockWebServer SERVER = new MockWebServer();
+    /**
+     * The stub server asks for a backlog of 50, too few for the bursts of new connections some tests make.
+     */
+    private static final int ACCEPT_BACKLOG = 500;
+
+    static {
+        SERVER.setServerSocketFactory(new ServerSocketFactory() {
+            @Override
+            public ServerSocket createServerSocket() throws IOException {
+                return new ServerSocket() {
+                    @Override
+                    public void bind(SocketAddress endpoint, int backlog) throws IOException {
+                        super.bind(endpoint, ACCEPT_BACKLOG);
+                    }
+                };
+            }
+
+            @Override
+            public ServerSocket createServerSocket(int port) throws IOException {
+                return ServerSocketFactory.getDefault().createServerSocket(port);
+            }
+
+            @Override
+            public ServerSocket createServerSocket(int port, int backlog) throws IOException {
+                return ServerSocketFactory.getDefault().createServerSocket(port, backlog);
+            }
+
+            @Override
+            public ServerSocket createServerSocket(int port, int backlog, InetAddress address) throws IOException {
+                return ServerSocketFactory.getDefault().createServerSocket(port, backlog, address);
+            }
+        });
+        try {
+            SERVER.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Autowired
+    protected TestRestTemplate restTemplate;
+    @Autowired
+    private UpstreamGuards upstreamGuards;
+
+    @DynamicPropertySource
+    static void serverProperties(DynamicPropertyRegistry registry) {
+        registry.add("shareit-server.url", () -> "http://" + SERVER.getHostName() + ":" + SERVER.getPort());
+    }
+
+    /**
+     * Per-client limit the transport is expected to use by default.
+     */
+    protected abstract int expectedMaxConcurrentCalls();
+
+    @BeforeEach
+    void resetServer() throws InterruptedException {
+        QueueDispatcher dispatcher = new QueueDispatcher();
+        dispatcher.setFailFast(true);
+        SERVER.setDispatcher(dispatcher);
+        while (SERVER.takeRequest(0, TimeUnit.SECONDS) != null) {
+            // drop requests recorded by earlier tests
+        }
+    }
+
+    @Test
+    void responseShouldBePassedThrough() throws InterruptedException {
+        SERVER.enqueue(json(200, "{\"id\":1,\"status\":\"WAITING\"}"));
+
+        ResponseEntity<String> response = restTemplate.exchange("/bookings/1", HttpMethod.GET,
+                new HttpEntity<>(userHeaders()), String.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getBody().contains("WAITING"));
+        RecordedRequest request = SERVER.takeRequest(1, TimeUnit.SECONDS);
+        assertEquals("/bookings/1", request.getPath());
+        assertEquals("2", request.getHeader("X-Sharer-User-Id"));
+    }
+
+    @Test
+    void errorResponseShouldBePassedThrough() {
+        SERVER.enqueue(json(404, "{\"error\":\"Booking with id = 1 not found\"}"));
+
+        ResponseEntity<String> response = restTemplate.exchange("/bookings/1", HttpMethod.GET,
+                new HttpEntity<>(userHeaders()), String.class);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertTrue(response.getBody().contains("Booking with id = 1 not found"));
+    }
+
+    @Test
+    void notModifiedShouldBePassedThrough() throws InterruptedException {
+        SERVER.enqueue(new MockResponse().setResponseCode(304).setHeader(HttpHeaders.ETAG, "\"7\""));
+        HttpHeaders headers = userHeaders();
+        headers.setIfNoneMatch("\"7\"");
+
+        ResponseEntity<String> response = restTemplate.exchange("/bookings/1", HttpMethod.GET,
+                new HttpEntity<>(headers), String.class);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals("\"7\"", response.getHeaders().getETag());
+        assertEquals("\"7\"", SERVER.takeRequest(1, TimeUnit.SECONDS).getHeader(HttpHeaders.IF_NONE_MATCH));
+    }
+
+    @Test
+    void ifNoneMatchShouldReachServerForBookingLists() throws InterruptedException {
+        SERVER.enqueue(new MockResponse().setResponseCode(304).setHeader(HttpHeaders.ETAG, "\"3-4-5-2-1-0\""));
+        HttpHeaders headers = userHeaders();
+        headers.setIfNoneMatch("\"3-4-5-2-1-0\"");
+
+        ResponseEntity<String> response = restTemplate.exchange("/bookings/owner?state=ALL", HttpMethod.GET,
+                new HttpEntity<>(headers), String.class);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals("\"3-4-5-2-1-0\"", response.getHeaders().getETag());
+        assertNull(response.getBody());
+        RecordedRequest request = SERVER.takeRequest(1, TimeUnit.SECONDS);
+        assertTrue(request.getPath().startsWith("/bookings/owner?state=ALL"));
+        assertEquals("\"3-4-5-2-1-0\"", request.getHeader(HttpHeaders.IF_NONE_MATCH));
+    }
+
+    @Test
+    void cachedResponseShouldAnswerIfNoneMatchWithItsETag() throws InterruptedException {
+        SERVER.enqueue(json(200, "{\"id\":41,\"name\":\"User 41\",\"email\":\"user41@yandex.ru\"}")
+                .setHeader(HttpHeaders.ETAG, "\"5\""));
+        assertEquals(HttpStatus.OK, restTemplate.getForEntity("/users/41", String.class).getStatusCode());
+        assertNotNull(SERVER.takeRequest(1, TimeUnit.SECONDS));
+        HttpHeaders matching = new HttpHeaders();
+        matching.setIfNoneMatch("W/\"5\"");
+        HttpHeaders stale = new HttpHeaders();
+        stale.setIfNoneMatch("\"4\"");
+
+        ResponseEntity<String> notModified = restTemplate.exchange("/users/41", HttpMethod.GET,
+                new HttpEntity<>(matching), String.class);
+        ResponseEntity<String> modified = restTemplate.exchange("/users/41", HttpMethod.GET,
+                new HttpEntity<>(stale), String.class);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+        assertEquals("\"5\"", notModified.getHeaders().getETag());
+        assertNull(notModified.getBody());
+        assertEquals(HttpStatus.OK, modified.getStatusCode());
+        assertTrue(modified.getBody().contains("User 41"));
+        assertNull(SERVER.takeRequest(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void lostConnectionShouldAnswerServiceUnavailable() {
+        SERVER.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST));
+
+        ResponseEntity<String> response = restTemplate.postForEntity("/users",
+                new UserDto(null, "User 1", "user1@yandex.ru"), String.class);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertNotNull(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void clientsShouldShareConnections() throws InterruptedException {
+        SERVER.enqueue(json(200, "[]"));
+        SERVER.enqueue(json(200, "[]"));
+
+        restTemplate.exchange("/items", HttpMethod.GET, new HttpEntity<>(userHeaders()), String.class);
+        restTemplate.exchange("/requests", HttpMethod.GET, new HttpEntity<>(userHeaders()), String.class);
+
+        SERVER.takeRequest(1, TimeUnit.SECONDS);
+        assertTrue(SERVER.takeRequest(1, TimeUnit.SECONDS).getSequenceNumber() > 0,
+                "The requests client should reuse the connection opened for the items client");
+    }
+
+    @Test
+    void bulkheadsShouldUseTransportDefault() {
+        for (String client : new String[]{"items", "users", "bookings", "requests"}) {
+            assertEquals(expectedMaxConcurrentCalls(), upstreamGuards.forClient(client).getMaxConcurrentCalls());
+        }
+    }
+
+    protected static MockResponse json(int status, String body) {
+        return new MockResponse()
+                .setResponseCode(status)
+                .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .setBody(body);
+    }
+
+    protected static HttpHeaders userHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Sharer-User-Id", "2");
+        return headers;
+    }
+}
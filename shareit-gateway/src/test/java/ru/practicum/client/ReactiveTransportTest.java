@@ -0,0 +1,11 @@
+package ru.practicum.client;
+
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource(properties = "shareit-gateway.reactive.enabled=true")
+public class ReactiveTransportTest extends GatewayTransportTest {
+    @Override
+    protected int expectedMaxConcurrentCalls() {
+        return 1000;
+    }
+}
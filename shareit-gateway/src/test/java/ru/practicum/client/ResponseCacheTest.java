@@ -0,0 +1,135 @@
+package ru.practicum.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.net.URI;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class ResponseCacheTest {
+    private static final URI ITEM = URI.create("http://localhost:8090/items/5");
+    private static final URI ITEM_COMMENT = URI.create("http://localhost:8090/items/5/comment");
+    private static final URI OTHER_ITEM = URI.create("http://localhost:8090/items/6");
+    private static final URI REQUEST = URI.create("http://localhost:8090/requests/3");
+    private static final URI USER = URI.create("http://localhost:8090/users/1");
+    private static final URI OTHER_USER = URI.create("http://localhost:8090/users/2");
+
+    private ResponseCache responseCache;
+
+    @BeforeEach
+    void setUp() {
+        responseCache = new ResponseCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void finishedLoadShouldBeCached() {
+        ResponseEntity<Object> response = ResponseEntity.ok("item");
+
+        responseCache.finishLoad(ITEM, 1, responseCache.startLoad(ITEM), response);
+
+        assertSame(response, responseCache.get(ITEM, 1));
+        assertNull(responseCache.get(ITEM, 2));
+    }
+
+    @Test
+    void loadWithoutResponseShouldNotBeCached() {
+        responseCache.finishLoad(ITEM, 1, responseCache.startLoad(ITEM), null);
+
+        assertNull(responseCache.get(ITEM, 1));
+    }
+
+    @Test
+    void loadOverlappingChangeShouldNotBeCached() {
+        long generation = responseCache.startLoad(ITEM);
+
+        responseCache.invalidate(ITEM_COMMENT);
+        responseCache.finishLoad(ITEM, 1, generation, ResponseEntity.ok("stale item"));
+
+        assertNull(responseCache.get(ITEM, 1));
+
+        ResponseEntity<Object> fresh = ResponseEntity.ok("item");
+        responseCache.finishLoad(ITEM, 1, responseCache.startLoad(ITEM), fresh);
+
+        assertSame(fresh, responseCache.get(ITEM, 1));
+    }
+
+    @Test
+    void invalidateShouldDropOnlyTheChangedResource() {
+        ResponseEntity<Object> other = ResponseEntity.ok("other item");
+        responseCache.finishLoad(ITEM, 1, responseCache.startLoad(ITEM), ResponseEntity.ok("item"));
+        responseCache.finishLoad(ITEM, 2, responseCache.startLoad(ITEM), ResponseEntity.ok("item"));
+        responseCache.finishLoad(OTHER_ITEM, 1, responseCache.startLoad(OTHER_ITEM), other);
+
+        responseCache.invalidate(ITEM);
+
+        assertNull(responseCache.get(ITEM, 1));
+        assertNull(responseCache.get(ITEM, 2));
+        assertSame(other, responseCache.get(OTHER_ITEM, 1));
+    }
+
+    @Test
+    void commentShouldDropItsItem() {
+        responseCache.finishLoad(ITEM, 1, responseCache.startLoad(ITEM), ResponseEntity.ok("item"));
+
+        responseCache.invalidate(ITEM_COMMENT);
+
+        assertNull(responseCache.get(ITEM, 1));
+    }
+
+    @Test
+    void bookingChangeShouldDropItems() {
+        ResponseEntity<Object> request = ResponseEntity.ok("request");
+        responseCache.finishLoad(ITEM, 1, responseCache.startLoad(ITEM), ResponseEntity.ok("item"));
+        responseCache.finishLoad(OTHER_ITEM, 1, responseCache.startLoad(OTHER_ITEM), ResponseEntity.ok("item"));
+        responseCache.finishLoad(REQUEST, 1, responseCache.startLoad(REQUEST), request);
+
+        responseCache.invalidate(URI.create("http://localhost:8090/bookings/7?approved=true"));
+
+        assertNull(responseCache.get(ITEM, 1));
+        assertNull(responseCache.get(OTHER_ITEM, 1));
+        assertSame(request, responseCache.get(REQUEST, 1));
+    }
+
+    @Test
+    void itemChangeShouldDropRequests() {
+        ResponseEntity<Object> otherItem = ResponseEntity.ok("other item");
+        responseCache.finishLoad(REQUEST, 1, responseCache.startLoad(REQUEST), ResponseEntity.ok("request"));
+        responseCache.finishLoad(OTHER_ITEM, 1, responseCache.startLoad(OTHER_ITEM), otherItem);
+
+        responseCache.invalidate(URI.create("http://localhost:8090/items"));
+
+        assertNull(responseCache.get(REQUEST, 1));
+        assertSame(otherItem, responseCache.get(OTHER_ITEM, 1));
+    }
+
+    @Test
+    void userChangeShouldDropItemsAndRequests() {
+        ResponseEntity<Object> otherUser = ResponseEntity.ok("other user");
+        responseCache.finishLoad(ITEM, 1, responseCache.startLoad(ITEM), ResponseEntity.ok("item"));
+        responseCache.finishLoad(REQUEST, 1, responseCache.startLoad(REQUEST), ResponseEntity.ok("request"));
+        responseCache.finishLoad(USER, null, responseCache.startLoad(USER), ResponseEntity.ok("user"));
+        responseCache.finishLoad(OTHER_USER, null, responseCache.startLoad(OTHER_USER), otherUser);
+
+        responseCache.invalidate(USER);
+
+        assertNull(responseCache.get(ITEM, 1));
+        assertNull(responseCache.get(REQUEST, 1));
+        assertNull(responseCache.get(USER, null));
+        assertSame(otherUser, responseCache.get(OTHER_USER, null));
+    }
+
+    @Test
+    void loadOverlappingDependentChangeShouldNotBeCached() {
+        long generation = responseCache.startLoad(ITEM);
+
+        responseCache.invalidate(URI.create("http://localhost:8090/bookings/7"));
+        responseCache.finishLoad(ITEM, 1, generation, ResponseEntity.ok("stale item"));
+
+        assertNull(responseCache.get(ITEM, 1));
+    }
+}
@@ -0,0 +1,111 @@
+package ru.practicum.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class SingleFlightTest {
+    private static final URI ITEM = URI.create("http://localhost:8090/items/5");
+
+    private final AtomicInteger sent = new AtomicInteger();
+    private final Sinks.One<ResponseEntity<Object>> response = Sinks.one();
+    private MeterRegistry meterRegistry;
+    private SingleFlight singleFlight;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        singleFlight = new SingleFlight(meterRegistry, true);
+    }
+
+    @Test
+    void identicalRequestsInFlightShouldShareOneCall() {
+        AtomicReference<ResponseEntity<Object>> first = new AtomicReference<>();
+        AtomicReference<ResponseEntity<Object>> second = new AtomicReference<>();
+
+        singleFlight.execute(ITEM, 1, new HttpHeaders(), this::pending).subscribe(first::set);
+        singleFlight.execute(ITEM, 1, new HttpHeaders(), this::pending).subscribe(second::set);
+        ResponseEntity<Object> item = ResponseEntity.ok("item");
+        response.tryEmitValue(item);
+
+        assertEquals(1, sent.get());
+        assertSame(item, first.get());
+        assertSame(item, second.get());
+        assertEquals(1, meterRegistry.get(SingleFlight.COLLAPSED_METRIC).tag("resource", "/items")
+                .counter().count());
+        assertEquals(0, inFlight());
+    }
+
+    @Test
+    void requestsOfDifferentCallersShouldNotBeShared() {
+        singleFlight.execute(ITEM, 1, new HttpHeaders(), this::pending).subscribe();
+        singleFlight.execute(ITEM, 2, new HttpHeaders(), this::pending).subscribe();
+
+        assertEquals(2, sent.get());
+        assertEquals(2, inFlight());
+    }
+
+    @Test
+    void failedRequestShouldBeForgotten() {
+        AtomicReference<Throwable> error = new AtomicReference<>();
+
+        singleFlight.execute(ITEM, 1, new HttpHeaders(), this::pending).subscribe(r -> { }, error::set);
+        response.tryEmitError(new IllegalStateException("Connection reset"));
+
+        assertEquals(IllegalStateException.class, error.get().getClass());
+        assertEquals(0, inFlight());
+
+        ResponseEntity<Object> item = ResponseEntity.ok("item");
+        assertSame(item, singleFlight.execute(ITEM, 1, new HttpHeaders(), () -> {
+            sent.incrementAndGet();
+            return Mono.just(item);
+        }).block());
+        assertEquals(2, sent.get());
+    }
+
+    @Test
+    void completedRequestShouldNotBeReused() {
+        Supplier<Mono<ResponseEntity<Object>>> request = () -> {
+            sent.incrementAndGet();
+            return Mono.just(ResponseEntity.ok("item"));
+        };
+
+        singleFlight.execute(ITEM, 1, new HttpHeaders(), request).block();
+        singleFlight.execute(ITEM, 1, new HttpHeaders(), request).block();
+
+        assertEquals(2, sent.get());
+        assertEquals(0, inFlight());
+    }
+
+    @Test
+    void disabledSingleFlightShouldSendEveryRequest() {
+        singleFlight = new SingleFlight(new SimpleMeterRegistry(), false);
+
+        singleFlight.execute(ITEM, 1, new HttpHeaders(), this::pending).subscribe();
+        singleFlight.execute(ITEM, 1, new HttpHeaders(), this::pending).subscribe();
+
+        assertEquals(2, sent.get());
+    }
+
+    private Mono<ResponseEntity<Object>> pending() {
+        sent.incrementAndGet();
+        return response.asMono();
+    }
+
+    private double inFlight() {
+        return meterRegistry.get(SingleFlight.IN_FLIGHT_METRIC).gauge().value();
+    }
+}
@@ -0,0 +1,145 @@
+package ru.practicum.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.ResourceAccessException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import ru.practicum.exception.ServerUnavailableException;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UpstreamGuardTest {
+    private static final int FAILURE_THRESHOLD = 2;
+
+    private UpstreamGuard guard;
+
+    @BeforeEach
+    void setUp() {
+        guard = new UpstreamGuard(new SimpleMeterRegistry(), "items", 2, FAILURE_THRESHOLD,
+                TimeUnit.SECONDS.toNanos(10));
+    }
+
+    @Test
+    void connectionErrorsShouldOpenBreaker() {
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            assertThrows(ResourceAccessException.class, () -> guard.protect(Mono.error(
+                    new ResourceAccessException("I/O error", new ConnectException("Connection refused")))).block());
+        }
+
+        assertEquals("OPEN", guard.getState());
+        assertEquals(0, guard.getActiveCalls());
+    }
+
+    @Test
+    void serverErrorsShouldOpenBreaker() {
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            guard.protect(Mono.just(ResponseEntity.internalServerError().build())).block();
+        }
+
+        assertEquals("OPEN", guard.getState());
+    }
+
+    @Test
+    void shedPoolWaitsShouldBeIgnored() {
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            assertThrows(ResourceAccessException.class, () -> guard.protect(Mono.error(
+                    new ResourceAccessException("I/O error", new ConnectionPoolTimeoutException("Pool queue full"))))
+                    .block());
+        }
+
+        assertEquals("CLOSED", guard.getState());
+        assertEquals(0, guard.getConsecutiveFailures());
+        assertEquals(0, guard.getActiveCalls());
+    }
+
+    @Test
+    void webClientPoolRefusalsShouldNotBeServerFailures() throws Exception {
+        String pool = "reactor.netty.internal.shaded.reactor.pool.";
+        Exception pendingLimit = (Exception) Class.forName(pool + "PoolAcquirePendingLimitException")
+                .getConstructor(int.class).newInstance(0);
+        Exception timeout = (Exception) Class.forName(pool + "PoolAcquireTimeoutException")
+                .getConstructor(Duration.class).newInstance(Duration.ofMillis(10));
+
+        assertFalse(UpstreamGuard.isServerFailure(new ResourceAccessException("I/O error", new IOException(
+                pendingLimit))));
+        assertFalse(UpstreamGuard.isServerFailure(new ResourceAccessException("I/O error", new IOException(
+                timeout))));
+    }
+
+    @Test
+    void errorsOutsideServerConnectionShouldBeIgnored() {
+        assertFalse(UpstreamGuard.isServerFailure(new IllegalStateException("Body could not be decoded")));
+        assertTrue(UpstreamGuard.isServerFailure(new ResourceAccessException("Read timed out")));
+
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            assertThrows(IllegalStateException.class, () -> guard.protect(Mono.error(
+                    new IllegalStateException("Body could not be decoded"))).block());
+        }
+
+        assertEquals("CLOSED", guard.getState());
+    }
+
+    @Test
+    void fullBulkheadShouldRejectCalls() {
+        Disposable first = guard.protect(Mono.never()).subscribe();
+        Disposable second = guard.protect(Mono.never()).subscribe();
+
+        ServerUnavailableException e = assertThrows(ServerUnavailableException.class,
+                () -> guard.protect(Mono.just(ResponseEntity.ok().build())).block());
+
+        assertEquals(1, e.getRetryAfterSeconds());
+        first.dispose();
+        second.dispose();
+    }
+
+    @Test
+    void cancelledCallShouldReleasePermit() {
+        Disposable call = guard.protect(Mono.never()).subscribe();
+        assertEquals(1, guard.getActiveCalls());
+
+        call.dispose();
+
+        assertEquals(0, guard.getActiveCalls());
+        assertEquals("CLOSED", guard.getState());
+        assertEquals(0, guard.getConsecutiveFailures());
+    }
+
+    @Test
+    void cancelledProbeShouldLetAnotherProbeThrough() {
+        guard = new UpstreamGuard(new SimpleMeterRegistry(), "items", 2, FAILURE_THRESHOLD, 0);
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            guard.protect(Mono.just(ResponseEntity.internalServerError().build())).block();
+        }
+
+        guard.protect(Mono.never()).subscribe().dispose();
+
+        assertEquals("HALF_OPEN", guard.getState());
+        assertEquals(200, guard.protect(Mono.just(ResponseEntity.ok().build())).block().getStatusCodeValue());
+        assertEquals("CLOSED", guard.getState());
+    }
+
+    @Test
+    void openBreakerShouldRejectCallsWithRetryAfter() {
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            guard.protect(Mono.just(ResponseEntity.internalServerError().build())).block();
+        }
+
+        ServerUnavailableException e = assertThrows(ServerUnavailableException.class,
+                () -> guard.protect(Mono.just(ResponseEntity.ok().build())).block());
+
+        assertEquals(10, e.getRetryAfterSeconds());
+        assertEquals(0, guard.getActiveCalls());
+    }
+}
@@ -0,0 +1,57 @@
+package ru.practicum.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class UpstreamGuardsTest {
+    private static final String[] CLIENTS = {"items", "users", "bookings", "requests"};
+
+    @Test
+    void defaultSettingsShouldLetPoolQueueFill() {
+        assertDoesNotThrow(() -> guards(new MockEnvironment(), false).afterSingletonsInstantiated());
+        assertDoesNotThrow(() -> guards(new MockEnvironment(), true).afterSingletonsInstantiated());
+    }
+
+    @Test
+    void poolQueueThatCannotFillShouldFailStartup() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("shareit-gateway.shedding.max-pool-queue", "1000");
+
+        assertThrows(IllegalStateException.class, () -> guards(environment, false).afterSingletonsInstantiated());
+    }
+
+    @Test
+    void poolAsLargeAsRequestThreadsShouldFailStartup() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("shareit-gateway.http.max-total", "200")
+                .withProperty("shareit-gateway.http.max-per-route", "200");
+
+        assertThrows(IllegalStateException.class, () -> guards(environment, false).afterSingletonsInstantiated());
+    }
+
+    @Test
+    void reactiveBulkheadsBelowPoolShouldFailStartup() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("shareit-gateway.bulkhead.bookings.max-concurrent-calls", "10")
+                .withProperty("shareit-gateway.bulkhead.items.max-concurrent-calls", "10")
+                .withProperty("shareit-gateway.bulkhead.users.max-concurrent-calls", "10")
+                .withProperty("shareit-gateway.bulkhead.requests.max-concurrent-calls", "10");
+
+        assertThrows(IllegalStateException.class, () -> guards(environment, true).afterSingletonsInstantiated());
+    }
+
+    private static UpstreamGuards guards(MockEnvironment environment, boolean reactive) {
+        UpstreamGuards guards = new UpstreamGuards(new SimpleMeterRegistry(), environment, reactive, 100, 1000, 20,
+                Duration.ofSeconds(10));
+        for (String client : CLIENTS) {
+            guards.forClient(client);
+        }
+        return guards;
+    }
+}
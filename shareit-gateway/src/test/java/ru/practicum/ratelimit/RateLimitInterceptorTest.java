@@ -0,0 +1,122 @@
+package ru.practicum.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import ru.practicum.exception.TooManyRequestsException;
+
+import javax.servlet.DispatcherType;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RateLimitInterceptorTest {
+    private static final String ADDRESS = "10.0.0.1";
+    private static final String OTHER_ADDRESS = "10.0.0.2";
+
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+    private RateLimitInterceptor interceptor;
+    private HandlerMethod cheapHandler;
+    private HandlerMethod expensiveHandler;
+
+    @BeforeEach
+    void setUp() throws NoSuchMethodException {
+        RateLimiter rateLimiter = new RateLimiter(new SimpleMeterRegistry(), 1, 2, 0.1, 1,
+                Duration.ofMinutes(10), 1000);
+        interceptor = new RateLimitInterceptor(rateLimiter);
+        Handlers handlers = new Handlers();
+        cheapHandler = new HandlerMethod(handlers, Handlers.class.getMethod("cheap"));
+        expensiveHandler = new HandlerMethod(handlers, Handlers.class.getMethod("expensive"));
+    }
+
+    @Test
+    void callerOverBudgetShouldGetRetryAfter() {
+        assertTrue(interceptor.preHandle(request("1", ADDRESS), response, cheapHandler));
+        assertTrue(interceptor.preHandle(request("1", ADDRESS), response, cheapHandler));
+
+        TooManyRequestsException e = assertThrows(TooManyRequestsException.class,
+                () -> interceptor.preHandle(request("1", ADDRESS), response, cheapHandler));
+
+        assertEquals(1, e.getRetryAfterSeconds());
+    }
+
+    @Test
+    void expensiveRouteShouldUseItsOwnBudget() {
+        assertTrue(interceptor.preHandle(request("1", ADDRESS), response, expensiveHandler));
+
+        TooManyRequestsException e = assertThrows(TooManyRequestsException.class,
+                () -> interceptor.preHandle(request("1", ADDRESS), response, expensiveHandler));
+
+        assertEquals(10, e.getRetryAfterSeconds());
+        assertTrue(interceptor.preHandle(request("1", ADDRESS), response, cheapHandler));
+    }
+
+    @Test
+    void callersShouldHaveSeparateBuckets() {
+        assertTrue(interceptor.preHandle(request("1", ADDRESS), response, cheapHandler));
+        assertTrue(interceptor.preHandle(request("2", OTHER_ADDRESS), response, cheapHandler));
+        assertTrue(interceptor.preHandle(request("1", ADDRESS), response, cheapHandler));
+        assertTrue(interceptor.preHandle(request("2", OTHER_ADDRESS), response, cheapHandler));
+
+        assertThrows(TooManyRequestsException.class,
+                () -> interceptor.preHandle(request("1", ADDRESS), response, cheapHandler));
+    }
+
+    @Test
+    void cyclingUserIdsShouldBeThrottled() {
+        assertTrue(interceptor.preHandle(request("1", ADDRESS), response, cheapHandler));
+        assertTrue(interceptor.preHandle(request("2", ADDRESS), response, cheapHandler));
+
+        TooManyRequestsException e = assertThrows(TooManyRequestsException.class,
+                () -> interceptor.preHandle(request("3", ADDRESS), response, cheapHandler));
+
+        assertEquals(1, e.getRetryAfterSeconds());
+        assertTrue(interceptor.preHandle(request("1", ADDRESS), response, cheapHandler));
+        assertTrue(interceptor.preHandle(request("3", OTHER_ADDRESS), response, cheapHandler));
+    }
+
+    @Test
+    void invalidUserIdShouldBeChargedToAddress() {
+        assertTrue(interceptor.preHandle(request("abc", ADDRESS), response, expensiveHandler));
+
+        assertThrows(TooManyRequestsException.class,
+                () -> interceptor.preHandle(request("-1", ADDRESS), response, expensiveHandler));
+        assertThrows(TooManyRequestsException.class,
+                () -> interceptor.preHandle(request("0", ADDRESS), response, expensiveHandler));
+        assertThrows(TooManyRequestsException.class,
+                () -> interceptor.preHandle(request(null, ADDRESS), response, expensiveHandler));
+    }
+
+    @Test
+    void asyncDispatchShouldNotBeCharged() {
+        assertTrue(interceptor.preHandle(request("1", ADDRESS), response, expensiveHandler));
+
+        MockHttpServletRequest asyncDispatch = request("1", ADDRESS);
+        asyncDispatch.setDispatcherType(DispatcherType.ASYNC);
+
+        assertTrue(interceptor.preHandle(asyncDispatch, response, expensiveHandler));
+    }
+
+    private static MockHttpServletRequest request(String userId, String address) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(address);
+        if (userId != null) {
+            request.addHeader("X-Sharer-User-Id", userId);
+        }
+        return request;
+    }
+
+    public static class Handlers {
+        public void cheap() {
+        }
+
+        @ExpensiveRoute
+        public void expensive() {
+        }
+    }
+}
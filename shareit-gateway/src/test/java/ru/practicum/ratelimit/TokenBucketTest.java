@@ -0,0 +1,87 @@
+package ru.practicum.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TokenBucketTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void burstShouldBeTakenAtOnceAndThenRefillAtRate() {
+        TokenBucket bucket = new TokenBucket(2, 3, 0);
+
+        assertEquals(0, bucket.tryTake(0));
+        assertEquals(0, bucket.tryTake(0));
+        assertEquals(0, bucket.tryTake(0));
+        assertEquals(SECOND / 2, bucket.tryTake(0));
+        assertEquals(SECOND / 4, bucket.tryTake(SECOND / 4));
+
+        assertEquals(0, bucket.tryTake(SECOND / 2));
+        assertEquals(SECOND / 2, bucket.tryTake(SECOND / 2));
+    }
+
+    @Test
+    void idleBucketShouldNotGrowBeyondCapacity() {
+        TokenBucket bucket = new TokenBucket(1, 2, 0);
+
+        long later = 100 * SECOND;
+
+        assertEquals(0, bucket.tryTake(later));
+        assertEquals(0, bucket.tryTake(later));
+        assertEquals(SECOND, bucket.tryTake(later));
+    }
+
+    @Test
+    void refusedTakeShouldNotUseToken() {
+        TokenBucket bucket = new TokenBucket(1, 1, 0);
+
+        assertEquals(0, bucket.tryTake(0));
+        for (int i = 0; i < 10; i++) {
+            assertEquals(SECOND, bucket.tryTake(0));
+        }
+
+        assertEquals(0, bucket.tryTake(SECOND));
+    }
+
+    @Test
+    void concurrentTakersShouldShareCapacityExactly() throws Exception {
+        int capacity = 1000;
+        int threads = 8;
+        TokenBucket bucket = new TokenBucket(1, capacity, 0);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> takers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                takers.add(executor.submit(() -> {
+                    start.await();
+                    int taken = 0;
+                    for (int n = 0; n < capacity; n++) {
+                        if (bucket.tryTake(0) == 0) {
+                            taken++;
+                        }
+                    }
+                    return taken;
+                }));
+            }
+            start.countDown();
+            int taken = 0;
+            for (Future<Integer> taker : takers) {
+                taken += taker.get();
+            }
+
+            assertEquals(capacity, taken);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -22,7 +22,8 @@ import java.time.LocalDateTime;
 @Table(name = "bookings")
 public class Booking {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bookings_seq")
+    @SequenceGenerator(name = "bookings_seq", sequenceName = "bookings_seq", allocationSize = 50)
     @Column(name = "booking_id")
     private Integer id;
 
@@ -48,4 +49,12 @@ public class Booking {
     @Column(name = "status")
     @Enumerated(EnumType.STRING)
     private BookingStatus status;
+
+    @Version
+    private Integer version;
+
+    public Booking(Integer id, LocalDateTime start, LocalDateTime end, Item item, User booker,
+                   BookingStatus status) {
+        this(id, start, end, item, booker, status, null);
+    }
 }
@@ -2,14 +2,25 @@ package ru.practicum.booking;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.practicum.booking.dto.BookingCursorPage;
+import ru.practicum.booking.dto.BookingDecisionDto;
+import ru.practicum.booking.dto.BookingDecisionResultDto;
 import ru.practicum.booking.dto.BookingResearchDto;
 import ru.practicum.booking.dto.BookingResponseDto;
 import ru.practicum.booking.service.BookingService;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @Slf4j
@@ -18,6 +29,9 @@ import java.util.List;
 @RequiredArgsConstructor
 @RequestMapping(path = "/bookings")
 public class BookingController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final int MAX_BATCH_DECISIONS = 500;
+    public static final int MAX_BATCH_BOOKINGS = 10000;
     private final BookingService bookingService;
 
     @PostMapping
@@ -27,6 +41,14 @@ public class BookingController {
         return bookingService.saveBooking(bookingDto, userId);
     }
 
+    @PostMapping("/batch")
+    public List<BookingResponseDto> saveBookings(
+            @RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
+            @RequestBody @NotEmpty @Size(max = MAX_BATCH_BOOKINGS) List<@Valid BookingResearchDto> bookingDtos) {
+        log.info("Save {} new bookings", bookingDtos.size());
+        return bookingService.saveBookings(bookingDtos, userId);
+    }
+
     @PatchMapping("/{bookingId}")
     public BookingResponseDto approvedOrRejectBooking(@RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
                                                       @PathVariable @Min(1) Integer bookingId,
@@ -35,6 +57,14 @@ public class BookingController {
         return bookingService.approvedOrRejectBooking(userId, bookingId, approved);
     }
 
+    @PatchMapping("/batch")
+    public List<BookingDecisionResultDto> approvedOrRejectBookings(
+            @RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
+            @RequestBody @NotEmpty @Size(max = MAX_BATCH_DECISIONS) List<@Valid BookingDecisionDto> decisions) {
+        log.info("Confirmation or rejection of {} booking requests", decisions.size());
+        return bookingService.approvedOrRejectBookings(userId, decisions);
+    }
+
     @GetMapping("/{bookingId}")
     public BookingResponseDto getBooking(@RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
                                          @PathVariable @Min(1) Integer bookingId) {
@@ -43,28 +73,70 @@ public class BookingController {
     }
 
     @GetMapping
-    public List<BookingResponseDto> getBookingsToBooker(@RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
-                                                        @RequestParam(defaultValue = "ALL") String state,
-                                                        @RequestParam(defaultValue = "0") @Min(0) Integer from,
-                                                        @RequestParam(required = false) @Min(1) Integer size) {
+    public ResponseEntity<List<BookingResponseDto>> getBookingsToBooker(
+            @RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
+            @RequestParam(defaultValue = "ALL") String state,
+            @RequestParam(defaultValue = "0") @Min(0) Integer from,
+            @RequestParam(required = false) @Min(1) Integer size,
+            @RequestParam(required = false) String cursor,
+            WebRequest request) {
         log.info("Get bookings for user with id = {}", userId);
+        if (request.checkNotModified(bookingService.getBookingToUserVersion(userId, state))) {
+            return null;
+        }
         if (size == null) {
-            return bookingService.getBookingToUser(userId, state, from, Integer.MAX_VALUE);
-        } else {
-            return bookingService.getBookingToUser(userId, state, from, size);
+            size = Integer.MAX_VALUE;
+        }
+        if (cursor != null) {
+            return toCursorResponse(bookingService.getBookingToUserByCursor(userId, state, cursor, size));
         }
+        return ResponseEntity.ok(bookingService.getBookingToUser(userId, state, from, size));
     }
 
     @GetMapping("/owner")
-    public List<BookingResponseDto> getBookingsToOwner(@RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
-                                                       @RequestParam(defaultValue = "ALL") String state,
-                                                       @RequestParam(defaultValue = "0") @Min(0) Integer from,
-                                                       @RequestParam(required = false) @Min(1) Integer size) {
+    public ResponseEntity<List<BookingResponseDto>> getBookingsToOwner(
+            @RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
+            @RequestParam(defaultValue = "ALL") String state,
+            @RequestParam(defaultValue = "0") @Min(0) Integer from,
+            @RequestParam(required = false) @Min(1) Integer size,
+            @RequestParam(required = false) String cursor,
+            WebRequest request) {
         log.info("Get bookings for user with id = {}", userId);
+        if (request.checkNotModified(bookingService.getBookingToOwnerVersion(userId, state))) {
+            return null;
+        }
         if (size == null) {
-            return bookingService.getBookingToOwner(userId, state, from, Integer.MAX_VALUE);
-        } else {
-            return bookingService.getBookingToOwner(userId, state, from, size);
+            size = Integer.MAX_VALUE;
+        }
+        if (cursor != null) {
+            return toCursorResponse(bookingService.getBookingToOwnerByCursor(userId, state, cursor, size));
+        }
+        return ResponseEntity.ok(bookingService.getBookingToOwner(userId, state, from, size));
+    }
+
+    @GetMapping("/owner/export")
+    public void exportBookingsToOwner(@RequestHeader("X-Sharer-User-Id") @Min(1) Integer userId,
+                                      @RequestParam(defaultValue = "ndjson") String format,
+                                      HttpServletResponse response) throws IOException {
+        log.info("Export bookings for owner with id = {} as {}", userId, format);
+        BookingExportFormat exportFormat = BookingExportFormat.of(format);
+        bookingService.exportBookingsToOwner(userId, exportFormat, () -> {
+            response.setContentType(exportFormat.getContentType());
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    "attachment; filename=\"bookings." + exportFormat.getExtension() + "\"");
+            try {
+                return response.getOutputStream();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private ResponseEntity<List<BookingResponseDto>> toCursorResponse(BookingCursorPage page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
         }
+        return response.body(page.getBookings());
     }
 }
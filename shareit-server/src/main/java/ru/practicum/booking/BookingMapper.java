@@ -8,6 +8,7 @@ import java.util.List;
 
 @Mapper(componentModel = "spring", uses = BookingMapper.class)
 public interface BookingMapper {
+    @Mapping(target = "version", ignore = true)
     Booking toBooking(BookingResearchDto bookingResearchDto);
 
     BookingResponseDto toDto(Booking booking);
@@ -16,4 +17,6 @@ public interface BookingMapper {
 
     @Mapping(target = "bookerId", source = "booking.booker.id")
     BookingResponseToItemDto toBookingToItem(Booking booking);
+
+    BookingResponseToItemDto toBookingToItem(BookingItemView booking);
 }
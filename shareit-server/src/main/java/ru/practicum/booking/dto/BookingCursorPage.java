@@ -0,0 +1,16 @@
+package ru.practicum.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingCursorPage {
+    private List<BookingResponseDto> bookings = new ArrayList<>();
+    private String nextCursor;
+}
@@ -0,0 +1,19 @@
+package ru.practicum.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+
+/**
+ * Outcome of one decision of a batch: either the updated booking or the reason it was left unchanged.
+ */
+@Data
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingDecisionResultDto {
+    private Integer bookingId;
+    private BookingResponseDto booking;
+    private String error;
+}
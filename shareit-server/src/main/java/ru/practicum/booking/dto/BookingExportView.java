@@ -0,0 +1,25 @@
+package ru.practicum.booking.dto;
+
+import ru.practicum.booking.BookingStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection of a booking as one row of an export. Rows are not managed entities, so streaming them
+ * does not fill the persistence context.
+ */
+public interface BookingExportView {
+    Integer getId();
+
+    LocalDateTime getStart();
+
+    LocalDateTime getEnd();
+
+    BookingStatus getStatus();
+
+    Integer getItemId();
+
+    String getItemName();
+
+    Integer getBookerId();
+}
@@ -0,0 +1,18 @@
+package ru.practicum.booking.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection of a booking with only the columns needed for the last/next booking of an item.
+ */
+public interface BookingItemView {
+    Integer getItemId();
+
+    Integer getId();
+
+    Integer getBookerId();
+
+    LocalDateTime getStart();
+
+    LocalDateTime getEnd();
+}
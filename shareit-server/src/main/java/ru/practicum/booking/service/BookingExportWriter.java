@@ -0,0 +1,97 @@
+package ru.practicum.booking.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import ru.practicum.booking.BookingExportFormat;
+import ru.practicum.booking.dto.BookingExportView;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+
+/**
+ * Writes export rows one at a time as they are read, so the size of an export does not affect memory.
+ */
+final class BookingExportWriter {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final String CSV_HEADER = "id,start,end,status,item_id,item_name,booker_id";
+
+    private BookingExportWriter() {
+    }
+
+    static long write(Iterator<BookingExportView> rows, BookingExportFormat format, OutputStream out)
+            throws IOException {
+        switch (format) {
+            case NDJSON:
+                return writeNdjson(rows, out);
+            case CSV:
+                return writeCsv(rows, out);
+            default:
+                throw new IllegalArgumentException("Unknown format: " + format);
+        }
+    }
+
+    private static long writeNdjson(Iterator<BookingExportView> rows, OutputStream out) throws IOException {
+        long count = 0;
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            generator.setRootValueSeparator(null);
+            while (rows.hasNext()) {
+                BookingExportView row = rows.next();
+                generator.writeStartObject();
+                generator.writeNumberField("id", row.getId());
+                generator.writeStringField("start", DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(row.getStart()));
+                generator.writeStringField("end", DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(row.getEnd()));
+                generator.writeStringField("status", row.getStatus().name());
+                generator.writeNumberField("itemId", row.getItemId());
+                generator.writeStringField("itemName", row.getItemName());
+                generator.writeNumberField("bookerId", row.getBookerId());
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static long writeCsv(Iterator<BookingExportView> rows, OutputStream out) throws IOException {
+        long count = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write("\r\n");
+        while (rows.hasNext()) {
+            BookingExportView row = rows.next();
+            writer.write(String.valueOf(row.getId()));
+            writer.write(',');
+            writer.write(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(row.getStart()));
+            writer.write(',');
+            writer.write(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(row.getEnd()));
+            writer.write(',');
+            writer.write(row.getStatus().name());
+            writer.write(',');
+            writer.write(String.valueOf(row.getItemId()));
+            writer.write(',');
+            writer.write(escapeCsv(row.getItemName()));
+            writer.write(',');
+            writer.write(String.valueOf(row.getBookerId()));
+            writer.write("\r\n");
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    private static String escapeCsv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
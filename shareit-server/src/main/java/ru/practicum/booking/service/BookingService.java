@@ -1,18 +1,40 @@
 package ru.practicum.booking.service;
 
+import ru.practicum.booking.BookingExportFormat;
+import ru.practicum.booking.dto.BookingCursorPage;
+import ru.practicum.booking.dto.BookingDecisionDto;
+import ru.practicum.booking.dto.BookingDecisionResultDto;
 import ru.practicum.booking.dto.BookingResearchDto;
 import ru.practicum.booking.dto.BookingResponseDto;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.function.Supplier;
 
 public interface BookingService {
     BookingResponseDto saveBooking(BookingResearchDto bookingDto, Integer userId);
 
+    List<BookingResponseDto> saveBookings(List<BookingResearchDto> bookingDtos, Integer userId);
+
     BookingResponseDto approvedOrRejectBooking(Integer userId, Integer bookingId, Boolean approved);
 
+    List<BookingDecisionResultDto> approvedOrRejectBookings(Integer userId, List<BookingDecisionDto> decisions);
+
     BookingResponseDto getBooking(Integer userId, Integer bookingId);
 
     List<BookingResponseDto> getBookingToUser(Integer userId, String state, Integer from, Integer size);
 
+    String getBookingToUserVersion(Integer userId, String state);
+
     List<BookingResponseDto> getBookingToOwner(Integer userId, String state, Integer from, Integer size);
+
+    String getBookingToOwnerVersion(Integer userId, String state);
+
+    BookingCursorPage getBookingToUserByCursor(Integer userId, String state, String cursor, Integer size);
+
+    BookingCursorPage getBookingToOwnerByCursor(Integer userId, String state, String cursor, Integer size);
+
+    long exportBookingsToOwner(Integer userId, BookingExportFormat format, Supplier<OutputStream> output)
+            throws IOException;
 }
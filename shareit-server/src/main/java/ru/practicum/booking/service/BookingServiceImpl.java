@@ -2,42 +2,91 @@ package ru.practicum.booking.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.booking.Booking;
+import ru.practicum.booking.BookingCursor;
+import ru.practicum.booking.BookingExportFormat;
 import ru.practicum.booking.BookingMapper;
 import ru.practicum.booking.BookingStatus;
+import ru.practicum.booking.dto.BookingCursorPage;
+import ru.practicum.booking.dto.BookingDecisionDto;
+import ru.practicum.booking.dto.BookingDecisionResultDto;
+import ru.practicum.booking.dto.BookingExportView;
+import ru.practicum.booking.dto.BookingItemView;
 import ru.practicum.booking.dto.BookingResearchDto;
 import ru.practicum.booking.dto.BookingResponseDto;
 import ru.practicum.booking.storage.JpaBookingRepository;
 import ru.practicum.exception.exceptions.*;
 import ru.practicum.item.Item;
 import ru.practicum.item.service.ItemService;
+import ru.practicum.pagination.OffsetPageRequest;
 import ru.practicum.user.User;
 import ru.practicum.user.UserMapper;
 import ru.practicum.user.service.UserService;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class BookingServiceImpl implements BookingService {
+    private static final Set<String> STATES = Set.of("ALL", "CURRENT", "PAST", "FUTURE", "WAITING", "REJECTED");
+
     private final JpaBookingRepository bookingRepository;
     private final UserService userService;
     private final ItemService itemService;
     private final BookingMapper bookingMapper;
     private final UserMapper userMapper;
+    private final ItemBookingCalendar itemBookingCalendar;
 
     @Override
     @Transactional
     public BookingResponseDto saveBooking(BookingResearchDto bookingDto, Integer userId) {
         User booker = userMapper.toUser(userService.getData(userId));
         Item item = itemService.getItemToBooking(bookingDto.getItemId());
+        Booking booking = bookingRepository.save(toNewBooking(bookingDto, booker, item));
+        itemBookingCalendar.refreshAfterCommit(item.getId());
+        return bookingMapper.toDto(booking);
+    }
+
+    /**
+     * Creates all the bookings or none of them. Items are read with one query and bookings take their
+     * ids from a pooled sequence, so the inserts go out in JDBC batches.
+     */
+    @Override
+    @Transactional
+    public List<BookingResponseDto> saveBookings(List<BookingResearchDto> bookingDtos, Integer userId) {
+        User booker = userMapper.toUser(userService.getData(userId));
+        Map<Integer, Item> items = itemService.getItemsToBooking(bookingDtos.stream()
+                .map(BookingResearchDto::getItemId)
+                .collect(Collectors.toSet()));
+        List<Booking> research = new ArrayList<>(bookingDtos.size());
+        for (BookingResearchDto bookingDto : bookingDtos) {
+            research.add(toNewBooking(bookingDto, booker, items.get(bookingDto.getItemId())));
+        }
+        List<Booking> bookings = bookingRepository.saveAll(research);
+        items.keySet().forEach(itemBookingCalendar::refreshAfterCommit);
+        return bookingMapper.toListDto(bookings);
+    }
+
+    private Booking toNewBooking(BookingResearchDto bookingDto, User booker, Item item) {
         Integer itemId = item.getId();
         Integer bookerId = booker.getId();
 
@@ -60,7 +109,7 @@ public class BookingServiceImpl implements BookingService {
         research.setStatus(BookingStatus.WAITING);
         research.setItem(item);
         research.setBooker(booker);
-        return bookingMapper.toDto(bookingRepository.save(research));
+        return research;
     }
 
     @Override
@@ -84,11 +133,132 @@ public class BookingServiceImpl implements BookingService {
             throw new ForbiddenAccessChangeStatusException("Not access to status change");
         }
         if (approved) {
+            itemService.lockItemToBooking(booking.get().getItem().getId());
+            checkOverlapWithApproved(booking.get());
             booking.get().setStatus(BookingStatus.APPROVED);
         } else {
             booking.get().setStatus(BookingStatus.REJECTED);
         }
-        return bookingMapper.toDto(bookingRepository.save(booking.get()));
+        itemBookingCalendar.refreshAfterCommit(booking.get().getItem().getId());
+        try {
+            return bookingMapper.toDto(bookingRepository.saveAndFlush(booking.get()));
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Booking with id = " + bookingId + " overlaps an approved booking of the item");
+            throw new BookingOverlapException("Booking with id = " + bookingId +
+                    " overlaps an approved booking of the item");
+        }
+    }
+
+    /**
+     * Applies the decisions in one transaction: the bookings are read with a single {@code IN} query and
+     * the status updates are flushed together, so Hibernate sends them as one JDBC batch. A decision
+     * rejected by the checks made before the flush is reported in its result and does not affect the others.
+     * If the flush itself is refused because an approval overlaps one committed in the meantime, the batch
+     * cannot tell which update failed: the whole transaction rolls back, none of the decisions is applied and
+     * a single {@link BookingOverlapException} is thrown.
+     */
+    @Override
+    @Transactional
+    public List<BookingDecisionResultDto> approvedOrRejectBookings(Integer userId,
+                                                                   List<BookingDecisionDto> decisions) {
+        Integer ownerId = userService.getData(userId).getId();
+        Set<Integer> bookingIds = decisions.stream()
+                .map(BookingDecisionDto::getBookingId)
+                .collect(Collectors.toSet());
+        Map<Integer, Booking> bookings = bookingRepository.findAllWithItemByIdIn(bookingIds).stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+        decisions.stream()
+                .filter(BookingDecisionDto::getApproved)
+                .map(decision -> bookings.get(decision.getBookingId()))
+                .filter(booking -> booking != null && booking.getItem().getOwner().getId().equals(ownerId))
+                .map(booking -> booking.getItem().getId())
+                .collect(Collectors.toCollection(TreeSet::new))
+                .forEach(itemService::lockItemToBooking);
+
+        List<BookingDecisionResultDto> results = new ArrayList<>(decisions.size());
+        Map<Booking, BookingStatus> decided = new LinkedHashMap<>();
+        Map<Integer, List<Booking>> approvedInBatch = new HashMap<>();
+        for (BookingDecisionDto decision : decisions) {
+            Integer bookingId = decision.getBookingId();
+            try {
+                Booking booking = checkDecision(ownerId, bookingId, bookings.get(bookingId), decided.keySet());
+                if (decision.getApproved()) {
+                    List<Booking> approved = approvedInBatch.computeIfAbsent(booking.getItem().getId(),
+                            id -> new ArrayList<>());
+                    checkOverlapWithBatch(booking, approved);
+                    checkOverlapWithApproved(booking);
+                    approved.add(booking);
+                    decided.put(booking, BookingStatus.APPROVED);
+                } else {
+                    decided.put(booking, BookingStatus.REJECTED);
+                }
+                results.add(BookingDecisionResultDto.builder().bookingId(bookingId).build());
+            } catch (DataNotFoundException | ForbiddenAccessException | ForbiddenAccessChangeStatusException
+                     | BookingOverlapException e) {
+                results.add(BookingDecisionResultDto.builder().bookingId(bookingId).error(e.getMessage()).build());
+            }
+        }
+        // Statuses change only after all the overlap queries, otherwise each query would auto-flush
+        // the bookings decided so far and the updates would no longer go out as one batch.
+        decided.forEach(Booking::setStatus);
+        try {
+            bookingRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Batch of decisions overlaps an approved booking");
+            throw new BookingOverlapException("Batch of decisions overlaps an approved booking");
+        }
+        decided.keySet().forEach(booking -> itemBookingCalendar.refreshAfterCommit(booking.getItem().getId()));
+        for (BookingDecisionResultDto result : results) {
+            if (result.getError() == null) {
+                result.setBooking(bookingMapper.toDto(bookings.get(result.getBookingId())));
+            }
+        }
+        return results;
+    }
+
+    private Booking checkDecision(Integer ownerId, Integer bookingId, Booking booking, Set<Booking> decided) {
+        if (booking == null) {
+            log.warn("Booking with id = " + bookingId + " not found");
+            throw new DataNotFoundException("Booking with id = " + bookingId + " not found");
+        }
+        if (booking.getItem().getOwner().getId().longValue() != ownerId) {
+            log.warn("User with id = " + ownerId + " is not the owner of item" +
+                    " with id = " + booking.getItem().getId());
+            throw new ForbiddenAccessException("User with id = " + ownerId + " is not the owner of item" +
+                    " with id = " + booking.getItem().getId());
+        }
+        if (booking.getStatus() != BookingStatus.WAITING || decided.contains(booking)) {
+            log.warn("Not access to status change");
+            throw new ForbiddenAccessChangeStatusException("Not access to status change");
+        }
+        return booking;
+    }
+
+    private void checkOverlapWithBatch(Booking booking, List<Booking> approved) {
+        for (Booking other : approved) {
+            if (other.getStart().isBefore(booking.getEnd()) && other.getEnd().isAfter(booking.getStart())) {
+                log.warn("Booking with id = " + booking.getId() + " overlaps approved booking with id = "
+                        + other.getId());
+                throw new BookingOverlapException("Booking with id = " + booking.getId() +
+                        " overlaps approved booking with id = " + other.getId());
+            }
+        }
+    }
+
+    /**
+     * Approved bookings of an item never overlap, so the only one that can overlap [start, end)
+     * is the approved booking with the latest start before the end: one index seek on
+     * (item_id, status, start_date) instead of a scan of the item's history.
+     */
+    private void checkOverlapWithApproved(Booking booking) {
+        Optional<BookingItemView> previous = bookingRepository.findLastBooking(booking.getItem().getId(),
+                BookingStatus.APPROVED, booking.getEnd());
+        if (previous.isPresent() && previous.get().getEnd().isAfter(booking.getStart())) {
+            log.warn("Booking with id = " + booking.getId() + " overlaps approved booking with id = "
+                    + previous.get().getId());
+            throw new BookingOverlapException("Booking with id = " + booking.getId() +
+                    " overlaps approved booking with id = " + previous.get().getId());
+        }
     }
 
     @Override
@@ -114,80 +284,182 @@ public class BookingServiceImpl implements BookingService {
     @Override
     public List<BookingResponseDto> getBookingToUser(Integer userId, String state, Integer from, Integer size) {
         userService.getData(userId);
-        List<Booking> bookings = new ArrayList<>();
+        return bookingMapper.toListDto(findBookingsToUser(userId, state, LocalDateTime.now(),
+                new OffsetPageRequest(from, size)));
+    }
+
+    /**
+     * Version of the booker's bookings read from id and version columns only, so it is cheap enough
+     * to check before {@link #getBookingToUser} builds any DTOs. The state is checked first, so an unknown
+     * state is refused even when the version matches.
+     */
+    @Override
+    public String getBookingToUserVersion(Integer userId, String state) {
+        userService.getData(userId);
+        checkState(state);
+        return bookingRepository.getBookerBookingsVersion(userId, LocalDateTime.now());
+    }
+
+    @Override
+    public BookingCursorPage getBookingToUserByCursor(Integer userId, String state, String cursor, Integer size) {
+        userService.getData(userId);
+        Pageable page = new OffsetPageRequest(0, size);
+        LocalDateTime now = LocalDateTime.now();
+        List<Booking> bookings;
+        if (cursor == null || cursor.isBlank()) {
+            bookings = findBookingsToUser(userId, state, now, page);
+        } else {
+            bookings = findBookingsToUserBefore(userId, state, now, BookingCursor.decode(cursor), page);
+        }
+        return toCursorPage(bookings, size);
+    }
+
+    @Override
+    public List<BookingResponseDto> getBookingToOwner(Integer userId, String state, Integer from, Integer size) {
+        userService.getData(userId);
+        return bookingMapper.toListDto(findBookingsToOwner(userId, state, LocalDateTime.now(),
+                new OffsetPageRequest(from, size)));
+    }
+
+    /**
+     * Version of the bookings of the owner's items, the counterpart of {@link #getBookingToUserVersion}.
+     */
+    @Override
+    public String getBookingToOwnerVersion(Integer userId, String state) {
+        userService.getData(userId);
+        checkState(state);
+        return bookingRepository.getOwnerAllBookingsVersion(userId, LocalDateTime.now());
+    }
+
+    @Override
+    public BookingCursorPage getBookingToOwnerByCursor(Integer userId, String state, String cursor, Integer size) {
+        userService.getData(userId);
+        Pageable page = new OffsetPageRequest(0, size);
+        LocalDateTime now = LocalDateTime.now();
+        List<Booking> bookings;
+        if (cursor == null || cursor.isBlank()) {
+            bookings = findBookingsToOwner(userId, state, now, page);
+        } else {
+            bookings = findBookingsToOwnerBefore(userId, state, now, BookingCursor.decode(cursor), page);
+        }
+        return toCursorPage(bookings, size);
+    }
+
+    /**
+     * Rows are read through a cursor and written as they arrive. The output is requested only once the
+     * owner is known, so an unknown owner is still reported as an ordinary error response.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long exportBookingsToOwner(Integer userId, BookingExportFormat format, Supplier<OutputStream> output)
+            throws IOException {
+        userService.getData(userId);
+        try (Stream<BookingExportView> rows = bookingRepository.streamAllByOwner(userId)) {
+            long count = BookingExportWriter.write(rows.iterator(), format, output.get());
+            log.info("Exported {} bookings for owner with id = {}", count, userId);
+            return count;
+        }
+    }
+
+    private void checkState(String state) {
+        if (!STATES.contains(state)) {
+            log.warn("Unknown state: " + state);
+            throw new StateNotFoundException("Unknown state: " + state);
+        }
+    }
+
+    private List<Booking> findBookingsToUser(Integer userId, String state, LocalDateTime now, Pageable page) {
         switch (state) {
             case ("ALL"):
-                bookings = bookingRepository.findBookingByBooker_IdOrderByStartDesc(userId);
-                break;
+                return bookingRepository.findAllByBooker(userId, page);
             case ("CURRENT"):
-                bookings = bookingRepository.findBookingByBooker_IdOrderByStartDesc(userId).stream()
-                        .filter(b -> b.getStart().isBefore(LocalDateTime.now())
-                                && b.getEnd().isAfter(LocalDateTime.now()))
-                        .collect(Collectors.toList());
-                break;
+                return bookingRepository.findCurrentByBooker(userId, now, page);
             case ("PAST"):
-                bookings = bookingRepository.findBookingByBooker_IdOrderByStartDesc(userId).stream()
-                        .filter(b -> b.getEnd().isBefore(LocalDateTime.now()))
-                        .collect(Collectors.toList());
-                break;
+                return bookingRepository.findPastByBooker(userId, now, page);
             case ("FUTURE"):
-                bookings = bookingRepository.findBookingByBooker_IdOrderByStartDesc(userId).stream()
-                        .filter(b -> b.getStart().isAfter(LocalDateTime.now()))
-                        .collect(Collectors.toList());
-                break;
+                return bookingRepository.findFutureByBooker(userId, now, page);
             case ("WAITING"):
-                bookings = bookingRepository.findBookingByBooker_IdAndStatus(userId, BookingStatus.WAITING);
-                break;
+                return bookingRepository.findByBookerAndStatus(userId, BookingStatus.WAITING, page);
             case ("REJECTED"):
-                bookings = bookingRepository.findBookingByBooker_IdAndStatus(userId, BookingStatus.REJECTED);
-                break;
+                return bookingRepository.findByBookerAndStatus(userId, BookingStatus.REJECTED, page);
             default:
                 log.warn("Unknown state: " + state);
                 throw new StateNotFoundException("Unknown state: " + state);
         }
-        return bookingMapper.toListDto(bookings).stream()
-                .skip(from)
-                .limit(size)
-                .collect(Collectors.toList());
     }
 
-    @Override
-    public List<BookingResponseDto> getBookingToOwner(Integer userId, String state, Integer from, Integer size) {
-        userService.getData(userId);
-        List<Booking> bookings = new ArrayList<>();
+    private List<Booking> findBookingsToUserBefore(Integer userId, String state, LocalDateTime now,
+                                                   BookingCursor cursor, Pageable page) {
         switch (state) {
             case ("ALL"):
-                bookings = bookingRepository.findBookingByItem_Owner_IdOrderByStartDesc(userId);
-                break;
+                return bookingRepository.findAllByBookerBefore(userId, cursor.getStart(), cursor.getId(), page);
             case ("CURRENT"):
-                bookings = bookingRepository.findBookingByItem_Owner_IdOrderByStartDesc(userId).stream()
-                        .filter(b -> b.getStart().isBefore(LocalDateTime.now())
-                                && b.getEnd().isAfter(LocalDateTime.now()))
-                        .collect(Collectors.toList());
-                break;
+                return bookingRepository.findCurrentByBookerBefore(userId, now,
+                        cursor.getStart(), cursor.getId(), page);
             case ("PAST"):
-                bookings = bookingRepository.findBookingByItem_Owner_IdOrderByStartDesc(userId).stream()
-                        .filter(b -> b.getEnd().isBefore(LocalDateTime.now()))
-                        .collect(Collectors.toList());
-                break;
+                return bookingRepository.findPastByBookerBefore(userId, now, cursor.getStart(), cursor.getId(), page);
             case ("FUTURE"):
-                bookings = bookingRepository.findBookingByItem_Owner_IdOrderByStartDesc(userId).stream()
-                        .filter(b -> b.getStart().isAfter(LocalDateTime.now()))
-                        .collect(Collectors.toList());
-                break;
+                return bookingRepository.findFutureByBookerBefore(userId, now, cursor.getStart(), cursor.getId(), page);
             case ("WAITING"):
-                bookings = bookingRepository.findBookingByItem_Owner_IdAndStatus(userId, BookingStatus.WAITING);
-                break;
+                return bookingRepository.findByBookerAndStatusBefore(userId, BookingStatus.WAITING,
+                        cursor.getStart(), cursor.getId(), page);
             case ("REJECTED"):
-                bookings = bookingRepository.findBookingByItem_Owner_IdAndStatus(userId, BookingStatus.REJECTED);
-                break;
+                return bookingRepository.findByBookerAndStatusBefore(userId, BookingStatus.REJECTED,
+                        cursor.getStart(), cursor.getId(), page);
             default:
                 log.warn("Unknown state: " + state);
                 throw new StateNotFoundException("Unknown state: " + state);
         }
-        return bookingMapper.toListDto(bookings).stream()
-                .skip(from)
-                .limit(size)
-                .collect(Collectors.toList());
+    }
+
+    private List<Booking> findBookingsToOwner(Integer userId, String state, LocalDateTime now, Pageable page) {
+        switch (state) {
+            case ("ALL"):
+                return bookingRepository.findAllByOwner(userId, page);
+            case ("CURRENT"):
+                return bookingRepository.findCurrentByOwner(userId, now, page);
+            case ("PAST"):
+                return bookingRepository.findPastByOwner(userId, now, page);
+            case ("FUTURE"):
+                return bookingRepository.findFutureByOwner(userId, now, page);
+            case ("WAITING"):
+                return bookingRepository.findByOwnerAndStatus(userId, BookingStatus.WAITING, page);
+            case ("REJECTED"):
+                return bookingRepository.findByOwnerAndStatus(userId, BookingStatus.REJECTED, page);
+            default:
+                log.warn("Unknown state: " + state);
+                throw new StateNotFoundException("Unknown state: " + state);
+        }
+    }
+
+    private List<Booking> findBookingsToOwnerBefore(Integer userId, String state, LocalDateTime now,
+                                                    BookingCursor cursor, Pageable page) {
+        switch (state) {
+            case ("ALL"):
+                return bookingRepository.findAllByOwnerBefore(userId, cursor.getStart(), cursor.getId(), page);
+            case ("CURRENT"):
+                return bookingRepository.findCurrentByOwnerBefore(userId, now, cursor.getStart(), cursor.getId(), page);
+            case ("PAST"):
+                return bookingRepository.findPastByOwnerBefore(userId, now, cursor.getStart(), cursor.getId(), page);
+            case ("FUTURE"):
+                return bookingRepository.findFutureByOwnerBefore(userId, now, cursor.getStart(), cursor.getId(), page);
+            case ("WAITING"):
+                return bookingRepository.findByOwnerAndStatusBefore(userId, BookingStatus.WAITING,
+                        cursor.getStart(), cursor.getId(), page);
+            case ("REJECTED"):
+                return bookingRepository.findByOwnerAndStatusBefore(userId, BookingStatus.REJECTED,
+                        cursor.getStart(), cursor.getId(), page);
+            default:
+                log.warn("Unknown state: " + state);
+                throw new StateNotFoundException("Unknown state: " + state);
+        }
+    }
+
+    private BookingCursorPage toCursorPage(List<Booking> bookings, Integer size) {
+        String nextCursor = null;
+        if (!bookings.isEmpty() && bookings.size() == size) {
+            nextCursor = BookingCursor.of(bookings.get(bookings.size() - 1)).encode();
+        }
+        return new BookingCursorPage(bookingMapper.toListDto(bookings), nextCursor);
     }
 }
@@ -0,0 +1,122 @@
+package ru.practicum.booking.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.booking.BookingStatus;
+import ru.practicum.booking.dto.BookingItemView;
+import ru.practicum.booking.storage.JpaBookingRepository;
+import ru.practicum.item.dto.ItemAvailabilityDto;
+import ru.practicum.item.dto.TimeIntervalDto;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Busy time of items, kept in memory for the most recently asked items.
+ * WAITING and APPROVED bookings of an item are merged once into disjoint intervals sorted by start,
+ * so a calendar request is a lookup in a sorted map without touching the database.
+ * The calendar of an item is dropped when one of its bookings is created or changes status,
+ * and is loaded again on the next request.
+ */
+@Slf4j
+@Component
+public class ItemBookingCalendar {
+    private static final List<BookingStatus> BUSY_STATUSES = List.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+
+    private final JpaBookingRepository bookingRepository;
+    private final Cache<Integer, NavigableMap<LocalDateTime, LocalDateTime>> calendars;
+
+    public ItemBookingCalendar(JpaBookingRepository bookingRepository,
+                               @Value("${shareit.calendar.max-items:10000}") long maxItems) {
+        this.bookingRepository = bookingRepository;
+        this.calendars = Caffeine.newBuilder()
+                .maximumSize(maxItems)
+                .build();
+    }
+
+    public ItemAvailabilityDto getAvailability(Integer itemId, LocalDateTime from, LocalDateTime to) {
+        NavigableMap<LocalDateTime, LocalDateTime> busy = calendars.get(itemId, this::load);
+        ItemAvailabilityDto availability = new ItemAvailabilityDto();
+        availability.setItemId(itemId);
+        availability.setFrom(from);
+        availability.setTo(to);
+        LocalDateTime freeFrom = from;
+        Map.Entry<LocalDateTime, LocalDateTime> before = busy.lowerEntry(from);
+        NavigableMap<LocalDateTime, LocalDateTime> inside = busy.subMap(from, true, to, false);
+        if (before != null && before.getValue().isAfter(from)) {
+            freeFrom = addBusy(availability, from, min(before.getValue(), to));
+        }
+        for (Map.Entry<LocalDateTime, LocalDateTime> interval : inside.entrySet()) {
+            if (interval.getKey().isAfter(freeFrom)) {
+                availability.getFree().add(new TimeIntervalDto(freeFrom, interval.getKey()));
+            }
+            freeFrom = addBusy(availability, interval.getKey(), min(interval.getValue(), to));
+        }
+        if (freeFrom.isBefore(to)) {
+            availability.getFree().add(new TimeIntervalDto(freeFrom, to));
+        }
+        return availability;
+    }
+
+    /**
+     * Drops the calendar of the item once the current transaction commits (at once without a transaction).
+     */
+    public void refreshAfterCommit(Integer itemId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            calendars.invalidate(itemId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                calendars.invalidate(itemId);
+            }
+        });
+    }
+
+    private NavigableMap<LocalDateTime, LocalDateTime> load(Integer itemId) {
+        List<BookingItemView> bookings = bookingRepository.findItemBookings(itemId, BUSY_STATUSES);
+        NavigableMap<LocalDateTime, LocalDateTime> busy = new TreeMap<>();
+        LocalDateTime start = null;
+        LocalDateTime end = null;
+        for (BookingItemView booking : bookings) {
+            if (end != null && !booking.getStart().isAfter(end)) {
+                end = max(end, booking.getEnd());
+                continue;
+            }
+            if (start != null) {
+                busy.put(start, end);
+            }
+            start = booking.getStart();
+            end = booking.getEnd();
+        }
+        if (start != null) {
+            busy.put(start, end);
+        }
+        log.debug("Calendar of item with id = {} loaded: {} bookings, {} busy intervals",
+                itemId, bookings.size(), busy.size());
+        return Collections.unmodifiableNavigableMap(busy);
+    }
+
+    private static LocalDateTime addBusy(ItemAvailabilityDto availability, LocalDateTime start, LocalDateTime end) {
+        availability.getBusy().add(new TimeIntervalDto(start, end));
+        return end;
+    }
+
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
@@ -1,33 +1,204 @@
 package ru.practicum.booking.storage;
 
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import ru.practicum.booking.Booking;
 import ru.practicum.booking.BookingStatus;
+import ru.practicum.booking.dto.BookingExportView;
+import ru.practicum.booking.dto.BookingItemView;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 public interface JpaBookingRepository extends JpaRepository<Booking, Integer> {
+    String EXPORT_FETCH_SIZE = "500";
+
+    /**
+     * Must be consumed inside a transaction. The fetch size lets the driver read the rows through a
+     * cursor instead of loading the whole result.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query("select b.id as id, b.start as start, b.end as end, b.status as status, i.id as itemId, " +
+            "i.name as itemName, b.booker.id as bookerId from Booking as b join b.item as i " +
+            "where i.owner.id = :ownerId order by b.start desc, b.id desc")
+    Stream<BookingExportView> streamAllByOwner(Integer ownerId);
+
+    @Query("select b from Booking as b join fetch b.item as i join fetch i.owner join fetch b.booker " +
+            "where b.id in :bookingIds")
+    List<Booking> findAllWithItemByIdIn(Collection<Integer> bookingIds);
+
+    @Query("select b from Booking as b join fetch b.item join fetch b.booker where b.booker.id = :bookerId " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findAllByBooker(Integer bookerId, Pageable pageable);
+
+    @Query("select b from Booking as b join fetch b.item join fetch b.booker where b.booker.id = :bookerId " +
+            "and b.start < :now and b.end > :now order by b.start desc, b.id desc")
+    List<Booking> findCurrentByBooker(Integer bookerId, LocalDateTime now, Pageable pageable);
+
+    @Query("select b from Booking as b join fetch b.item join fetch b.booker where b.booker.id = :bookerId " +
+            "and b.end < :now order by b.start desc, b.id desc")
+    List<Booking> findPastByBooker(Integer bookerId, LocalDateTime now, Pageable pageable);
+
+    @Query("select b from Booking as b join fetch b.item join fetch b.booker where b.booker.id = :bookerId " +
+            "and b.start > :now order by b.start desc, b.id desc")
+    List<Booking> findFutureByBooker(Integer bookerId, LocalDateTime now, Pageable pageable);
+
+    @Query("select b from Booking as b join fetch b.item join fetch b.booker where b.booker.id = :bookerId " +
+            "and b.status = :status order by b.start desc, b.id desc")
+    List<Booking> findByBookerAndStatus(Integer bookerId, BookingStatus status, Pageable pageable);
+
+    @Query("select b from Booking as b join fetch b.item as i join fetch b.booker where i.owner.id = :ownerId " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findAllByOwner(Integer ownerId, Pageable pageable);
+
+    @Query("select b from Booking as b join fetch b.item as i join fetch b.booker where i.owner.id = :ownerId " +
+            "and b.start < :now and b.end > :now order by b.start desc, b.id desc")
+    List<Booking> findCurrentByOwner(Integer ownerId, LocalDateTime now, Pageable pageable);
+
+    @Query("select b from Booking as b join fetch b.item as i join fetch b.booker where i.owner.id = :ownerId " +
+            "and b.end < :now order by b.start desc, b.id desc")
+    List<Booking> findPastByOwner(Integer ownerId, LocalDateTime now, Pageable pageable);
+
+    @Query("select b from Booking as b join fetch b.item as i join fetch b.booker where i.owner.id = :ownerId " +
+            "and b.start > :now order by b.start desc, b.id desc")
+    List<Booking> findFutureByOwner(Integer ownerId, LocalDateTime now, Pageable pageable);
+
+    @Query("select b from Booking as b join fetch b.item as i join fetch b.booker where i.owner.id = :ownerId " +
+            "and b.status = :status order by b.start desc, b.id desc")
+    List<Booking> findByOwnerAndStatus(Integer ownerId, BookingStatus status, Pageable pageable);
+
+    @Query("select b from Booking as b join fetch b.item join fetch b.booker where b.booker.id = :bookerId " +
+            "and (b.start < :start or (b.start = :start and b.id < :id)) order by b.start desc, b.id desc")
+    List<Booking> findAllByBookerBefore(Integer bookerId, LocalDateTime start, Integer id, Pageable pageable);
+
+    @Query("select b from Booking as b join fetch b.item join fetch b.booker where b.booker.id = :bookerId " +
+            "and b.start < :now and b.end > :now " +
+            "and (b.start < :start or (b.start = :start and b.id < :id)) order by b.start desc, b.id desc")
+    List<Booking> findCurrentByBookerBefore(Integer bookerId, LocalDateTime now, LocalDateTime start,
+                                            Integer id, Pageable pageable);
+
+    @Query("select b from Booking as b join fetch b.item join fetch b.booker where b.booker.id = :bookerId " +
+            "and b.end < :now " +
+            "and (b.start < :start or (b.start = :start and b.id < :id)) order by b.start desc, b.id desc")
+    List<Booking> findPastByBookerBefore(Integer bookerId, LocalDateTime now, LocalDateTime start,
+                                         Integer id, Pageable pageable);
+
+    @Query("select b from Booking as b join fetch b.item join fetch b.booker where b.booker.id = :bookerId " +
+            "and b.start > :now " +
+            "and (b.start < :start or (b.start = :start and b.id < :id)) order by b.start desc, b.id desc")
+    List<Booking> findFutureByBookerBefore(Integer bookerId, LocalDateTime now, LocalDateTime start,
+                                           Integer id, Pageable pageable);
+
+    @Query("select b from Booking as b join fetch b.item join fetch b.booker where b.booker.id = :bookerId " +
+            "and b.status = :status " +
+            "and (b.start < :start or (b.start = :start and b.id < :id)) order by b.start desc, b.id desc")
+    List<Booking> findByBookerAndStatusBefore(Integer bookerId, BookingStatus status, LocalDateTime start,
+                                              Integer id, Pageable pageable);
+
+    @Query("select b from Booking as b join fetch b.item as i join fetch b.booker where i.owner.id = :ownerId " +
+            "and (b.start < :start or (b.start = :start and b.id < :id)) order by b.start desc, b.id desc")
+    List<Booking> findAllByOwnerBefore(Integer ownerId, LocalDateTime start, Integer id, Pageable pageable);
+
+    @Query("select b from Booking as b join fetch b.item as i join fetch b.booker where i.owner.id = :ownerId " +
+            "and b.start < :now and b.end > :now " +
+            "and (b.start < :start or (b.start = :start and b.id < :id)) order by b.start desc, b.id desc")
+    List<Booking> findCurrentByOwnerBefore(Integer ownerId, LocalDateTime now, LocalDateTime start,
+                                           Integer id, Pageable pageable);
+
+    @Query("select b from Booking as b join fetch b.item as i join fetch b.booker where i.owner.id = :ownerId " +
+            "and b.end < :now " +
+            "and (b.start < :start or (b.start = :start and b.id < :id)) order by b.start desc, b.id desc")
+    List<Booking> findPastByOwnerBefore(Integer ownerId, LocalDateTime now, LocalDateTime start,
+                                        Integer id, Pageable pageable);
+
+    @Query("select b from Booking as b join fetch b.item as i join fetch b.booker where i.owner.id = :ownerId " +
+            "and b.start > :now " +
+            "and (b.start < :start or (b.start = :start and b.id < :id)) order by b.start desc, b.id desc")
+    List<Booking> findFutureByOwnerBefore(Integer ownerId, LocalDateTime now, LocalDateTime start,
+                                          Integer id, Pageable pageable);
+
+    @Query("select b from Booking as b join fetch b.item as i join fetch b.booker where i.owner.id = :ownerId " +
+            "and b.status = :status " +
+            "and (b.start < :start or (b.start = :start and b.id < :id)) order by b.start desc, b.id desc")
+    List<Booking> findByOwnerAndStatusBefore(Integer ownerId, BookingStatus status, LocalDateTime start,
+                                             Integer id, Pageable pageable);
+
+    @Query("select b.item.id as itemId, b.id as id, b.booker.id as bookerId, b.start as start, b.end as end " +
+            "from Booking as b where b.item.id = :itemId and b.status = :status and b.start > :now " +
+            "order by b.start asc, b.id asc")
+    List<BookingItemView> findNextBookings(Integer itemId, BookingStatus status, LocalDateTime now,
+                                            Pageable pageable);
+
+    default Optional<BookingItemView> findNextBooking(Integer itemId, BookingStatus status, LocalDateTime now) {
+        return findNextBookings(itemId, status, now, PageRequest.of(0, 1)).stream().findFirst();
+    }
+
+    @Query("select b.item.id as itemId, b.id as id, b.booker.id as bookerId, b.start as start, b.end as end " +
+            "from Booking as b where b.item.id = :itemId and b.status = :status and b.start < :now " +
+            "order by b.start desc, b.id desc")
+    List<BookingItemView> findLastBookings(Integer itemId, BookingStatus status, LocalDateTime now,
+                                            Pageable pageable);
 
-    @Query("select b from Booking as b where b.booker.id = :bookerId and b.status = :status order by b.start desc")
-    List<Booking> findBookingByBooker_IdAndStatus(Integer bookerId, BookingStatus status);
+    default Optional<BookingItemView> findLastBooking(Integer itemId, BookingStatus status, LocalDateTime now) {
+        return findLastBookings(itemId, status, now, PageRequest.of(0, 1)).stream().findFirst();
+    }
 
-    List<Booking> findBookingByBooker_IdOrderByStartDesc(Integer bookerId);
+    @Query("select b.item.id as itemId, b.id as id, b.booker.id as bookerId, b.start as start, b.end as end " +
+            "from Booking as b where b.item.id = :itemId and b.status in :statuses order by b.start asc, b.id asc")
+    List<BookingItemView> findItemBookings(Integer itemId, Collection<BookingStatus> statuses);
 
-    @Query("select b from Booking as b where b.item.owner.id = :ownerId and b.status = :status order by b.start desc")
-    List<Booking> findBookingByItem_Owner_IdAndStatus(Integer ownerId, BookingStatus status);
+    @Query("select b.item.id as itemId, b.id as id, b.booker.id as bookerId, b.start as start, b.end as end " +
+            "from Booking as b where b.item.id in :itemIds and b.status = :status " +
+            "and (b.start = (select min(n.start) from Booking as n where n.item.id = b.item.id " +
+            "and n.status = :status and n.start > :now) " +
+            "or b.start = (select max(l.start) from Booking as l where l.item.id = b.item.id " +
+            "and l.status = :status and l.start < :now)) " +
+            "order by b.start asc, b.id asc")
+    List<BookingItemView> findLastAndNextBookings(Collection<Integer> itemIds, BookingStatus status,
+                                                  LocalDateTime now);
 
-    List<Booking> findBookingByItem_Owner_IdOrderByStartDesc(Integer ownerId);
+    /**
+     * Summary of the owner's bookings in {@code status}: count, highest id, version sum and how many
+     * have already started, so a booking moving from next to last changes the result too.
+     */
+    @Query("select concat(str(count(b)), '-', str(coalesce(max(b.id), 0)), '-', " +
+            "str(coalesce(sum(b.version), 0)), '-', " +
+            "str(coalesce(sum(case when b.start < :now then 1 else 0 end), 0))) " +
+            "from Booking as b where b.item.owner.id = :ownerId and b.status = :status")
+    String getOwnerBookingsVersion(Integer ownerId, BookingStatus status, LocalDateTime now);
 
-    @Query("select b from Booking as b where b.item.id = :itemId and b.start > CURRENT_TIMESTAMP " +
-            "and b.status = :status order by b.start asc")
-    List<Booking> findBookingByItemAndStartAfter(Integer itemId, BookingStatus status);
+    /**
+     * Summary of the booker's bookings: count, highest id, booking and item version sums and how many
+     * have started and ended, so a booking moving between states changes the result too.
+     */
+    @Query("select concat(str(count(b)), '-', str(coalesce(max(b.id), 0)), '-', " +
+            "str(coalesce(sum(b.version), 0)), '-', str(coalesce(sum(i.version), 0)), '-', " +
+            "str(coalesce(sum(case when b.start < :now then 1 else 0 end), 0)), '-', " +
+            "str(coalesce(sum(case when b.end < :now then 1 else 0 end), 0))) " +
+            "from Booking as b join b.item as i where b.booker.id = :bookerId")
+    String getBookerBookingsVersion(Integer bookerId, LocalDateTime now);
 
-    @Query("select b from Booking as b where b.item.id = :itemId and b.start < CURRENT_TIMESTAMP " +
-            "and b.status = :status order by b.start desc")
-    List<Booking> findBookingByItemAndStartBefore(Integer itemId, BookingStatus status);
+    /**
+     * Summary of the bookings of the owner's items, counted like {@link #getBookerBookingsVersion}.
+     */
+    @Query("select concat(str(count(b)), '-', str(coalesce(max(b.id), 0)), '-', " +
+            "str(coalesce(sum(b.version), 0)), '-', str(coalesce(sum(i.version), 0)), '-', " +
+            "str(coalesce(sum(case when b.start < :now then 1 else 0 end), 0)), '-', " +
+            "str(coalesce(sum(case when b.end < :now then 1 else 0 end), 0))) " +
+            "from Booking as b join b.item as i where i.owner.id = :ownerId")
+    String getOwnerAllBookingsVersion(Integer ownerId, LocalDateTime now);
 
+    @Query("select b from Booking as b where b.item.id = :itemId and b.booker.id = :bookerId " +
+            "and b.end < :end and b.status = :status")
     List<Booking> findBookingByItem_IdAndBooker_IdAndEndBeforeAndStatus(Integer itemId, Integer bookerId,
                                                                         LocalDateTime end, BookingStatus status);
 }
@@ -1,6 +1,7 @@
 package ru.practicum.exception;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -57,6 +58,20 @@ public class ErrorHandler {
         return new ErrorResponse(e.getMessage(), e.getMessage(), 400);
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleInvalidCursorException(final InvalidCursorException e) {
+        log.warn(e.getMessage());
+        return new ErrorResponse("Cursor error", e.getMessage(), 400);
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleUnsupportedFormatException(final UnsupportedFormatException e) {
+        log.warn(e.getMessage());
+        return new ErrorResponse("Format error", e.getMessage(), 400);
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleForbiddenAccessChangeStatusException(final ForbiddenAccessChangeStatusException e) {
@@ -71,6 +86,20 @@ public class ErrorHandler {
         return new ErrorResponse("Available error", e.getMessage(), 400);
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleBookingOverlapException(final BookingOverlapException e) {
+        log.warn(e.getMessage());
+        return new ErrorResponse("Booking error", e.getMessage(), 409);
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleOptimisticLockingFailureException(final OptimisticLockingFailureException e) {
+        log.warn(e.getMessage());
+        return new ErrorResponse("Concurrent update error", e.getMessage(), 409);
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleMethodArgumentNotValidException(final MethodArgumentNotValidException e) {
@@ -0,0 +1,7 @@
+package ru.practicum.exception.exceptions;
+
+public class UnsupportedFormatException extends RuntimeException {
+    public UnsupportedFormatException(String message) {
+        super(message);
+    }
+}
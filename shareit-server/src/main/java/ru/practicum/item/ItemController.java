@@ -1,17 +1,31 @@
 package ru.practicum.item;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.item.dto.CommentResearchDto;
 import ru.practicum.item.dto.CommentResponseDto;
+import ru.practicum.item.dto.ItemAvailabilityDto;
 import ru.practicum.item.dto.ItemDto;
+import ru.practicum.item.dto.ItemImportEventDto;
 import ru.practicum.item.service.ItemService;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.Size;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Slf4j
@@ -20,7 +34,11 @@ import java.util.List;
 @RequiredArgsConstructor
 @RequestMapping("/items")
 public class ItemController {
+    public static final int MAX_SUGGESTIONS = 20;
+    public static final int DEFAULT_AVAILABILITY_DAYS = 30;
+    public static final int MAX_BATCH_ITEMS = 10000;
     private final ItemService itemService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public ItemDto createItem(@Valid @RequestBody ItemDto itemDto,
@@ -29,6 +47,36 @@ public class ItemController {
         return itemService.saveItem(itemDto, userId);
     }
 
+    @PostMapping("/batch")
+    public List<ItemDto> createItems(@RequestBody @NotEmpty @Size(max = MAX_BATCH_ITEMS) List<@Valid ItemDto> itemDtos,
+                                     @RequestHeader(name = "X-Sharer-User-Id") @Min(1) Integer userId) {
+        log.info("Create {} items.", itemDtos.size());
+        return itemService.saveItems(itemDtos, userId);
+    }
+
+    /**
+     * Streams the import report back as NDJSON while the body is still being read, flushing after every
+     * written batch so the client sees the progress.
+     */
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public void importItems(@RequestHeader(name = "X-Sharer-User-Id") @Min(1) Integer userId,
+                            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        log.info("Import items for user with id = {}", userId);
+        OutputStream out = response.getOutputStream();
+        itemService.importItems(request.getInputStream(), userId, event -> {
+            response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+            try {
+                out.write(objectMapper.writeValueAsBytes(event));
+                out.write('\n');
+                if (!ItemImportEventDto.ERROR.equals(event.getEvent())) {
+                    out.flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
     @PatchMapping("/{itemId}")
     public ItemDto updateItem(@PathVariable @Min(1) Integer itemId,
                               @RequestBody ItemDto itemDto,
@@ -45,16 +93,49 @@ public class ItemController {
     }
 
     @GetMapping
-    public List<ItemDto> getItemToUser(@RequestHeader(name = "X-Sharer-User-Id") @Min(1) Integer userId) {
+    public List<ItemDto> getItemToUser(@RequestHeader(name = "X-Sharer-User-Id") @Min(1) Integer userId,
+                                       WebRequest request) {
         log.info("Get all items by owner with id = {}.", userId);
+        if (request.checkNotModified(itemService.getItemToUserVersion(userId))) {
+            return null;
+        }
         return itemService.getItemToUser(userId);
     }
 
     @GetMapping("/search")
     public List<ItemDto> search(@RequestHeader(name = "X-Sharer-User-Id") @Min(1) Integer userId,
-                                @RequestParam(name = "text") @Size(max = 100) String text) {
-        log.info("Text search: {}.", text);
-        return itemService.searchItem(text, userId);
+                                @RequestParam(name = "text") @Size(max = 100) String text,
+                                @RequestParam(defaultValue = "0") @Min(0) Integer from,
+                                @RequestParam(required = false) @Min(1) Integer size) {
+        log.info("Text search: {}, from = {}, size = {}.", text, from, size);
+        if (size == null) {
+            size = Integer.MAX_VALUE;
+        }
+        return itemService.searchItem(text, userId, from, size);
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public ItemAvailabilityDto getAvailability(
+            @RequestHeader(name = "X-Sharer-User-Id") @Min(1) Integer userId,
+            @PathVariable @Min(1) Integer itemId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        log.info("Get availability of item with id = {} from {} to {}.", itemId, from, to);
+        if (from == null) {
+            from = LocalDateTime.now();
+        }
+        if (to == null) {
+            to = from.plusDays(DEFAULT_AVAILABILITY_DAYS);
+        }
+        return itemService.getAvailability(itemId, userId, from, to);
+    }
+
+    @GetMapping("/suggest")
+    public List<String> suggest(@RequestHeader(name = "X-Sharer-User-Id") @Min(1) Integer userId,
+                                @RequestParam(name = "prefix") @Size(max = 50) String prefix,
+                                @RequestParam(defaultValue = "10") @Min(1) @Max(MAX_SUGGESTIONS) Integer size) {
+        log.debug("Suggest item names for prefix: {}, size = {}.", prefix, size);
+        return itemService.suggestItemNames(prefix, userId, size);
     }
 
     @PostMapping(value = "/{itemId}/comment")
@@ -10,6 +10,7 @@ import java.util.List;
 @Mapper(componentModel = "spring", uses = ItemMapper.class)
 public interface ItemMapper {
 
+    @Mapping(target = "version", ignore = true)
     Item toItem(ItemDto itemDto);
 
     @Mapping(target = "requestId", source = "item.request.id")
@@ -8,6 +8,7 @@ import ru.practicum.booking.dto.BookingResponseToItemDto;
 
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -19,9 +20,11 @@ public class ItemDto {
     private Integer id;
 
     @NotBlank
+    @Size(max = 50)
     private String name;
 
     @NotBlank
+    @Size(max = 255)
     private String description;
 
     @NotNull
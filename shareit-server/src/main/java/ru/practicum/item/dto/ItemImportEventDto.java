@@ -0,0 +1,28 @@
+package ru.practicum.item.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+
+/**
+ * One line of the NDJSON import report: a rejected input line, the progress after a written batch,
+ * or the final totals.
+ */
+@Data
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ItemImportEventDto {
+    public static final String ERROR = "error";
+    public static final String PROGRESS = "progress";
+    public static final String DONE = "done";
+
+    private String event;
+    private Long line;
+    private Long imported;
+    private Long failed;
+    private String error;
+}
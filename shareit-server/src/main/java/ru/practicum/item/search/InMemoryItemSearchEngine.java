@@ -0,0 +1,150 @@
+package ru.practicum.item.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.item.Item;
+import ru.practicum.item.storage.db.JpaItemRepository;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * In-process inverted index of whole words: every word of the query has to be a prefix of a word of the item.
+ * Words are kept sorted, so a query word is resolved by a range scan over the words it is a prefix of.
+ * A word found in the name weighs more than the same word in the description.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "memory")
+public class InMemoryItemSearchEngine implements ItemSearchEngine {
+    private static final int NAME_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private final JpaItemRepository jpaItemRepository;
+    private final NavigableMap<String, Map<Integer, Integer>> postings = new TreeMap<>();
+    private final Map<Integer, Set<String>> itemTokens = new HashMap<>();
+    private final Set<Integer> availableItems = new HashSet<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @PostConstruct
+    public void rebuild() {
+        List<Item> items = jpaItemRepository.findAll();
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            itemTokens.clear();
+            availableItems.clear();
+            items.forEach(this::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Search index built for {} items", items.size());
+    }
+
+    @Override
+    public void index(Item item) {
+        lock.writeLock().lock();
+        try {
+            remove(item.getId());
+            add(item);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<Integer> itemIds) {
+        lock.writeLock().lock();
+        try {
+            itemIds.forEach(this::remove);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Integer> search(String text, Pageable page) {
+        Set<String> terms = new LinkedHashSet<>(SearchTokenizer.tokenize(text));
+        if (terms.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Integer, Integer> scores = null;
+        lock.readLock().lock();
+        try {
+            for (String term : terms) {
+                Map<Integer, Integer> termScores = new HashMap<>();
+                for (Map<Integer, Integer> posting : postings.subMap(term, true,
+                        term + Character.MAX_VALUE, false).values()) {
+                    posting.forEach((itemId, weight) -> {
+                        if (availableItems.contains(itemId)) {
+                            termScores.merge(itemId, weight, Integer::sum);
+                        }
+                    });
+                }
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    Map<Integer, Integer> matched = scores;
+                    matched.keySet().retainAll(termScores.keySet());
+                    termScores.forEach((itemId, weight) -> matched.computeIfPresent(itemId, (id, s) -> s + weight));
+                }
+                if (scores.isEmpty()) {
+                    return new ArrayList<>();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey(Comparator.naturalOrder())))
+                .skip(page.getOffset())
+                .limit(page.getPageSize())
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    private void add(Item item) {
+        Map<String, Integer> weights = new HashMap<>();
+        SearchTokenizer.tokenize(item.getName()).forEach(token -> weights.merge(token, NAME_WEIGHT, Integer::sum));
+        SearchTokenizer.tokenize(item.getDescription())
+                .forEach(token -> weights.merge(token, DESCRIPTION_WEIGHT, Integer::sum));
+        weights.forEach((token, weight) -> postings.computeIfAbsent(token, t -> new HashMap<>())
+                .put(item.getId(), weight));
+        itemTokens.put(item.getId(), weights.keySet());
+        if (Boolean.TRUE.equals(item.getAvailable())) {
+            availableItems.add(item.getId());
+        }
+    }
+
+    private void remove(Integer itemId) {
+        Set<String> tokens = itemTokens.remove(itemId);
+        if (tokens != null) {
+            for (String token : tokens) {
+                Map<Integer, Integer> posting = postings.get(token);
+                posting.remove(itemId);
+                if (posting.isEmpty()) {
+                    postings.remove(token);
+                }
+            }
+        }
+        availableItems.remove(itemId);
+    }
+}
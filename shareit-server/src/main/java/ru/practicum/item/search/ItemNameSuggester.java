@@ -0,0 +1,151 @@
+package ru.practicum.item.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.practicum.item.Item;
+import ru.practicum.item.storage.db.JpaItemRepository;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Prefix trie of available item names for type-ahead.
+ * Names are matched case-insensitively from their first character. A lookup walks the prefix and then
+ * visits the subtree in lexicographic order, stopping as soon as {@code limit} names are collected,
+ * so its cost depends on the prefix length and the limit, not on the number of items.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemNameSuggester {
+    private final JpaItemRepository jpaItemRepository;
+    private final Node root = new Node();
+    private final Map<Integer, String> indexedKeys = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @PostConstruct
+    public void rebuild() {
+        List<Item> items = jpaItemRepository.findAll();
+        lock.writeLock().lock();
+        try {
+            root.children.clear();
+            root.items.clear();
+            indexedKeys.clear();
+            items.forEach(this::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Suggestion trie built for {} available items", indexedKeys.size());
+    }
+
+    /**
+     * Called after an item was created or changed; unavailable items are dropped from the trie.
+     */
+    public void index(Item item) {
+        lock.writeLock().lock();
+        try {
+            remove(item.getId());
+            add(item);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Called after items were deleted.
+     */
+    public void removeAll(Collection<Integer> itemIds) {
+        lock.writeLock().lock();
+        try {
+            itemIds.forEach(this::remove);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<String> suggest(String prefix, int limit) {
+        List<String> names = new ArrayList<>();
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return names;
+        }
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.children.get(key.charAt(i));
+            }
+            if (node == null) {
+                return names;
+            }
+            Deque<Node> stack = new ArrayDeque<>();
+            stack.push(node);
+            while (!stack.isEmpty() && names.size() < limit) {
+                Node current = stack.pop();
+                if (!current.items.isEmpty()) {
+                    names.add(current.items.firstEntry().getValue());
+                }
+                Iterator<Node> children = current.children.descendingMap().values().iterator();
+                while (children.hasNext()) {
+                    stack.push(children.next());
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return names;
+    }
+
+    private void add(Item item) {
+        String key = normalize(item.getName());
+        if (!Boolean.TRUE.equals(item.getAvailable()) || key.isEmpty()) {
+            return;
+        }
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.children.computeIfAbsent(key.charAt(i), c -> new Node());
+        }
+        node.items.put(item.getId(), item.getName().trim());
+        indexedKeys.put(item.getId(), key);
+    }
+
+    private void remove(Integer itemId) {
+        String key = indexedKeys.remove(itemId);
+        if (key == null) {
+            return;
+        }
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            path.push(node);
+            node = node.children.get(key.charAt(i));
+        }
+        node.items.remove(itemId);
+        for (int i = key.length() - 1; i >= 0 && node.items.isEmpty() && node.children.isEmpty(); i--) {
+            Node parent = path.pop();
+            parent.children.remove(key.charAt(i));
+            node = parent;
+        }
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static class Node {
+        private final TreeMap<Character, Node> children = new TreeMap<>();
+        private final TreeMap<Integer, String> items = new TreeMap<>();
+    }
+}
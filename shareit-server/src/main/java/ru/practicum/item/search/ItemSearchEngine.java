@@ -0,0 +1,30 @@
+package ru.practicum.item.search;
+
+import org.springframework.data.domain.Pageable;
+import ru.practicum.item.Item;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Full-text search over item names and descriptions.
+ * Every word of the query has to match the item (how a word matches depends on the engine),
+ * only available items are returned, ordered by relevance and then by id.
+ */
+public interface ItemSearchEngine {
+
+    /**
+     * Returns ids of the matching items, most relevant first.
+     */
+    List<Integer> search(String text, Pageable page);
+
+    /**
+     * Called after an item was created or changed.
+     */
+    void index(Item item);
+
+    /**
+     * Called after items were deleted.
+     */
+    void removeAll(Collection<Integer> itemIds);
+}
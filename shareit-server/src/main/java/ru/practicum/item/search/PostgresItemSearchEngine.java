@@ -0,0 +1,44 @@
+package ru.practicum.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.item.Item;
+import ru.practicum.item.storage.db.JpaItemRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Word prefix search backed by the generated {@code items.search_vector} column and its GIN index
+ * (see schema-postgresql.sql). The column is maintained by the database, so there is nothing to index here.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "postgres")
+public class PostgresItemSearchEngine implements ItemSearchEngine {
+    private final JpaItemRepository jpaItemRepository;
+
+    @Override
+    public List<Integer> search(String text, Pageable page) {
+        List<String> tokens = SearchTokenizer.tokenize(text);
+        if (tokens.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String query = tokens.stream()
+                .map(token -> token + ":*")
+                .collect(Collectors.joining(" & "));
+        return jpaItemRepository.searchAvailableIds(query, page);
+    }
+
+    @Override
+    public void index(Item item) {
+    }
+
+    @Override
+    public void removeAll(Collection<Integer> itemIds) {
+    }
+}
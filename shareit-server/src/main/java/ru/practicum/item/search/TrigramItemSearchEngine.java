@@ -0,0 +1,189 @@
+package ru.practicum.item.search;
+
+import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.item.Item;
+import ru.practicum.item.storage.db.JpaItemRepository;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * In-process trigram index giving substring semantics: every word of the query has to occur somewhere
+ * in the item name or description. Candidates are the intersection of the posting lists of the query
+ * trigrams (smallest list first), which are then checked for the actual substrings and the available flag.
+ * Words shorter than a trigram have no posting list and are checked against the candidates of the other
+ * words, or against every available item if the query has no longer word.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "trigram", matchIfMissing = true)
+public class TrigramItemSearchEngine implements ItemSearchEngine {
+    private static final int GRAM = 3;
+    private static final int NAME_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private final JpaItemRepository jpaItemRepository;
+    private final Map<String, Set<Integer>> postings = new HashMap<>();
+    private final Map<Integer, Document> documents = new HashMap<>();
+    private final Set<Integer> availableItems = new HashSet<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @PostConstruct
+    public void rebuild() {
+        List<Item> items = jpaItemRepository.findAll();
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            availableItems.clear();
+            items.forEach(this::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Trigram index built for {} items, {} trigrams", items.size(), postings.size());
+    }
+
+    @Override
+    public void index(Item item) {
+        lock.writeLock().lock();
+        try {
+            remove(item.getId());
+            add(item);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<Integer> itemIds) {
+        lock.writeLock().lock();
+        try {
+            itemIds.forEach(this::remove);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Integer> search(String text, Pageable page) {
+        Set<String> terms = new LinkedHashSet<>(SearchTokenizer.tokenize(text));
+        if (terms.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Integer, Integer> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (Integer itemId : candidates(terms)) {
+                Document document = documents.get(itemId);
+                int score = 0;
+                for (String term : terms) {
+                    int termScore = (document.name.contains(term) ? NAME_WEIGHT : 0)
+                            + (document.description.contains(term) ? DESCRIPTION_WEIGHT : 0);
+                    if (termScore == 0) {
+                        score = 0;
+                        break;
+                    }
+                    score += termScore;
+                }
+                if (score > 0) {
+                    scores.put(itemId, score);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey(Comparator.naturalOrder())))
+                .skip(page.getOffset())
+                .limit(page.getPageSize())
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    private Collection<Integer> candidates(Set<String> terms) {
+        List<Set<Integer>> lists = new ArrayList<>();
+        for (String term : terms) {
+            for (String gram : trigrams(term)) {
+                Set<Integer> posting = postings.get(gram);
+                if (posting == null) {
+                    return new ArrayList<>();
+                }
+                lists.add(posting);
+            }
+        }
+        if (lists.isEmpty()) {
+            return availableItems;
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+        Set<Integer> result = new HashSet<>(lists.get(0));
+        result.retainAll(availableItems);
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+
+    private void add(Item item) {
+        Document document = new Document(normalize(item.getName()), normalize(item.getDescription()));
+        Set<String> grams = trigrams(document.name);
+        grams.addAll(trigrams(document.description));
+        grams.forEach(gram -> postings.computeIfAbsent(gram, g -> new HashSet<>()).add(item.getId()));
+        documents.put(item.getId(), document);
+        if (Boolean.TRUE.equals(item.getAvailable())) {
+            availableItems.add(item.getId());
+        }
+    }
+
+    private void remove(Integer itemId) {
+        Document document = documents.remove(itemId);
+        if (document != null) {
+            Set<String> grams = trigrams(document.name);
+            grams.addAll(trigrams(document.description));
+            for (String gram : grams) {
+                Set<Integer> posting = postings.get(gram);
+                posting.remove(itemId);
+                if (posting.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+        availableItems.remove(itemId);
+    }
+
+    private static Set<String> trigrams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    @AllArgsConstructor
+    private static class Document {
+        private final String name;
+        private final String description;
+    }
+}
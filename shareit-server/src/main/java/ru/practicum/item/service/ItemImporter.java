@@ -0,0 +1,195 @@
+package ru.practicum.item.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.item.Item;
+import ru.practicum.item.ItemMapper;
+import ru.practicum.item.dto.ItemDto;
+import ru.practicum.item.dto.ItemImportEventDto;
+import ru.practicum.item.search.ItemNameSuggester;
+import ru.practicum.item.search.ItemSearchEngine;
+import ru.practicum.item.storage.db.JpaItemRepository;
+import ru.practicum.request.ItemRequest;
+import ru.practicum.request.storage.JpaItemRequestRepository;
+import ru.practicum.user.User;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Imports items from NDJSON, one {@link ItemDto} per line. The body is read line by line and written in
+ * batches of {@code shareit.items.import.batch-size}, each in its own transaction, so memory is bounded by
+ * the batch size rather than by the size of the file. Lines that cannot be imported are reported and skipped.
+ */
+@Slf4j
+@Component
+public class ItemImporter {
+    private final JpaItemRepository jpaItemRepository;
+    private final JpaItemRequestRepository jpaItemRequestRepository;
+    private final ItemMapper itemMapper;
+    private final ItemSearchEngine itemSearchEngine;
+    private final ItemNameSuggester itemNameSuggester;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public ItemImporter(JpaItemRepository jpaItemRepository, JpaItemRequestRepository jpaItemRequestRepository,
+                        ItemMapper itemMapper, ItemSearchEngine itemSearchEngine,
+                        ItemNameSuggester itemNameSuggester, ObjectMapper objectMapper, Validator validator,
+                        TransactionTemplate transactionTemplate,
+                        @Value("${shareit.items.import.batch-size:500}") int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Import batch size must be positive");
+        }
+        this.jpaItemRepository = jpaItemRepository;
+        this.jpaItemRequestRepository = jpaItemRequestRepository;
+        this.itemMapper = itemMapper;
+        this.itemSearchEngine = itemSearchEngine;
+        this.itemNameSuggester = itemNameSuggester;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Reports every rejected line, the progress after every written batch and, as the last event and the
+     * result, the totals.
+     */
+    public ItemImportEventDto importItems(InputStream body, User owner, Consumer<ItemImportEventDto> listener)
+            throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        Map<Long, ItemDto> batch = new LinkedHashMap<>();
+        long lineNumber = 0;
+        long imported = 0;
+        long failed = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            String error = null;
+            ItemDto itemDto = null;
+            try {
+                itemDto = objectMapper.readValue(line, ItemDto.class);
+                error = validate(itemDto);
+            } catch (JsonProcessingException e) {
+                error = "Malformed JSON: " + e.getOriginalMessage();
+            }
+            if (error != null) {
+                failed++;
+                listener.accept(error(lineNumber, error));
+                continue;
+            }
+            batch.put(lineNumber, itemDto);
+            if (batch.size() == batchSize) {
+                long saved = writeBatch(batch, owner, listener);
+                imported += saved;
+                failed += batch.size() - saved;
+                batch.clear();
+                listener.accept(progress(ItemImportEventDto.PROGRESS, lineNumber, imported, failed));
+            }
+        }
+        if (!batch.isEmpty()) {
+            long saved = writeBatch(batch, owner, listener);
+            imported += saved;
+            failed += batch.size() - saved;
+        }
+        log.info("Imported {} items for user with id = {}, {} lines failed", imported, owner.getId(), failed);
+        ItemImportEventDto done = progress(ItemImportEventDto.DONE, lineNumber, imported, failed);
+        listener.accept(done);
+        return done;
+    }
+
+    private String validate(ItemDto itemDto) {
+        if (itemDto == null) {
+            return "Item is empty";
+        }
+        Set<ConstraintViolation<ItemDto>> violations = validator.validate(itemDto);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private long writeBatch(Map<Long, ItemDto> batch, User owner, Consumer<ItemImportEventDto> listener) {
+        List<ItemImportEventDto> errors = new ArrayList<>();
+        List<Item> items;
+        try {
+            items = transactionTemplate.execute(status -> {
+                Map<Integer, ItemRequest> itemRequests = jpaItemRequestRepository.findAllById(batch.values().stream()
+                                .map(ItemDto::getRequestId)
+                                .filter(Objects::nonNull)
+                                .collect(Collectors.toSet())).stream()
+                        .collect(Collectors.toMap(ItemRequest::getId, Function.identity()));
+                List<Item> batchItems = new ArrayList<>(batch.size());
+                batch.forEach((lineNumber, itemDto) -> {
+                    Item item = itemMapper.toItem(itemDto);
+                    item.setOwner(owner);
+                    if (itemDto.getRequestId() != null) {
+                        if (!itemRequests.containsKey(itemDto.getRequestId())) {
+                            errors.add(error(lineNumber, "Request with id = " + itemDto.getRequestId() +
+                                    " not found"));
+                            return;
+                        }
+                        item.setRequest(itemRequests.get(itemDto.getRequestId()));
+                    }
+                    batchItems.add(item);
+                });
+                return jpaItemRepository.saveAll(batchItems);
+            });
+        } catch (DataAccessException e) {
+            log.warn("Batch of imported items could not be saved", e);
+            batch.keySet().forEach(lineNumber -> listener.accept(error(lineNumber,
+                    "Batch could not be saved: " + e.getMostSpecificCause().getMessage())));
+            return 0;
+        }
+        for (Item item : items) {
+            itemSearchEngine.index(item);
+            itemNameSuggester.index(item);
+        }
+        errors.forEach(listener);
+        return items.size();
+    }
+
+    private static ItemImportEventDto error(long lineNumber, String error) {
+        return ItemImportEventDto.builder()
+                .event(ItemImportEventDto.ERROR)
+                .line(lineNumber)
+                .error(error)
+                .build();
+    }
+
+    private static ItemImportEventDto progress(String event, long lineNumber, long imported, long failed) {
+        return ItemImportEventDto.builder()
+                .event(event)
+                .line(lineNumber)
+                .imported(imported)
+                .failed(failed)
+                .build();
+    }
+}
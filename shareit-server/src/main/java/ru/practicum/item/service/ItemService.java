@@ -2,24 +2,47 @@ package ru.practicum.item.service;
 
 import ru.practicum.item.Item;
 import ru.practicum.item.dto.CommentResearchDto;
+import ru.practicum.item.dto.ItemAvailabilityDto;
 import ru.practicum.item.dto.CommentResponseDto;
 import ru.practicum.item.dto.ItemDto;
+import ru.practicum.item.dto.ItemImportEventDto;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface ItemService {
     ItemDto saveItem(ItemDto request, Integer userId);
 
+    List<ItemDto> saveItems(List<ItemDto> requests, Integer userId);
+
+    ItemImportEventDto importItems(InputStream body, Integer userId, Consumer<ItemImportEventDto> listener)
+            throws IOException;
+
     ItemDto updateItem(ItemDto request, Integer userId, Integer itemId);
 
     ItemDto getItem(Integer id, Integer userId);
 
     List<ItemDto> getItemToUser(Integer userId);
 
-    List<ItemDto> searchItem(String search, Integer userId);
+    String getItemToUserVersion(Integer userId);
+
+    List<ItemDto> searchItem(String search, Integer userId, Integer from, Integer size);
+
+    List<String> suggestItemNames(String prefix, Integer userId, Integer size);
+
+    ItemAvailabilityDto getAvailability(Integer itemId, Integer userId, LocalDateTime from, LocalDateTime to);
 
     Item getItemToBooking(Integer id);
 
+    Map<Integer, Item> getItemsToBooking(Collection<Integer> ids);
+
+    Item lockItemToBooking(Integer id);
+
     CommentResponseDto saveComment(Integer itemId, Integer userId, CommentResearchDto research);
 
 }
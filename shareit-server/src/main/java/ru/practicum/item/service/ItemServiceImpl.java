@@ -4,10 +4,15 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import ru.practicum.booking.BookingMapper;
 import ru.practicum.booking.BookingStatus;
+import ru.practicum.booking.dto.BookingItemView;
 import ru.practicum.booking.dto.BookingResponseToItemDto;
+import ru.practicum.booking.service.ItemBookingCalendar;
 import ru.practicum.booking.storage.JpaBookingRepository;
+import ru.practicum.exception.exceptions.BookingDateException;
 import ru.practicum.exception.exceptions.BookingNotFoundException;
 import ru.practicum.exception.exceptions.DataNotFoundException;
 import ru.practicum.exception.exceptions.ForbiddenUpdateException;
@@ -16,19 +21,34 @@ import ru.practicum.item.CommentMapper;
 import ru.practicum.item.Item;
 import ru.practicum.item.ItemMapper;
 import ru.practicum.item.dto.CommentResearchDto;
+import ru.practicum.item.dto.ItemAvailabilityDto;
 import ru.practicum.item.dto.CommentResponseDto;
 import ru.practicum.item.dto.ItemDto;
+import ru.practicum.item.dto.ItemImportEventDto;
+import ru.practicum.item.search.ItemNameSuggester;
+import ru.practicum.item.search.ItemSearchEngine;
 import ru.practicum.item.storage.db.JpaCommentRepository;
 import ru.practicum.item.storage.db.JpaItemRepository;
+import ru.practicum.pagination.OffsetPageRequest;
+import ru.practicum.request.ItemRequest;
 import ru.practicum.request.storage.JpaItemRequestRepository;
 import ru.practicum.user.User;
 import ru.practicum.user.UserMapper;
 import ru.practicum.user.service.UserService;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -44,13 +64,17 @@ public class ItemServiceImpl implements ItemService {
     private final CommentMapper commentMapper;
     private final UserMapper userMapper;
     private final UserService userService;
+    private final ItemSearchEngine itemSearchEngine;
+    private final ItemNameSuggester itemNameSuggester;
+    private final ItemBookingCalendar itemBookingCalendar;
+    private final ItemImporter itemImporter;
 
     @Override
     @Transactional
     public ItemDto saveItem(ItemDto request, Integer userId) {
-        userService.getData(userId);
+        User owner = userMapper.toUser(userService.getData(userId));
         Item item = itemMapper.toItem(request);
-        item.setOwner(userMapper.toUser(userService.getData(userId)));
+        item.setOwner(owner);
         if (request.getRequestId() != null) {
             if (jpaItemRequestRepository.findById(request.getRequestId()).isEmpty()) {
                 log.warn("Request with id = " + request.getRequestId() + " not found");
@@ -58,7 +82,48 @@ public class ItemServiceImpl implements ItemService {
             }
             item.setRequest(jpaItemRequestRepository.findById(request.getRequestId()).get());
         }
-        return itemMapper.toDto(jpaItemRepository.save(item));
+        Item savedItem = jpaItemRepository.save(item);
+        indexAfterCommit(List.of(savedItem));
+        return itemMapper.toDto(savedItem);
+    }
+
+    /**
+     * Items take their ids from a pooled sequence, so the inserts are sent in JDBC batches of
+     * {@code hibernate.jdbc.batch_size} rows instead of one round trip per item.
+     */
+    @Override
+    @Transactional
+    public List<ItemDto> saveItems(List<ItemDto> requests, Integer userId) {
+        User owner = userMapper.toUser(userService.getData(userId));
+        Set<Integer> requestIds = requests.stream()
+                .map(ItemDto::getRequestId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Integer, ItemRequest> itemRequests = jpaItemRequestRepository.findAllById(requestIds).stream()
+                .collect(Collectors.toMap(ItemRequest::getId, Function.identity()));
+        List<Item> items = new ArrayList<>(requests.size());
+        for (ItemDto request : requests) {
+            Item item = itemMapper.toItem(request);
+            item.setOwner(owner);
+            if (request.getRequestId() != null) {
+                if (!itemRequests.containsKey(request.getRequestId())) {
+                    log.warn("Request with id = " + request.getRequestId() + " not found");
+                    throw new DataNotFoundException("Request with id = " + request.getRequestId() + " not found");
+                }
+                item.setRequest(itemRequests.get(request.getRequestId()));
+            }
+            items.add(item);
+        }
+        List<Item> savedItems = jpaItemRepository.saveAll(items);
+        indexAfterCommit(savedItems);
+        return itemMapper.toDtoList(savedItems);
+    }
+
+    @Override
+    public ItemImportEventDto importItems(InputStream body, Integer userId, Consumer<ItemImportEventDto> listener)
+            throws IOException {
+        User owner = userMapper.toUser(userService.getData(userId));
+        return itemImporter.importItems(body, owner, listener);
     }
 
     @Override
@@ -89,7 +154,10 @@ public class ItemServiceImpl implements ItemService {
         }
         itemRequest.setId(itemId);
         itemRequest.setOwner(item.getOwner());
-        return itemMapper.toDto(jpaItemRepository.save(itemRequest));
+        itemRequest.setVersion(item.getVersion());
+        Item savedItem = jpaItemRepository.save(itemRequest);
+        indexAfterCommit(List.of(savedItem));
+        return itemMapper.toDto(savedItem);
     }
 
     @Override
@@ -104,60 +172,104 @@ public class ItemServiceImpl implements ItemService {
         BookingResponseToItemDto nextBooking = null;
         BookingResponseToItemDto lastBooking = null;
         if (item.get().getOwner().getId().longValue() == user.getId()) {
-            if (!jpaBookingRepository.findBookingByItemAndStartAfter(id, BookingStatus.APPROVED).isEmpty()) {
-                nextBooking = bookingMapper.toBookingToItem(jpaBookingRepository
-                        .findBookingByItemAndStartAfter(id, BookingStatus.APPROVED).get(0));
-            }
-            if (!jpaBookingRepository.findBookingByItemAndStartBefore(id, BookingStatus.APPROVED).isEmpty()) {
-                lastBooking = bookingMapper.toBookingToItem(jpaBookingRepository
-                        .findBookingByItemAndStartBefore(id, BookingStatus.APPROVED).get(0));
-            }
+            LocalDateTime now = LocalDateTime.now();
+            nextBooking = jpaBookingRepository.findNextBooking(id, BookingStatus.APPROVED, now)
+                    .map(bookingMapper::toBookingToItem)
+                    .orElse(null);
+            lastBooking = jpaBookingRepository.findLastBooking(id, BookingStatus.APPROVED, now)
+                    .map(bookingMapper::toBookingToItem)
+                    .orElse(null);
         }
         itemResponse.setNextBooking(nextBooking);
         itemResponse.setLastBooking(lastBooking);
-        if (!jpaCommentRepository.findCommentByItem_Id(id).isEmpty()) {
-            itemResponse.setComments(commentMapper.toListCommentDto(jpaCommentRepository
-                    .findCommentByItem_Id(id)));
-        } else {
-            itemResponse.setComments(new ArrayList<>());
-        }
+        itemResponse.setComments(commentMapper.toListCommentDto(jpaCommentRepository.findCommentByItem_Id(id)));
         return itemResponse;
     }
 
+    /**
+     * Version of everything {@link #getItemToUser} renders, read from id and version columns only:
+     * the owner's items, comments on them with their authors and approved bookings with how many have started.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public String getItemToUserVersion(Integer userId) {
+        userService.getData(userId);
+        return String.join(".", jpaItemRepository.getOwnerItemsVersion(userId),
+                jpaCommentRepository.getOwnerCommentsVersion(userId),
+                jpaBookingRepository.getOwnerBookingsVersion(userId, BookingStatus.APPROVED, LocalDateTime.now()));
+    }
+
     @Override
+    @Transactional(readOnly = true)
     public List<ItemDto> getItemToUser(Integer userId) {
         userService.getData(userId);
-        return itemMapper.toDtoList(jpaItemRepository
-                        .findByOwnerIdOrderByIdAsc(userId)).stream()
-                .peek(
-                        i -> {
-                            if (!jpaBookingRepository.findBookingByItemAndStartAfter(i.getId(), BookingStatus.APPROVED)
-                                    .isEmpty()) {
-                                i.setNextBooking(bookingMapper.toBookingToItem(jpaBookingRepository
-                                        .findBookingByItemAndStartAfter(i.getId(), BookingStatus.APPROVED).get(0)));
-                            }
-                            if (!jpaBookingRepository.findBookingByItemAndStartBefore(i.getId(), BookingStatus.APPROVED)
-                                    .isEmpty()) {
-                                i.setLastBooking(bookingMapper.toBookingToItem(jpaBookingRepository
-                                        .findBookingByItemAndStartBefore(i.getId(), BookingStatus.APPROVED).get(0)));
-                            }
-                            if (!jpaCommentRepository.findCommentByItem_Id(i.getId()).isEmpty()) {
-                                i.setComments(commentMapper.toListCommentDto(jpaCommentRepository
-                                        .findCommentByItem_Id(i.getId())));
-                            }
-                        }
-                )
+        List<ItemDto> items = itemMapper.toDtoList(jpaItemRepository.findByOwnerIdOrderByIdAsc(userId));
+        if (items.isEmpty()) {
+            return items;
+        }
+        List<Integer> itemIds = items.stream()
+                .map(ItemDto::getId)
                 .collect(Collectors.toList());
+        LocalDateTime now = LocalDateTime.now();
+        Map<Integer, BookingResponseToItemDto> nextBookings = new HashMap<>();
+        Map<Integer, BookingResponseToItemDto> lastBookings = new HashMap<>();
+        for (BookingItemView booking : jpaBookingRepository.findLastAndNextBookings(itemIds,
+                BookingStatus.APPROVED, now)) {
+            if (booking.getStart().isAfter(now)) {
+                nextBookings.putIfAbsent(booking.getItemId(), bookingMapper.toBookingToItem(booking));
+            } else {
+                lastBookings.put(booking.getItemId(), bookingMapper.toBookingToItem(booking));
+            }
+        }
+        Map<Integer, List<CommentResponseDto>> commentsByItem = jpaCommentRepository.findCommentByItem_IdIn(itemIds)
+                .stream()
+                .collect(Collectors.groupingBy(c -> c.getItem().getId(),
+                        Collectors.mapping(commentMapper::toDto, Collectors.toList())));
+        for (ItemDto item : items) {
+            item.setNextBooking(nextBookings.get(item.getId()));
+            item.setLastBooking(lastBookings.get(item.getId()));
+            if (commentsByItem.containsKey(item.getId())) {
+                item.setComments(commentsByItem.get(item.getId()));
+            }
+        }
+        return items;
     }
 
     @Override
-    public List<ItemDto> searchItem(String search, Integer userId) {
+    @Transactional(readOnly = true)
+    public List<ItemDto> searchItem(String search, Integer userId, Integer from, Integer size) {
         userService.getData(userId);
-        List<ItemDto> items = new ArrayList<>();
-        if (!search.isBlank()) {
-            items = itemMapper.toDtoList(jpaItemRepository.findByNameAndDescription(search, search));
+        if (search.isBlank()) {
+            return new ArrayList<>();
         }
-        return items;
+        List<Integer> itemIds = itemSearchEngine.search(search, new OffsetPageRequest(from, size));
+        if (itemIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Integer, Item> items = jpaItemRepository.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        return itemIds.stream()
+                .map(items::get)
+                .filter(Objects::nonNull)
+                .map(itemMapper::toDto)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<String> suggestItemNames(String prefix, Integer userId, Integer size) {
+        userService.getData(userId);
+        return itemNameSuggester.suggest(prefix, size);
+    }
+
+    @Override
+    public ItemAvailabilityDto getAvailability(Integer itemId, Integer userId, LocalDateTime from, LocalDateTime to) {
+        userService.getData(userId);
+        if (!to.isAfter(from)) {
+            log.warn("The end of the period is earlier or equal than the start");
+            throw new BookingDateException("The end of the period is earlier or equal than the start");
+        }
+        getItemToBooking(itemId);
+        return itemBookingCalendar.getAvailability(itemId, from, to);
     }
 
     @Override
@@ -191,4 +303,55 @@ public class ItemServiceImpl implements ItemService {
         }
         return item.get();
     }
+
+    @Override
+    public Map<Integer, Item> getItemsToBooking(Collection<Integer> ids) {
+        Map<Integer, Item> items = jpaItemRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        for (Integer id : ids) {
+            if (!items.containsKey(id)) {
+                log.warn("Item with id = " + id + " not found");
+                throw new DataNotFoundException("Item with id = " + id + " not found");
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Loads the item with a row lock held until the end of the caller's transaction,
+     * so that approvals of bookings of the same item are checked one after another.
+     */
+    @Override
+    @Transactional
+    public Item lockItemToBooking(Integer id) {
+        Optional<Item> item = jpaItemRepository.findByIdForUpdate(id);
+        if (item.isEmpty()) {
+            log.warn("Item with id = " + id + " not found");
+            throw new DataNotFoundException("Item with id = " + id + " not found");
+        }
+        return item.get();
+    }
+
+    /**
+     * Items are inserted and updated when the transaction flushes on commit, so they are indexed only once it
+     * has committed (at once without a transaction): a rejected insert or update must not show up in search
+     * or in name suggestions.
+     */
+    private void indexAfterCommit(List<Item> items) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            items.forEach(this::index);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                items.forEach(ItemServiceImpl.this::index);
+            }
+        });
+    }
+
+    private void index(Item item) {
+        itemSearchEngine.index(item);
+        itemNameSuggester.index(item);
+    }
 }
@@ -1,12 +1,28 @@
 package ru.practicum.item.storage.db;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.item.Comment;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface JpaCommentRepository extends JpaRepository<Comment, Integer> {
 
+    @Query("select c from Comment as c where c.item.id = :itemId")
     List<Comment> findCommentByItem_Id(Integer itemId);
 
+    @Query("select c from Comment as c join fetch c.author join fetch c.item where c.item.id in :itemIds " +
+            "order by c.id asc")
+    List<Comment> findCommentByItem_IdIn(Collection<Integer> itemIds);
+
+    /**
+     * Count and highest id of comments on the owner's items plus the version sum of their authors,
+     * whose names are rendered with each comment.
+     */
+    @Query("select concat(str(count(c)), '-', str(coalesce(max(c.id), 0)), '-', " +
+            "str(coalesce(sum(a.version), 0))) " +
+            "from Comment as c join c.author as a where c.item.owner.id = :ownerId")
+    String getOwnerCommentsVersion(Integer ownerId);
+
 }
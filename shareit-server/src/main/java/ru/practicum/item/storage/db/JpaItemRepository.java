@@ -1,21 +1,49 @@
 package ru.practicum.item.storage.db;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
 import ru.practicum.item.Item;
 
+import javax.persistence.LockModeType;
 import java.util.List;
+import java.util.Optional;
 
 public interface JpaItemRepository extends JpaRepository<Item, Integer> {
 
-    @Query("select it from Item as it where (upper(it.name) like CONCAT('%',UPPER(:name),'%') " +
-            "or upper(it.description) like CONCAT('%',UPPER(:description),'%')) AND it.available = true")
-    List<Item> findByNameAndDescription(@Param("name") String name, @Param("description") String description);
+    @Query(value = "select i.item_id from items as i where i.available = true " +
+            "and i.search_vector @@ to_tsquery('simple', :query) " +
+            "order by ts_rank(i.search_vector, to_tsquery('simple', :query)) desc, i.item_id asc",
+            nativeQuery = true)
+    List<Integer> searchAvailableIds(String query, Pageable page);
 
+    @Query("select it from Item as it join fetch it.owner left join fetch it.request as r " +
+            "left join fetch r.requestor where it.owner.id = :id order by it.id asc")
     List<Item> findByOwnerIdOrderByIdAsc(Integer id);
 
+    /**
+     * Count, highest id and version sum of the owner's items; changes with any insert, update or delete.
+     */
+    @Query("select concat(str(count(it)), '-', str(coalesce(max(it.id), 0)), '-', " +
+            "str(coalesce(sum(it.version), 0))) " +
+            "from Item as it where it.owner.id = :ownerId")
+    String getOwnerItemsVersion(Integer ownerId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select it from Item as it where it.id = :id")
+    Optional<Item> findByIdForUpdate(Integer id);
+
+    /**
+     * Ids of the items ON DELETE CASCADE removes with the user: their own items and the answers to their requests.
+     */
+    @Query("select it.id from Item as it left join it.request as r " +
+            "where it.owner.id = :userId or r.requestor.id = :userId")
+    List<Integer> findIdsDeletedWithUser(Integer userId);
+
+    @Query("select it from Item as it where it.request.id = :id")
     List<Item> findByRequest_Id(Integer id);
 
+    @Query("select it from Item as it where it.request.id in :ids")
     List<Item> findByRequest_IdIn(List<Integer> ids);
 }
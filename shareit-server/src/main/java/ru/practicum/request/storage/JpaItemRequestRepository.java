@@ -7,6 +7,7 @@ import ru.practicum.request.ItemRequest;
 import java.util.List;
 
 public interface JpaItemRequestRepository extends JpaRepository<ItemRequest, Integer> {
+    @Query("select it from ItemRequest as it where it.requestor.id = :requestorId order by it.created desc")
     List<ItemRequest> findItemRequestByRequestor_IdOrderByCreatedDesc(Integer requestorId);
 
     @Query("select it from ItemRequest as it where it.requestor.id != :requestorId order by it.created desc")
@@ -5,6 +5,8 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import javax.validation.constraints.Email;
@@ -17,6 +19,8 @@ import javax.validation.constraints.NotBlank;
 @AllArgsConstructor
 @Entity
 @Table(name = "users", uniqueConstraints = @UniqueConstraint(columnNames = "email"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
 public class User {
 
     @Id
@@ -29,4 +33,21 @@ public class User {
     @Email
     @NotBlank
     private String email;
+
+    /**
+     * Counts changes for conditional GETs of lists that render user names. Not a {@code @Version}: users
+     * are rebuilt from cached DTOs when they are only referenced, and a null version would make them transient.
+     */
+    @Column(nullable = false)
+    private Integer version;
+
+    public User(Integer id, String name, String email) {
+        this(id, name, email, null);
+    }
+
+    @PrePersist
+    @PreUpdate
+    private void nextVersion() {
+        version = version == null ? 0 : version + 1;
+    }
 }
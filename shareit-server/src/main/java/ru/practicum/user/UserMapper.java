@@ -1,11 +1,13 @@
 package ru.practicum.user;
 
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import ru.practicum.user.dto.UserDto;
 
 @Mapper(componentModel = "spring")
 public interface UserMapper {
     UserDto toUserDto(User user);
 
+    @Mapping(target = "version", ignore = true)
     User toUser(UserDto userDto);
 }
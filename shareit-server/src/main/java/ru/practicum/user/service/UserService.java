@@ -2,22 +2,38 @@ package ru.practicum.user.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import ru.practicum.exception.exceptions.DataNotFoundException;
+import ru.practicum.item.Item;
+import ru.practicum.item.search.ItemNameSuggester;
+import ru.practicum.item.search.ItemSearchEngine;
+import ru.practicum.item.storage.db.JpaItemRepository;
+import ru.practicum.request.ItemRequest;
 import ru.practicum.user.User;
 import ru.practicum.user.UserMapper;
 import ru.practicum.user.dto.UserDto;
 import ru.practicum.user.storage.db.JpaUserRepository;
 
+import javax.persistence.EntityManagerFactory;
 import java.util.List;
+import java.util.Optional;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserService {
+    public static final String USER_CACHE = "users";
     private final JpaUserRepository storage;
     private final UserMapper userMapper;
+    private final EntityManagerFactory entityManagerFactory;
+    private final JpaItemRepository jpaItemRepository;
+    private final ItemSearchEngine itemSearchEngine;
+    private final ItemNameSuggester itemNameSuggester;
 
     @Transactional
     public UserDto create(UserDto data) {
@@ -26,19 +42,22 @@ public class UserService {
     }
 
     @Transactional
+    @CacheEvict(cacheNames = USER_CACHE, key = "#id")
     public UserDto update(Integer id, UserDto request) {
-        if (!storage.existsById(id)) {
+        Optional<User> existing = storage.findById(id);
+        if (existing.isEmpty()) {
             log.warn("User with id = {} not found", id);
             throw new DataNotFoundException(String.format("User with id = %s not found", id));
         }
 
         User user = userMapper.toUser(request);
         user.setId(id);
+        user.setVersion(existing.get().getVersion());
         if (user.getEmail() == null) {
-            user.setEmail(storage.findById(id).get().getEmail());
+            user.setEmail(existing.get().getEmail());
         }
         if (user.getName() == null) {
-            user.setName(storage.findById(id).get().getName());
+            user.setName(existing.get().getName());
         }
         User updatedUser = storage.save(user);
         return userMapper.toUserDto(updatedUser);
@@ -48,20 +67,55 @@ public class UserService {
         return storage.findAll();
     }
 
+    /**
+     * Loads a user with a single query. Every service call validates the X-Sharer-User-Id header through
+     * this method, so found users are kept in the bounded, expiring {@value #USER_CACHE} cache;
+     * misses are not cached.
+     */
+    @Cacheable(cacheNames = USER_CACHE, key = "#id")
     public UserDto getData(Integer id) {
-        if (!storage.existsById(id)) {
+        Optional<User> user = storage.findById(id);
+        if (user.isEmpty()) {
             log.warn("User with id = {} not found.", id);
             throw new DataNotFoundException(String.format("User with id = %s not found", id));
         }
-        return userMapper.toUserDto(storage.findById(id).get());
+        return userMapper.toUserDto(user.get());
     }
 
     @Transactional
+    @CacheEvict(cacheNames = USER_CACHE, key = "#id")
     public void delete(Integer id) {
         if (!storage.existsById(id)) {
             log.warn("User with id = {} not found", id);
             throw new DataNotFoundException(String.format("User with id = %s not found", id));
         }
+        List<Integer> itemIds = jpaItemRepository.findIdsDeletedWithUser(id);
         storage.deleteById(id);
+        // Items and requests of the user are removed by ON DELETE CASCADE, unseen by the second-level cache
+        // and by the in-memory item indexes.
+        entityManagerFactory.getCache().evict(Item.class);
+        entityManagerFactory.getCache().evict(ItemRequest.class);
+        removeFromIndexesAfterCommit(itemIds);
+    }
+
+    private void removeFromIndexesAfterCommit(List<Integer> itemIds) {
+        if (itemIds.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            removeFromIndexes(itemIds);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                removeFromIndexes(itemIds);
+            }
+        });
+    }
+
+    private void removeFromIndexes(List<Integer> itemIds) {
+        itemSearchEngine.removeAll(itemIds);
+        itemNameSuggester.removeAll(itemIds);
     }
 }
@@ -0,0 +1,12 @@
+-- Runs after schema.sql (see spring.sql.init.schema-locations), which recreates the tables on every start.
+ALTER TABLE items ADD COLUMN search_vector tsvector GENERATED ALWAYS AS (
+setweight(to_tsvector('simple', name), 'A') || setweight(to_tsvector('simple', description), 'B')
+) STORED;
+
+CREATE INDEX idx_items_search_vector ON items USING GIN (search_vector);
+
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+ALTER TABLE bookings ADD CONSTRAINT bookings_approved_no_overlap EXCLUDE USING GIST (
+item_id WITH =, tstzrange(start_date, end_date) WITH &&
+) WHERE (status = 'APPROVED');
@@ -1,9 +1,15 @@
 DROP TABLE IF EXISTS users, items, comments, bookings, items_request;
+DROP SEQUENCE IF EXISTS items_seq;
+DROP SEQUENCE IF EXISTS bookings_seq;
+
+CREATE SEQUENCE items_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE bookings_seq START WITH 1 INCREMENT BY 50;
 
 CREATE TABLE users (
 user_id integer GENERATED BY DEFAULT AS IDENTITY NOT NULL PRIMARY KEY,
 name varchar(50) NOT NULL,
-email varchar(100) UNIQUE NOT NULL
+email varchar(100) UNIQUE NOT NULL,
+version integer NOT NULL DEFAULT 0
 );
 
 CREATE TABLE items_request (
@@ -14,12 +20,13 @@ owner_id  integer NOT NULL REFERENCES users (user_id) ON DELETE CASCADE
 );
 
 CREATE TABLE items (
-item_id integer GENERATED BY DEFAULT AS IDENTITY NOT NULL PRIMARY KEY,
+item_id integer NOT NULL PRIMARY KEY,
 name varchar(50) NOT NULL,
 description varchar(255) NOT NULL,
 available boolean NOT NULL,
 owner_id integer NOT NULL REFERENCES users (user_id) ON DELETE CASCADE,
-request_id integer REFERENCES items_request(request_id) ON DELETE CASCADE
+request_id integer REFERENCES items_request(request_id) ON DELETE CASCADE,
+version integer NOT NULL DEFAULT 0
 );
 
 CREATE TABLE comments (
@@ -31,10 +38,23 @@ created TIMESTAMP WITH TIME ZONE NOT NULL
 );
 
 CREATE TABLE bookings (
-booking_id integer GENERATED BY DEFAULT AS IDENTITY NOT NULL PRIMARY KEY,
+booking_id integer NOT NULL PRIMARY KEY,
 booker_id  integer NOT NULL REFERENCES users (user_id) ON DELETE CASCADE,
 item_id    integer NOT NULL REFERENCES items (item_id) ON DELETE CASCADE,
 status     varchar(20) NOT NULL,
 start_date TIMESTAMP WITH TIME ZONE NOT NULL ,
-end_date TIMESTAMP WITH TIME ZONE NOT NULL
-);
\ No newline at end of file
+end_date TIMESTAMP WITH TIME ZONE NOT NULL,
+version    integer NOT NULL DEFAULT 0
+);
+
+CREATE INDEX idx_items_owner_id ON items (owner_id);
+CREATE INDEX idx_items_request_id ON items (request_id);
+
+CREATE INDEX idx_items_request_owner_created ON items_request (owner_id, created);
+CREATE INDEX idx_items_request_created ON items_request (created);
+
+CREATE INDEX idx_comments_item_id ON comments (item_id);
+
+CREATE INDEX idx_bookings_booker_start ON bookings (booker_id, start_date);
+CREATE INDEX idx_bookings_booker_status_start ON bookings (booker_id, status, start_date);
+CREATE INDEX idx_bookings_item_status_start ON bookings (item_id, status, start_date);
@@ -0,0 +1,108 @@
+package ru.practicum;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.practicum.item.dto.ItemDto;
+import ru.practicum.item.service.ItemService;
+import ru.practicum.user.dto.UserDto;
+import ru.practicum.user.service.UserService;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Boots the server against PostgreSQL with the same settings as docker-compose, so that
+ * schema-postgresql.sql runs on top of the tables created by schema.sql.
+ * Skipped when Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = {
+        "spring.sql.init.platform=postgresql",
+        "shareit.search.engine=postgres"
+})
+public class PostgresSchemaTest {
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:14-alpine");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.datasource.driverClassName", POSTGRES::getDriverClassName);
+    }
+
+    @Test
+    void searchVectorShouldBeCreated() {
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM information_schema.columns " +
+                "WHERE table_name = 'items' AND column_name = 'search_vector'", Integer.class));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM pg_indexes " +
+                "WHERE tablename = 'items' AND indexname = 'idx_items_search_vector'", Integer.class));
+    }
+
+    @Test
+    @DirtiesContext
+    void searchItemShouldUseSearchVector() {
+        Integer userId = userService.create(new UserDto(null, "User 1", "user1@yandex.ru")).getId();
+        itemService.saveItem(new ItemDto(null, "Дрель", "Простая дрель", true,
+                null, null, null, null), userId);
+        itemService.saveItem(new ItemDto(null, "Отвертка", "Аккумуляторная отвертка", true,
+                null, null, null, null), userId);
+
+        List<ItemDto> items = itemService.searchItem("дре", userId, 0, 10);
+
+        assertEquals(1, items.size());
+        assertEquals("Дрель", items.get(0).getName());
+    }
+
+    @Test
+    @DirtiesContext
+    void approvedOverlapConstraintShouldSurviveRestart() {
+        try (ConfigurableApplicationContext restarted = new SpringApplicationBuilder(ShareItServiceApp.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + POSTGRES.getJdbcUrl(),
+                        "--spring.datasource.username=" + POSTGRES.getUsername(),
+                        "--spring.datasource.password=" + POSTGRES.getPassword(),
+                        "--spring.datasource.driverClassName=" + POSTGRES.getDriverClassName(),
+                        "--spring.sql.init.platform=postgresql",
+                        "--shareit.search.engine=postgres")) {
+            JdbcTemplate restartedJdbc = restarted.getBean(JdbcTemplate.class);
+            assertEquals(1, restartedJdbc.queryForObject("SELECT count(*) FROM pg_constraint " +
+                    "WHERE conname = 'bookings_approved_no_overlap'", Integer.class));
+
+            restartedJdbc.update("INSERT INTO users (user_id, name, email) VALUES (1, 'User 1', 'user1@yandex.ru')");
+            restartedJdbc.update("INSERT INTO items (item_id, name, description, available, owner_id) " +
+                    "VALUES (1, 'Дрель', 'Простая дрель', true, 1)");
+            restartedJdbc.update("INSERT INTO bookings " +
+                    "(booking_id, booker_id, item_id, status, start_date, end_date) VALUES (1, 1, 1, 'APPROVED', " +
+                    "'2030-01-01 10:00+00', '2030-01-03 10:00+00')");
+            restartedJdbc.update("INSERT INTO bookings " +
+                    "(booking_id, booker_id, item_id, status, start_date, end_date) VALUES (2, 1, 1, 'WAITING', " +
+                    "'2030-01-02 10:00+00', '2030-01-04 10:00+00')");
+
+            assertThrows(DataIntegrityViolationException.class, () -> restartedJdbc.update(
+                    "UPDATE bookings SET status = 'APPROVED' WHERE booking_id = 2"));
+        }
+    }
+}
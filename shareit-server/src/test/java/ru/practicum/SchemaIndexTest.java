@@ -0,0 +1,137 @@
+package ru.practicum;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.booking.BookingStatus;
+import ru.practicum.booking.storage.JpaBookingRepository;
+import ru.practicum.item.storage.db.JpaCommentRepository;
+import ru.practicum.item.storage.db.JpaItemRepository;
+import ru.practicum.pagination.OffsetPageRequest;
+import ru.practicum.request.storage.JpaItemRequestRepository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Runs the repository queries against the embedded database, then EXPLAINs the SQL Hibernate generated for
+ * them and checks that none of it falls back to a full table scan.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "ru.practicum.SchemaIndexTest$RecordingStatementInspector")
+public class SchemaIndexTest {
+    private static final String TABLE_SCAN = ".tableScan";
+    private static final OffsetPageRequest PAGE = new OffsetPageRequest(0, 20);
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private JpaBookingRepository bookingRepository;
+    @Autowired
+    private JpaItemRepository itemRepository;
+    @Autowired
+    private JpaCommentRepository commentRepository;
+    @Autowired
+    private JpaItemRequestRepository itemRequestRepository;
+
+    @Test
+    void bookingsByBookerShouldUseIndex() {
+        assertUsesIndex(() -> bookingRepository.findAllByBooker(1, PAGE));
+        assertUsesIndex(() -> bookingRepository.findCurrentByBooker(1, NOW, PAGE));
+        assertUsesIndex(() -> bookingRepository.findByBookerAndStatus(1, BookingStatus.WAITING, PAGE));
+        assertUsesIndex(() -> bookingRepository.findAllByBookerBefore(1, NOW, 10, PAGE));
+    }
+
+    @Test
+    void bookingsByOwnerShouldUseIndex() {
+        assertUsesIndex(() -> bookingRepository.findAllByOwner(1, PAGE));
+        assertUsesIndex(() -> bookingRepository.findByOwnerAndStatus(1, BookingStatus.REJECTED, PAGE));
+    }
+
+    @Test
+    void bookingListVersionsShouldUseIndex() {
+        assertUsesIndex(() -> bookingRepository.getBookerBookingsVersion(1, NOW));
+        assertUsesIndex(() -> bookingRepository.getOwnerAllBookingsVersion(1, NOW));
+        assertUsesIndex(() -> bookingRepository.getOwnerBookingsVersion(1, BookingStatus.APPROVED, NOW));
+        assertUsesIndex(() -> itemRepository.getOwnerItemsVersion(1));
+        assertUsesIndex(() -> commentRepository.getOwnerCommentsVersion(1));
+    }
+
+    @Test
+    void nextAndLastBookingsOfItemShouldUseIndex() {
+        assertUsesIndex(() -> bookingRepository.findNextBookings(1, BookingStatus.APPROVED, NOW, PAGE));
+        assertUsesIndex(() -> bookingRepository.findLastBookings(1, BookingStatus.APPROVED, NOW, PAGE));
+        assertUsesIndex(() -> bookingRepository.findLastAndNextBookings(List.of(1, 2, 3),
+                BookingStatus.APPROVED, NOW));
+    }
+
+    @Test
+    void completedBookingOfBookerForItemShouldUseIndex() {
+        assertUsesIndex(() -> bookingRepository.findBookingByItem_IdAndBooker_IdAndEndBeforeAndStatus(1, 2,
+                NOW, BookingStatus.APPROVED));
+    }
+
+    @Test
+    void itemsByOwnerAndRequestShouldUseIndex() {
+        assertUsesIndex(() -> itemRepository.findByOwnerIdOrderByIdAsc(1));
+        assertUsesIndex(() -> itemRepository.findByRequest_Id(1));
+        assertUsesIndex(() -> itemRepository.findByRequest_IdIn(List.of(1, 2, 3)));
+    }
+
+    @Test
+    void commentsByItemShouldUseIndex() {
+        assertUsesIndex(() -> commentRepository.findCommentByItem_Id(1));
+        assertUsesIndex(() -> commentRepository.findCommentByItem_IdIn(List.of(1, 2, 3)));
+    }
+
+    @Test
+    void itemRequestsByRequestorShouldUseIndex() {
+        assertUsesIndex(() -> itemRequestRepository.findItemRequestByRequestor_IdOrderByCreatedDesc(1));
+    }
+
+    private void assertUsesIndex(Runnable query) {
+        RecordingStatementInspector.STATEMENTS.clear();
+        query.run();
+        List<String> statements = new ArrayList<>(RecordingStatementInspector.STATEMENTS);
+        assertFalse(statements.isEmpty(), "No SQL was run");
+        for (String sql : statements) {
+            String plan = explain(sql);
+            assertFalse(plan.contains(TABLE_SCAN), "Full table scan in plan of\n" + sql + "\n" + plan);
+        }
+    }
+
+    /**
+     * Plans the statement as it was sent, with its parameters left unbound.
+     */
+    private String explain(String sql) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql);
+                 ResultSet plan = statement.executeQuery()) {
+                plan.next();
+                return plan.getString(1);
+            }
+        });
+    }
+
+    /**
+     * Hibernate creates the inspector itself, so the statements are collected in a static list.
+     */
+    public static class RecordingStatementInspector implements StatementInspector {
+        private static final List<String> STATEMENTS = new ArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
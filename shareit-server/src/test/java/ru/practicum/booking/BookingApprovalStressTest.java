@@ -0,0 +1,124 @@
+package ru.practicum.booking;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.booking.dto.BookingResearchDto;
+import ru.practicum.booking.service.BookingService;
+import ru.practicum.booking.storage.JpaBookingRepository;
+import ru.practicum.exception.exceptions.BookingOverlapException;
+import ru.practicum.exception.exceptions.ForbiddenAccessChangeStatusException;
+import ru.practicum.item.dto.ItemDto;
+import ru.practicum.item.service.ItemService;
+import ru.practicum.user.dto.UserDto;
+import ru.practicum.user.service.UserService;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class BookingApprovalStressTest {
+    private static final int ITEMS = 2;
+    private static final int BOOKINGS_PER_ITEM = 50;
+    private static final int CALLS_PER_BOOKING = 20;
+    private static final int THREADS = 16;
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private JpaBookingRepository bookingRepository;
+
+    @Test
+    @DirtiesContext
+    void concurrentApprovalsShouldNotOverlapOrLoseUpdates() throws InterruptedException {
+        Random random = new Random(42);
+        UserDto owner = userService.create(new UserDto(null, "Owner", "owner@yandex.ru"));
+        UserDto booker = userService.create(new UserDto(null, "Booker", "booker@yandex.ru"));
+        LocalDateTime base = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(1);
+        List<Integer> bookingIds = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            ItemDto item = itemService.saveItem(new ItemDto(null, "Item " + i, "Desc " + i, true,
+                    null, null, null, null), owner.getId());
+            for (int j = 0; j < BOOKINGS_PER_ITEM; j++) {
+                LocalDateTime start = base.plusHours(random.nextInt(200));
+                LocalDateTime end = start.plusHours(1 + random.nextInt(20));
+                bookingIds.add(bookingService.saveBooking(new BookingResearchDto(null, end, start, item.getId()),
+                        booker.getId()).getId());
+            }
+        }
+        List<Runnable> calls = new ArrayList<>();
+        Map<Integer, List<BookingStatus>> applied = new ConcurrentHashMap<>();
+        List<Throwable> unexpected = new CopyOnWriteArrayList<>();
+        for (Integer bookingId : bookingIds) {
+            for (int k = 0; k < CALLS_PER_BOOKING; k++) {
+                boolean approved = random.nextInt(5) != 0;
+                calls.add(() -> {
+                    try {
+                        BookingStatus status = bookingService.approvedOrRejectBooking(owner.getId(), bookingId,
+                                approved).getStatus();
+                        applied.computeIfAbsent(bookingId, id -> new CopyOnWriteArrayList<>()).add(status);
+                    } catch (BookingOverlapException | ForbiddenAccessChangeStatusException
+                             | OptimisticLockingFailureException e) {
+                        // expected outcome of a conflicting call
+                    } catch (Throwable e) {
+                        unexpected.add(e);
+                    }
+                });
+            }
+        }
+        Collections.shuffle(calls, random);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startGate = new CountDownLatch(1);
+        for (Runnable call : calls) {
+            executor.submit(() -> {
+                startGate.await();
+                call.run();
+                return null;
+            });
+        }
+        startGate.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES));
+
+        assertTrue(unexpected.isEmpty(), () -> "Unexpected failures: " + unexpected);
+        List<Booking> bookings = bookingRepository.findAll();
+        for (Booking booking : bookings) {
+            List<BookingStatus> changes = applied.getOrDefault(booking.getId(), List.of());
+            assertTrue(changes.size() <= 1, "Booking " + booking.getId() + " changed " + changes.size() + " times");
+            BookingStatus expected = changes.isEmpty() ? BookingStatus.WAITING : changes.get(0);
+            assertEquals(expected, booking.getStatus(), "Lost update of booking " + booking.getId());
+        }
+        Map<Integer, List<Booking>> approvedByItem = bookings.stream()
+                .filter(b -> b.getStatus() == BookingStatus.APPROVED)
+                .collect(Collectors.groupingBy(b -> b.getItem().getId()));
+        assertEquals(ITEMS, approvedByItem.size());
+        for (List<Booking> approved : approvedByItem.values()) {
+            approved.sort((a, b) -> a.getStart().compareTo(b.getStart()));
+            for (int i = 1; i < approved.size(); i++) {
+                assertFalse(approved.get(i).getStart().isBefore(approved.get(i - 1).getEnd()),
+                        "Bookings " + approved.get(i - 1).getId() + " and " + approved.get(i).getId() + " overlap");
+            }
+        }
+    }
+}
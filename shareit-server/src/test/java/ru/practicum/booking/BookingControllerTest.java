@@ -5,23 +5,34 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.booking.dto.BookerDto;
+import ru.practicum.booking.dto.BookingCursorPage;
+import ru.practicum.booking.dto.BookingDecisionDto;
+import ru.practicum.booking.dto.BookingDecisionResultDto;
 import ru.practicum.booking.dto.BookingResearchDto;
 import ru.practicum.booking.dto.BookingResponseDto;
 import ru.practicum.booking.dto.ItemBookingResponseDto;
 import ru.practicum.booking.service.BookingService;
+import ru.practicum.exception.exceptions.StateNotFoundException;
 
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.function.Supplier;
 
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -278,6 +289,95 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$.status", is(BookingStatus.APPROVED.toString())));
     }
 
+    @Test
+    void exportBookingsToOwnerShouldStreamCsv() throws Exception {
+        when(service.exportBookingsToOwner(eq(1), eq(BookingExportFormat.CSV), any()))
+                .thenAnswer(invocationOnMock -> {
+                    Supplier<OutputStream> output = invocationOnMock.getArgument(2);
+                    output.get().write("id,start\r\n1,2030-01-01T10:00:00\r\n".getBytes(StandardCharsets.UTF_8));
+                    return 1L;
+                });
+
+        mvc.perform(get("/bookings/owner/export?format=csv")
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv;charset=UTF-8"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"bookings.csv\""))
+                .andExpect(content().string("id,start\r\n1,2030-01-01T10:00:00\r\n"));
+    }
+
+    @Test
+    void exportBookingsToOwnerWithUnknownFormatShouldBeBadRequest() throws Exception {
+        mvc.perform(get("/bookings/owner/export?format=xml")
+                        .header("X-Sharer-User-Id", 1)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.description", is("Unknown format: xml")));
+    }
+
+    @Test
+    void saveBookingsShouldBeOk() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        List<BookingResearchDto> bookingDtos = List.of(new BookingResearchDto(null, start.plusDays(1), start, 1),
+                new BookingResearchDto(null, start.plusDays(2), start.plusDays(1), 2));
+        BookingResponseDto first = new BookingResponseDto();
+        first.setId(1);
+        first.setStatus(BookingStatus.WAITING);
+        BookingResponseDto second = new BookingResponseDto();
+        second.setId(2);
+        second.setStatus(BookingStatus.WAITING);
+
+        when(service.saveBookings(anyList(), anyInt()))
+                .thenReturn(List.of(first, second));
+
+        mvc.perform(post("/bookings/batch")
+                        .content(mapper.writeValueAsString(bookingDtos))
+                        .header("X-Sharer-User-Id", 2)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", is(1), Integer.class))
+                .andExpect(jsonPath("$[1].id", is(2), Integer.class))
+                .andExpect(jsonPath("$[1].status", is(BookingStatus.WAITING.toString())));
+    }
+
+    @Test
+    void approvedOrRejectBookingsShouldBeOk() throws Exception {
+        BookingResponseDto bookingResponseDto = new BookingResponseDto();
+        bookingResponseDto.setId(1);
+        bookingResponseDto.setStatus(BookingStatus.APPROVED);
+        List<BookingDecisionDto> decisions = List.of(new BookingDecisionDto(1, true),
+                new BookingDecisionDto(2, false));
+
+        when(service.approvedOrRejectBookings(2, decisions))
+                .thenReturn(List.of(new BookingDecisionResultDto(1, bookingResponseDto, null),
+                        new BookingDecisionResultDto(2, null, "Booking with id = 2 not found")));
+
+        mvc.perform(patch("/bookings/batch")
+                        .content(mapper.writeValueAsString(decisions))
+                        .header("X-Sharer-User-Id", 2)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].bookingId", is(1), Integer.class))
+                .andExpect(jsonPath("$[0].booking.status", is(BookingStatus.APPROVED.toString())))
+                .andExpect(jsonPath("$[1].bookingId", is(2), Integer.class))
+                .andExpect(jsonPath("$[1].error", is("Booking with id = 2 not found")));
+    }
+
+    @Test
+    void approvedOrRejectBookingsWithInvalidDecisionShouldBeBadRequest() throws Exception {
+        mvc.perform(patch("/bookings/batch")
+                        .content(mapper.writeValueAsString(List.of(new BookingDecisionDto(1, null))))
+                        .header("X-Sharer-User-Id", 2)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void approvedOrRejectBookingIsRejectedShouldBeOk() throws Exception {
         BookingResponseDto bookingResponseDto = new BookingResponseDto();
@@ -753,4 +853,95 @@ public class BookingControllerTest {
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().is5xxServerError());
     }
+
+    @Test
+    void getBookingsToBookerWithCursorShouldReturnNextCursorHeader() throws Exception {
+        BookingResponseDto bookingResponseDto1 = new BookingResponseDto();
+        bookingResponseDto1.setBooker(new BookerDto(1));
+        bookingResponseDto1.setId(1);
+        bookingResponseDto1.setItem(new ItemBookingResponseDto(1, "Item 1"));
+        bookingResponseDto1.setStatus(BookingStatus.APPROVED);
+
+        when(service.getBookingToUserByCursor(anyInt(), anyString(), anyString(), anyInt()))
+                .thenReturn(new BookingCursorPage(List.of(bookingResponseDto1), "next"));
+
+        mvc.perform(get("/bookings?cursor=&size=1")
+                        .header("X-Sharer-User-Id", 1)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(BookingController.NEXT_CURSOR_HEADER, "next"))
+                .andExpect(jsonPath("$.length()", is(1)))
+                .andExpect(jsonPath("$.[0].id", is(bookingResponseDto1.getId()), Integer.class));
+    }
+
+    @Test
+    void getBookingsToOwnerWithCursorOnLastPageShouldNotReturnNextCursorHeader() throws Exception {
+        when(service.getBookingToOwnerByCursor(anyInt(), anyString(), anyString(), anyInt()))
+                .thenReturn(new BookingCursorPage(List.of(), null));
+
+        mvc.perform(get("/bookings/owner?cursor=abc&size=10")
+                        .header("X-Sharer-User-Id", 1)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(BookingController.NEXT_CURSOR_HEADER))
+                .andExpect(jsonPath("$.length()", is(0)));
+    }
+
+    @Test
+    void getBookingsToBookerShouldReturnETag() throws Exception {
+        when(service.getBookingToUserVersion(anyInt(), anyString()))
+                .thenReturn("2-2-3-2-1-0");
+        when(service.getBookingToUser(anyInt(), anyString(), anyInt(), anyInt()))
+                .thenReturn(List.of());
+
+        mvc.perform(get("/bookings")
+                        .header("X-Sharer-User-Id", 1)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2-2-3-2-1-0\""));
+    }
+
+    @Test
+    void getBookingsToBookerWithMatchingETagShouldBeNotModified() throws Exception {
+        when(service.getBookingToUserVersion(anyInt(), anyString()))
+                .thenReturn("2-2-3-2-1-0");
+
+        mvc.perform(get("/bookings")
+                        .header("X-Sharer-User-Id", 1)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"2-2-3-2-1-0\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2-2-3-2-1-0\""))
+                .andExpect(content().string(""));
+        verify(service, never()).getBookingToUser(anyInt(), anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    void getBookingsToOwnerWithMatchingETagShouldBeNotModified() throws Exception {
+        when(service.getBookingToOwnerVersion(anyInt(), anyString()))
+                .thenReturn("2-2-3-2-1-0");
+
+        mvc.perform(get("/bookings/owner")
+                        .header("X-Sharer-User-Id", 1)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"2-2-3-2-1-0\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2-2-3-2-1-0\""))
+                .andExpect(content().string(""));
+        verify(service, never()).getBookingToOwner(anyInt(), anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    void getBookingsToBookerWithUnknownStateShouldFailEvenWithMatchingETag() throws Exception {
+        when(service.getBookingToUserVersion(anyInt(), anyString()))
+                .thenThrow(new StateNotFoundException("Unknown state: UNSUPPORTED_STATUS"));
+
+        mvc.perform(get("/bookings?state=UNSUPPORTED_STATUS")
+                        .header("X-Sharer-User-Id", 1)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"2-2-3-2-1-0\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
 }
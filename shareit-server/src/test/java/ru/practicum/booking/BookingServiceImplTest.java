@@ -5,16 +5,20 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
 import ru.practicum.booking.dto.BookerDto;
+import ru.practicum.booking.dto.BookingCursorPage;
 import ru.practicum.booking.dto.BookingResearchDto;
 import ru.practicum.booking.dto.BookingResponseDto;
 import ru.practicum.booking.dto.ItemBookingResponseDto;
 import ru.practicum.booking.service.BookingService;
 import ru.practicum.booking.service.BookingServiceImpl;
+import ru.practicum.booking.service.ItemBookingCalendar;
 import ru.practicum.booking.storage.JpaBookingRepository;
 import ru.practicum.exception.exceptions.*;
 import ru.practicum.item.Item;
 import ru.practicum.item.service.ItemService;
+import ru.practicum.pagination.OffsetPageRequest;
 import ru.practicum.user.User;
 import ru.practicum.user.UserMapperImpl;
 import ru.practicum.user.dto.UserDto;
@@ -39,11 +43,13 @@ public class BookingServiceImplTest {
     UserService userService;
     @Mock
     ItemService itemService;
+    @Mock
+    ItemBookingCalendar itemBookingCalendar;
 
     @BeforeEach
     void set() {
         bookingService = new BookingServiceImpl(bookingRepository, userService,
-                itemService, new BookingMapperImpl(), new UserMapperImpl());
+                itemService, new BookingMapperImpl(), new UserMapperImpl(), itemBookingCalendar);
     }
 
     @Test
@@ -298,7 +304,7 @@ public class BookingServiceImplTest {
 
         when(userService.getData(anyInt())).thenReturn(user2Dto);
         when(bookingRepository.findById(anyInt())).thenReturn(Optional.of(booking));
-        when(bookingRepository.save(any(Booking.class))).thenReturn(bookingApproved);
+        when(bookingRepository.saveAndFlush(any(Booking.class))).thenReturn(bookingApproved);
         BookingResponseDto bookingExpected = new BookingResponseDto(1,
                 DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(booking.getEnd()),
                 DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(booking.getStart()), itemBookingResponseDto, bookerDto,
@@ -314,7 +320,7 @@ public class BookingServiceImplTest {
         assertEquals(bookingExpected.getBooker(), bookingActual.getBooker());
         assertEquals(bookingExpected.getBooker().getId(), bookingActual.getBooker().getId());
         assertEquals(bookingExpected.getStatus(), bookingActual.getStatus());
-        verify(bookingRepository, atLeast(1)).save(any(Booking.class));
+        verify(bookingRepository, atLeast(1)).saveAndFlush(any(Booking.class));
     }
 
     @Test
@@ -335,7 +341,7 @@ public class BookingServiceImplTest {
 
         when(userService.getData(anyInt())).thenReturn(user2Dto);
         when(bookingRepository.findById(anyInt())).thenReturn(Optional.of(booking));
-        when(bookingRepository.save(any(Booking.class))).thenReturn(bookingRejected);
+        when(bookingRepository.saveAndFlush(any(Booking.class))).thenReturn(bookingRejected);
         BookingResponseDto bookingExpected = new BookingResponseDto(1,
                 DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(booking.getEnd()),
                 DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(booking.getStart()), itemBookingResponseDto, bookerDto,
@@ -351,7 +357,7 @@ public class BookingServiceImplTest {
         assertEquals(bookingExpected.getBooker(), bookingActual.getBooker());
         assertEquals(bookingExpected.getBooker().getId(), bookingActual.getBooker().getId());
         assertEquals(bookingExpected.getStatus(), bookingActual.getStatus());
-        verify(bookingRepository, atLeast(1)).save(any(Booking.class));
+        verify(bookingRepository, atLeast(1)).saveAndFlush(any(Booking.class));
     }
 
     @Test
@@ -502,6 +508,28 @@ public class BookingServiceImplTest {
         assertEquals("Unknown state: " + state, ex.getMessage());
     }
 
+    @Test
+    void getBookingToUserVersionShouldThrowStateNotFoundExceptionWithUnknownState() {
+        when(userService.getData(anyInt())).thenReturn(new UserDto(1, "User 1", "user1@yandex.ru"));
+
+        StateNotFoundException ex = assertThrows(StateNotFoundException.class,
+                () -> bookingService.getBookingToUserVersion(1, "STATE"));
+
+        assertEquals("Unknown state: STATE", ex.getMessage());
+        verify(bookingRepository, never()).getBookerBookingsVersion(anyInt(), any());
+    }
+
+    @Test
+    void getBookingToOwnerVersionShouldThrowStateNotFoundExceptionWithUnknownState() {
+        when(userService.getData(anyInt())).thenReturn(new UserDto(1, "User 1", "user1@yandex.ru"));
+
+        StateNotFoundException ex = assertThrows(StateNotFoundException.class,
+                () -> bookingService.getBookingToOwnerVersion(1, "STATE"));
+
+        assertEquals("Unknown state: STATE", ex.getMessage());
+        verify(bookingRepository, never()).getOwnerAllBookingsVersion(anyInt(), any());
+    }
+
     @Test
     void getBookingToUserShouldBeOkWithStateALL() {
         Integer userId = 1;
@@ -511,10 +539,10 @@ public class BookingServiceImplTest {
         UserDto user1 = new UserDto(1, "User 1", "user1@yandex.ru");
 
         when(userService.getData(anyInt())).thenReturn(user1);
-        when(bookingRepository.findBookingByBooker_IdOrderByStartDesc(anyInt())).thenReturn(new ArrayList<>());
+        when(bookingRepository.findAllByBooker(anyInt(), any(Pageable.class))).thenReturn(new ArrayList<>());
         List<BookingResponseDto> bookingsResponse = bookingService.getBookingToUser(userId, state, from, size);
 
-        verify(bookingRepository, atLeast(1)).findBookingByBooker_IdOrderByStartDesc(anyInt());
+        verify(bookingRepository, atLeast(1)).findAllByBooker(anyInt(), any(Pageable.class));
         assertEquals(0, bookingsResponse.size());
     }
 
@@ -527,10 +555,12 @@ public class BookingServiceImplTest {
         UserDto user1 = new UserDto(1, "User 1", "user1@yandex.ru");
 
         when(userService.getData(anyInt())).thenReturn(user1);
-        when(bookingRepository.findBookingByBooker_IdOrderByStartDesc(anyInt())).thenReturn(new ArrayList<>());
+        when(bookingRepository.findCurrentByBooker(anyInt(), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(new ArrayList<>());
         List<BookingResponseDto> bookingsResponse = bookingService.getBookingToUser(userId, state, from, size);
 
-        verify(bookingRepository, atLeast(1)).findBookingByBooker_IdOrderByStartDesc(anyInt());
+        verify(bookingRepository, atLeast(1)).findCurrentByBooker(anyInt(),
+                any(LocalDateTime.class), any(Pageable.class));
         assertEquals(0, bookingsResponse.size());
     }
 
@@ -543,10 +573,11 @@ public class BookingServiceImplTest {
         UserDto user1 = new UserDto(1, "User 1", "user1@yandex.ru");
 
         when(userService.getData(anyInt())).thenReturn(user1);
-        when(bookingRepository.findBookingByBooker_IdOrderByStartDesc(anyInt())).thenReturn(new ArrayList<>());
+        when(bookingRepository.findPastByBooker(anyInt(), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(new ArrayList<>());
         List<BookingResponseDto> bookingsResponse = bookingService.getBookingToUser(userId, state, from, size);
 
-        verify(bookingRepository, atLeast(1)).findBookingByBooker_IdOrderByStartDesc(anyInt());
+        verify(bookingRepository, atLeast(1)).findPastByBooker(anyInt(), any(LocalDateTime.class), any(Pageable.class));
         assertEquals(0, bookingsResponse.size());
     }
 
@@ -559,10 +590,12 @@ public class BookingServiceImplTest {
         UserDto user1 = new UserDto(1, "User 1", "user1@yandex.ru");
 
         when(userService.getData(anyInt())).thenReturn(user1);
-        when(bookingRepository.findBookingByBooker_IdOrderByStartDesc(anyInt())).thenReturn(new ArrayList<>());
+        when(bookingRepository.findFutureByBooker(anyInt(), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(new ArrayList<>());
         List<BookingResponseDto> bookingsResponse = bookingService.getBookingToUser(userId, state, from, size);
 
-        verify(bookingRepository, atLeast(1)).findBookingByBooker_IdOrderByStartDesc(anyInt());
+        verify(bookingRepository, atLeast(1)).findFutureByBooker(anyInt(),
+                any(LocalDateTime.class), any(Pageable.class));
         assertEquals(0, bookingsResponse.size());
     }
 
@@ -575,12 +608,12 @@ public class BookingServiceImplTest {
         UserDto user1 = new UserDto(1, "User 1", "user1@yandex.ru");
 
         when(userService.getData(anyInt())).thenReturn(user1);
-        when(bookingRepository.findBookingByBooker_IdAndStatus(anyInt(), any(BookingStatus.class)))
+        when(bookingRepository.findByBookerAndStatus(anyInt(), any(BookingStatus.class), any(Pageable.class)))
                 .thenReturn(new ArrayList<>());
         List<BookingResponseDto> bookingsResponse = bookingService.getBookingToUser(userId, state, from, size);
 
-        verify(bookingRepository, atLeast(1)).findBookingByBooker_IdAndStatus(anyInt(),
-                any(BookingStatus.class));
+        verify(bookingRepository, atLeast(1)).findByBookerAndStatus(anyInt(),
+                any(BookingStatus.class), any(Pageable.class));
         assertEquals(0, bookingsResponse.size());
     }
 
@@ -593,12 +626,12 @@ public class BookingServiceImplTest {
         UserDto user1 = new UserDto(1, "User 1", "user1@yandex.ru");
 
         when(userService.getData(anyInt())).thenReturn(user1);
-        when(bookingRepository.findBookingByBooker_IdAndStatus(anyInt(), any(BookingStatus.class)))
+        when(bookingRepository.findByBookerAndStatus(anyInt(), any(BookingStatus.class), any(Pageable.class)))
                 .thenReturn(new ArrayList<>());
         List<BookingResponseDto> bookingsResponse = bookingService.getBookingToUser(userId, state, from, size);
 
-        verify(bookingRepository, atLeast(1)).findBookingByBooker_IdAndStatus(anyInt(),
-                any(BookingStatus.class));
+        verify(bookingRepository, atLeast(1)).findByBookerAndStatus(anyInt(),
+                any(BookingStatus.class), any(Pageable.class));
         assertEquals(0, bookingsResponse.size());
     }
 
@@ -644,10 +677,10 @@ public class BookingServiceImplTest {
         UserDto user1 = new UserDto(1, "User 1", "user1@yandex.ru");
 
         when(userService.getData(anyInt())).thenReturn(user1);
-        when(bookingRepository.findBookingByItem_Owner_IdOrderByStartDesc(anyInt())).thenReturn(new ArrayList<>());
+        when(bookingRepository.findAllByOwner(anyInt(), any(Pageable.class))).thenReturn(new ArrayList<>());
         List<BookingResponseDto> bookingsResponse = bookingService.getBookingToOwner(userId, state, from, size);
 
-        verify(bookingRepository, atLeast(1)).findBookingByItem_Owner_IdOrderByStartDesc(anyInt());
+        verify(bookingRepository, atLeast(1)).findAllByOwner(anyInt(), any(Pageable.class));
         assertEquals(0, bookingsResponse.size());
     }
 
@@ -660,10 +693,12 @@ public class BookingServiceImplTest {
         UserDto user1 = new UserDto(1, "User 1", "user1@yandex.ru");
 
         when(userService.getData(anyInt())).thenReturn(user1);
-        when(bookingRepository.findBookingByItem_Owner_IdOrderByStartDesc(anyInt())).thenReturn(new ArrayList<>());
+        when(bookingRepository.findCurrentByOwner(anyInt(), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(new ArrayList<>());
         List<BookingResponseDto> bookingsResponse = bookingService.getBookingToOwner(userId, state, from, size);
 
-        verify(bookingRepository, atLeast(1)).findBookingByItem_Owner_IdOrderByStartDesc(anyInt());
+        verify(bookingRepository, atLeast(1)).findCurrentByOwner(anyInt(),
+                any(LocalDateTime.class), any(Pageable.class));
         assertEquals(0, bookingsResponse.size());
     }
 
@@ -676,10 +711,11 @@ public class BookingServiceImplTest {
         UserDto user1 = new UserDto(1, "User 1", "user1@yandex.ru");
 
         when(userService.getData(anyInt())).thenReturn(user1);
-        when(bookingRepository.findBookingByItem_Owner_IdOrderByStartDesc(anyInt())).thenReturn(new ArrayList<>());
+        when(bookingRepository.findPastByOwner(anyInt(), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(new ArrayList<>());
         List<BookingResponseDto> bookingsResponse = bookingService.getBookingToOwner(userId, state, from, size);
 
-        verify(bookingRepository, atLeast(1)).findBookingByItem_Owner_IdOrderByStartDesc(anyInt());
+        verify(bookingRepository, atLeast(1)).findPastByOwner(anyInt(), any(LocalDateTime.class), any(Pageable.class));
         assertEquals(0, bookingsResponse.size());
     }
 
@@ -692,10 +728,12 @@ public class BookingServiceImplTest {
         UserDto user1 = new UserDto(1, "User 1", "user1@yandex.ru");
 
         when(userService.getData(anyInt())).thenReturn(user1);
-        when(bookingRepository.findBookingByItem_Owner_IdOrderByStartDesc(anyInt())).thenReturn(new ArrayList<>());
+        when(bookingRepository.findFutureByOwner(anyInt(), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(new ArrayList<>());
         List<BookingResponseDto> bookingsResponse = bookingService.getBookingToOwner(userId, state, from, size);
 
-        verify(bookingRepository, atLeast(1)).findBookingByItem_Owner_IdOrderByStartDesc(anyInt());
+        verify(bookingRepository, atLeast(1)).findFutureByOwner(anyInt(),
+                any(LocalDateTime.class), any(Pageable.class));
         assertEquals(0, bookingsResponse.size());
     }
 
@@ -708,12 +746,12 @@ public class BookingServiceImplTest {
         UserDto user1 = new UserDto(1, "User 1", "user1@yandex.ru");
 
         when(userService.getData(anyInt())).thenReturn(user1);
-        when(bookingRepository.findBookingByItem_Owner_IdAndStatus(anyInt(), any(BookingStatus.class)))
+        when(bookingRepository.findByOwnerAndStatus(anyInt(), any(BookingStatus.class), any(Pageable.class)))
                 .thenReturn(new ArrayList<>());
         List<BookingResponseDto> bookingsResponse = bookingService.getBookingToOwner(userId, state, from, size);
 
-        verify(bookingRepository, atLeast(1)).findBookingByItem_Owner_IdAndStatus(anyInt(),
-                any(BookingStatus.class));
+        verify(bookingRepository, atLeast(1)).findByOwnerAndStatus(anyInt(),
+                any(BookingStatus.class), any(Pageable.class));
         assertEquals(0, bookingsResponse.size());
     }
 
@@ -726,12 +764,57 @@ public class BookingServiceImplTest {
         UserDto user1 = new UserDto(1, "User 1", "user1@yandex.ru");
 
         when(userService.getData(anyInt())).thenReturn(user1);
-        when(bookingRepository.findBookingByItem_Owner_IdAndStatus(anyInt(), any(BookingStatus.class)))
+        when(bookingRepository.findByOwnerAndStatus(anyInt(), any(BookingStatus.class), any(Pageable.class)))
                 .thenReturn(new ArrayList<>());
         List<BookingResponseDto> bookingsResponse = bookingService.getBookingToOwner(userId, state, from, size);
 
-        verify(bookingRepository, atLeast(1)).findBookingByItem_Owner_IdAndStatus(anyInt(),
-                any(BookingStatus.class));
+        verify(bookingRepository, atLeast(1)).findByOwnerAndStatus(anyInt(),
+                any(BookingStatus.class), any(Pageable.class));
         assertEquals(0, bookingsResponse.size());
     }
+
+    @Test
+    void getBookingToUserByCursorShouldReturnNextCursorWhenPageIsFull() {
+        UserDto user1Dto = new UserDto(1, "User 1", "user1@yandex.ru");
+        User user1 = new User(1, "User 1", "user1@yandex.ru");
+        User user2 = new User(2, "User 2", "user2@yandex.ru");
+        Item item1 = new Item(1, "Item 1", "Desc 1", true, user2, null);
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        Booking booking = new Booking(7, start, start.plusDays(1), item1, user1, BookingStatus.WAITING);
+
+        when(userService.getData(anyInt())).thenReturn(user1Dto);
+        when(bookingRepository.findAllByBookerBefore(anyInt(), any(LocalDateTime.class), anyInt(),
+                any(Pageable.class))).thenReturn(List.of(booking));
+        BookingCursorPage page = bookingService.getBookingToUserByCursor(1, "ALL",
+                new BookingCursor(start.plusDays(5), 9).encode(), 1);
+
+        verify(bookingRepository).findAllByBookerBefore(1, start.plusDays(5), 9, new OffsetPageRequest(0, 1));
+        assertEquals(1, page.getBookings().size());
+        assertEquals(new BookingCursor(start, 7), BookingCursor.decode(page.getNextCursor()));
+    }
+
+    @Test
+    void getBookingToOwnerByCursorShouldNotReturnNextCursorOnLastPage() {
+        UserDto user1Dto = new UserDto(1, "User 1", "user1@yandex.ru");
+
+        when(userService.getData(anyInt())).thenReturn(user1Dto);
+        when(bookingRepository.findByOwnerAndStatus(anyInt(), any(BookingStatus.class), any(Pageable.class)))
+                .thenReturn(new ArrayList<>());
+        BookingCursorPage page = bookingService.getBookingToOwnerByCursor(1, "WAITING", "", 20);
+
+        assertEquals(0, page.getBookings().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getBookingToOwnerByCursorShouldThrowInvalidCursorException() {
+        UserDto user1Dto = new UserDto(1, "User 1", "user1@yandex.ru");
+
+        when(userService.getData(anyInt())).thenReturn(user1Dto);
+
+        InvalidCursorException ex = assertThrows(InvalidCursorException.class,
+                () -> bookingService.getBookingToOwnerByCursor(1, "ALL", "not a cursor", 20));
+
+        assertEquals("Invalid cursor: not a cursor", ex.getMessage());
+    }
 }
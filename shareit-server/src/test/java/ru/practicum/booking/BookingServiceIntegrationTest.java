@@ -5,21 +5,30 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.DirtiesContext;
 import ru.practicum.booking.dto.BookerDto;
+import ru.practicum.booking.dto.BookingDecisionDto;
+import ru.practicum.booking.dto.BookingDecisionResultDto;
 import ru.practicum.booking.dto.BookingResearchDto;
 import ru.practicum.booking.dto.BookingResponseDto;
 import ru.practicum.booking.dto.ItemBookingResponseDto;
 import ru.practicum.booking.service.BookingService;
+import ru.practicum.exception.exceptions.BookingDateException;
+import ru.practicum.exception.exceptions.BookingOverlapException;
+import ru.practicum.exception.exceptions.DataNotFoundException;
 import ru.practicum.exception.exceptions.ForbiddenAccessException;
 import ru.practicum.item.dto.ItemDto;
 import ru.practicum.item.service.ItemService;
 import ru.practicum.user.dto.UserDto;
 import ru.practicum.user.service.UserService;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -52,6 +61,58 @@ public class BookingServiceIntegrationTest {
                 "with id = " + itemId, ex.getMessage());
     }
 
+    @Test
+    @DirtiesContext
+    void getBookingToUserVersionShouldChangeWithBookingsAndTheirItems() {
+        Integer itemId = 1;
+        UserDto user1 = userService.create(new UserDto(null, "User 1", "user1@yandex.ru"));
+        UserDto user2 = userService.create(new UserDto(null, "User 2", "user2@yandex.ru"));
+        itemService.saveItem(new ItemDto(null, "Item 1", "Desc 1", true,
+                null, null, new ArrayList<>(), null), user1.getId());
+        List<String> versions = new ArrayList<>();
+        versions.add(bookingService.getBookingToUserVersion(user2.getId(), "ALL"));
+
+        BookingResponseDto booking = bookingService.saveBooking(new BookingResearchDto(null,
+                LocalDateTime.now().plusDays(10), LocalDateTime.now().plusDays(1), itemId), user2.getId());
+        versions.add(bookingService.getBookingToUserVersion(user2.getId(), "ALL"));
+
+        assertEquals(versions.get(1), bookingService.getBookingToUserVersion(user2.getId(), "ALL"));
+
+        bookingService.approvedOrRejectBooking(user1.getId(), booking.getId(), true);
+        versions.add(bookingService.getBookingToUserVersion(user2.getId(), "ALL"));
+        itemService.updateItem(new ItemDto(null, "New item 1", null, null,
+                null, null, null, null), user1.getId(), itemId);
+        versions.add(bookingService.getBookingToUserVersion(user2.getId(), "ALL"));
+
+        assertEquals(versions.size(), versions.stream().distinct().count());
+    }
+
+    @Test
+    @DirtiesContext
+    void getBookingToOwnerVersionShouldChangeWithBookingsAndTheirItems() {
+        Integer itemId = 1;
+        UserDto user1 = userService.create(new UserDto(null, "User 1", "user1@yandex.ru"));
+        UserDto user2 = userService.create(new UserDto(null, "User 2", "user2@yandex.ru"));
+        itemService.saveItem(new ItemDto(null, "Item 1", "Desc 1", true,
+                null, null, new ArrayList<>(), null), user1.getId());
+        List<String> versions = new ArrayList<>();
+        versions.add(bookingService.getBookingToOwnerVersion(user1.getId(), "ALL"));
+
+        BookingResponseDto booking = bookingService.saveBooking(new BookingResearchDto(null,
+                LocalDateTime.now().plusDays(10), LocalDateTime.now().plusDays(1), itemId), user2.getId());
+        versions.add(bookingService.getBookingToOwnerVersion(user1.getId(), "ALL"));
+
+        assertEquals(versions.get(1), bookingService.getBookingToOwnerVersion(user1.getId(), "WAITING"));
+
+        bookingService.approvedOrRejectBooking(user1.getId(), booking.getId(), true);
+        versions.add(bookingService.getBookingToOwnerVersion(user1.getId(), "ALL"));
+        itemService.updateItem(new ItemDto(null, "New item 1", null, null,
+                null, null, null, null), user1.getId(), itemId);
+        versions.add(bookingService.getBookingToOwnerVersion(user1.getId(), "ALL"));
+
+        assertEquals(versions.size(), versions.stream().distinct().count());
+    }
+
     @Test
     @DirtiesContext
     void saveBookingShouldBeOk() {
@@ -138,6 +199,150 @@ public class BookingServiceIntegrationTest {
         assertEquals(bookingExpected.getStatus(), bookingActual.getStatus());
     }
 
+    @Test
+    @DirtiesContext
+    void approvedOrRejectBookingShouldRejectOverlapWithApprovedBooking() {
+        Integer itemId = 1;
+        UserDto user1 = userService.create(new UserDto(null, "User 1", "user1@yandex.ru"));
+        UserDto user2 = userService.create(new UserDto(null, "User 2", "user2@yandex.ru"));
+        itemService.saveItem(new ItemDto(null, "Item 1", "Desc 1", true,
+                null, null, new ArrayList<>(), null), user1.getId());
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(1);
+        bookingService.saveBooking(new BookingResearchDto(null, start.plusDays(5), start, itemId), user2.getId());
+        bookingService.saveBooking(new BookingResearchDto(null, start.plusDays(6), start.plusDays(4), itemId),
+                user2.getId());
+        bookingService.saveBooking(new BookingResearchDto(null, start.plusDays(7), start.plusDays(5), itemId),
+                user2.getId());
+        bookingService.saveBooking(new BookingResearchDto(null, start.plusDays(1), start.minusHours(1), itemId),
+                user2.getId());
+
+        bookingService.approvedOrRejectBooking(user1.getId(), 1, true);
+        BookingOverlapException ex = assertThrows(BookingOverlapException.class,
+                () -> bookingService.approvedOrRejectBooking(user1.getId(), 2, true));
+
+        assertEquals("Booking with id = 2 overlaps approved booking with id = 1", ex.getMessage());
+        assertThrows(BookingOverlapException.class,
+                () -> bookingService.approvedOrRejectBooking(user1.getId(), 4, true));
+        assertEquals(BookingStatus.APPROVED, bookingService.approvedOrRejectBooking(user1.getId(), 3, true)
+                .getStatus());
+        assertEquals(BookingStatus.REJECTED, bookingService.approvedOrRejectBooking(user1.getId(), 2, false)
+                .getStatus());
+    }
+
+    @Test
+    @DirtiesContext
+    void exportBookingsToOwnerShouldWriteAllRows() throws IOException {
+        UserDto user1 = userService.create(new UserDto(null, "User 1", "user1@yandex.ru"));
+        UserDto user2 = userService.create(new UserDto(null, "User 2", "user2@yandex.ru"));
+        itemService.saveItem(new ItemDto(null, "Drill, \"large\"", "Desc 1", true,
+                null, null, new ArrayList<>(), null), user1.getId());
+        itemService.saveItem(new ItemDto(null, "Item 2", "Desc 2", true,
+                null, null, new ArrayList<>(), null), user2.getId());
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(1);
+        bookingService.saveBooking(new BookingResearchDto(null, start.plusDays(1), start, 1), user2.getId());
+        bookingService.saveBooking(new BookingResearchDto(null, start.plusDays(3), start.plusDays(2), 1),
+                user2.getId());
+        bookingService.saveBooking(new BookingResearchDto(null, start.plusDays(1), start, 2), user1.getId());
+        bookingService.approvedOrRejectBooking(user1.getId(), 1, true);
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+
+        assertEquals(2, bookingService.exportBookingsToOwner(user1.getId(), BookingExportFormat.NDJSON,
+                () -> ndjson));
+        assertEquals(2, bookingService.exportBookingsToOwner(user1.getId(), BookingExportFormat.CSV, () -> csv));
+
+        String firstStart = DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(start);
+        String firstEnd = DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(start.plusDays(1));
+        String secondStart = DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(start.plusDays(2));
+        String secondEnd = DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(start.plusDays(3));
+        String item = "\"itemId\":1,\"itemName\":\"Drill, \\\"large\\\"\",\"bookerId\":2}\n";
+        assertEquals("{\"id\":2,\"start\":\"" + secondStart + "\",\"end\":\"" + secondEnd + "\","
+                        + "\"status\":\"WAITING\"," + item
+                        + "{\"id\":1,\"start\":\"" + firstStart + "\",\"end\":\"" + firstEnd + "\","
+                        + "\"status\":\"APPROVED\"," + item,
+                ndjson.toString(StandardCharsets.UTF_8));
+        String[] lines = csv.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(3, lines.length);
+        assertEquals("id,start,end,status,item_id,item_name,booker_id", lines[0]);
+        assertEquals("1," + firstStart + "," + firstEnd + ",APPROVED,1,\"Drill, \"\"large\"\"\",2", lines[2]);
+        assertThrows(DataNotFoundException.class, () -> bookingService.exportBookingsToOwner(99,
+                BookingExportFormat.CSV, () -> csv));
+    }
+
+    @Test
+    @DirtiesContext
+    void saveBookingsShouldSaveAllOrNothing() {
+        UserDto user1 = userService.create(new UserDto(null, "User 1", "user1@yandex.ru"));
+        UserDto user2 = userService.create(new UserDto(null, "User 2", "user2@yandex.ru"));
+        itemService.saveItem(new ItemDto(null, "Item 1", "Desc 1", true,
+                null, null, new ArrayList<>(), null), user1.getId());
+        itemService.saveItem(new ItemDto(null, "Item 2", "Desc 2", true,
+                null, null, new ArrayList<>(), null), user1.getId());
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(1);
+
+        List<BookingResponseDto> bookings = bookingService.saveBookings(List.of(
+                new BookingResearchDto(null, start.plusDays(1), start, 1),
+                new BookingResearchDto(null, start.plusDays(2), start.plusDays(1), 2),
+                new BookingResearchDto(null, start.plusDays(3), start.plusDays(2), 1)), user2.getId());
+
+        assertEquals(List.of(1, 2, 3), bookings.stream().map(BookingResponseDto::getId)
+                .collect(Collectors.toList()));
+        assertEquals(BookingStatus.WAITING, bookings.get(2).getStatus());
+        assertEquals(2, bookings.get(1).getItem().getId());
+
+        BookingDateException ex = assertThrows(BookingDateException.class,
+                () -> bookingService.saveBookings(List.of(
+                        new BookingResearchDto(null, start.plusDays(5), start.plusDays(4), 1),
+                        new BookingResearchDto(null, start, start.plusDays(1), 2)), user2.getId()));
+
+        assertEquals("The end date of booking is earlier or equal than to the start date", ex.getMessage());
+        assertEquals(3, bookingService.getBookingToUser(user2.getId(), "ALL", 0, 10).size());
+        assertThrows(DataNotFoundException.class, () -> bookingService.saveBookings(List.of(
+                new BookingResearchDto(null, start.plusDays(1), start, 9)), user2.getId()));
+    }
+
+    @Test
+    @DirtiesContext
+    void approvedOrRejectBookingsShouldReportEachDecision() {
+        Integer itemId = 1;
+        UserDto user1 = userService.create(new UserDto(null, "User 1", "user1@yandex.ru"));
+        UserDto user2 = userService.create(new UserDto(null, "User 2", "user2@yandex.ru"));
+        itemService.saveItem(new ItemDto(null, "Item 1", "Desc 1", true,
+                null, null, new ArrayList<>(), null), user1.getId());
+        itemService.saveItem(new ItemDto(null, "Item 2", "Desc 2", true,
+                null, null, new ArrayList<>(), null), user2.getId());
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(1);
+        bookingService.saveBooking(new BookingResearchDto(null, start.plusDays(5), start, itemId), user2.getId());
+        bookingService.saveBooking(new BookingResearchDto(null, start.plusDays(6), start.plusDays(4), itemId),
+                user2.getId());
+        bookingService.saveBooking(new BookingResearchDto(null, start.plusDays(9), start.plusDays(8), itemId),
+                user2.getId());
+        bookingService.saveBooking(new BookingResearchDto(null, start.plusDays(1), start, 2), user1.getId());
+
+        List<BookingDecisionResultDto> results = bookingService.approvedOrRejectBookings(user1.getId(), List.of(
+                new BookingDecisionDto(1, true),
+                new BookingDecisionDto(2, true),
+                new BookingDecisionDto(3, false),
+                new BookingDecisionDto(4, true),
+                new BookingDecisionDto(99, true),
+                new BookingDecisionDto(1, false)));
+
+        assertEquals(6, results.size());
+        assertEquals(BookingStatus.APPROVED, results.get(0).getBooking().getStatus());
+        assertNull(results.get(0).getError());
+        assertEquals("Booking with id = 2 overlaps approved booking with id = 1", results.get(1).getError());
+        assertNull(results.get(1).getBooking());
+        assertEquals(BookingStatus.REJECTED, results.get(2).getBooking().getStatus());
+        assertEquals("User with id = " + user1.getId() + " is not the owner of item with id = 2",
+                results.get(3).getError());
+        assertEquals("Booking with id = 99 not found", results.get(4).getError());
+        assertEquals("Not access to status change", results.get(5).getError());
+        assertEquals(BookingStatus.APPROVED, bookingService.getBooking(user1.getId(), 1).getStatus());
+        assertEquals(BookingStatus.WAITING, bookingService.getBooking(user1.getId(), 2).getStatus());
+        assertEquals(BookingStatus.REJECTED, bookingService.getBooking(user1.getId(), 3).getStatus());
+        assertEquals(BookingStatus.WAITING, bookingService.getBooking(user2.getId(), 4).getStatus());
+    }
+
     @Test
     @DirtiesContext
     void getBookingShouldThrowsForbiddenAccessException() {
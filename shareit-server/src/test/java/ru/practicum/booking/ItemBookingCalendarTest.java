@@ -0,0 +1,112 @@
+package ru.practicum.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.booking.dto.BookingItemView;
+import ru.practicum.booking.service.ItemBookingCalendar;
+import ru.practicum.booking.storage.JpaBookingRepository;
+import ru.practicum.item.dto.ItemAvailabilityDto;
+import ru.practicum.item.dto.TimeIntervalDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemBookingCalendarTest {
+    private static final LocalDateTime DAY = LocalDateTime.of(2030, 1, 1, 0, 0);
+    private ItemBookingCalendar calendar;
+    @Mock
+    private JpaBookingRepository bookingRepository;
+
+    @BeforeEach
+    void setUp() {
+        calendar = new ItemBookingCalendar(bookingRepository, 100);
+    }
+
+    @Test
+    void getAvailabilityShouldMergeBookingsAndReturnGaps() {
+        when(bookingRepository.findItemBookings(anyInt(), any())).thenReturn(List.of(
+                view(1, 2, 5), view(2, 4, 8), view(3, 8, 10), view(4, 14, 16), view(5, 20, 30)));
+
+        ItemAvailabilityDto availability = calendar.getAvailability(1, DAY.plusHours(3), DAY.plusHours(24));
+
+        assertEquals(List.of(interval(3, 10), interval(14, 16), interval(20, 24)), availability.getBusy());
+        assertEquals(List.of(interval(10, 14), interval(16, 20)), availability.getFree());
+        assertEquals(1, availability.getItemId());
+    }
+
+    @Test
+    void getAvailabilityShouldBeFreeWithoutBookings() {
+        when(bookingRepository.findItemBookings(anyInt(), any())).thenReturn(new ArrayList<>());
+
+        ItemAvailabilityDto availability = calendar.getAvailability(1, DAY, DAY.plusHours(5));
+
+        assertEquals(List.of(), availability.getBusy());
+        assertEquals(List.of(interval(0, 5)), availability.getFree());
+    }
+
+    @Test
+    void getAvailabilityShouldBeBusyInsideLongBooking() {
+        when(bookingRepository.findItemBookings(anyInt(), any())).thenReturn(List.of(view(1, 0, 48)));
+
+        ItemAvailabilityDto availability = calendar.getAvailability(1, DAY.plusHours(5), DAY.plusHours(6));
+
+        assertEquals(List.of(interval(5, 6)), availability.getBusy());
+        assertEquals(List.of(), availability.getFree());
+    }
+
+    @Test
+    void getAvailabilityShouldLoadItemOnceUntilRefreshed() {
+        when(bookingRepository.findItemBookings(anyInt(), any())).thenReturn(List.of(view(1, 2, 5)));
+
+        calendar.getAvailability(1, DAY, DAY.plusHours(10));
+        calendar.getAvailability(1, DAY, DAY.plusHours(10));
+        verify(bookingRepository, times(1)).findItemBookings(anyInt(), any());
+
+        calendar.refreshAfterCommit(1);
+        calendar.getAvailability(1, DAY, DAY.plusHours(10));
+        verify(bookingRepository, times(2)).findItemBookings(anyInt(), any());
+    }
+
+    private static TimeIntervalDto interval(int startHour, int endHour) {
+        return new TimeIntervalDto(DAY.plusHours(startHour), DAY.plusHours(endHour));
+    }
+
+    private static BookingItemView view(Integer id, int startHour, int endHour) {
+        return new BookingItemView() {
+            @Override
+            public Integer getItemId() {
+                return 1;
+            }
+
+            @Override
+            public Integer getId() {
+                return id;
+            }
+
+            @Override
+            public Integer getBookerId() {
+                return 2;
+            }
+
+            @Override
+            public LocalDateTime getStart() {
+                return DAY.plusHours(startHour);
+            }
+
+            @Override
+            public LocalDateTime getEnd() {
+                return DAY.plusHours(endHour);
+            }
+        };
+    }
+}
@@ -4,14 +4,18 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.booking.dto.BookingItemView;
 import ru.practicum.booking.storage.JpaBookingRepository;
 import ru.practicum.item.Item;
 import ru.practicum.item.storage.db.JpaItemRepository;
+import ru.practicum.pagination.OffsetPageRequest;
 import ru.practicum.user.User;
 import ru.practicum.user.storage.db.JpaUserRepository;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -27,7 +31,7 @@ public class JpaBookingRepositoryTest {
 
     @Test
     @DirtiesContext
-    void findBookingByBooker_IdAndStatusWithTwoRequestShouldBeOk() {
+    void findByBookerAndStatusWithTwoRequestShouldBeOk() {
         User user1 = new User(null, "User 1", "user1@yandex.ru");
         User user2 = new User(null, "User 2", "user2@yandex.ru");
         User saveUser1 = userRepository.save(user1);
@@ -47,8 +51,8 @@ public class JpaBookingRepositoryTest {
         Booking booking1Save = bookingRepository.save(booking1);
         Booking booking2Save = bookingRepository.save(booking2);
 
-        List<Booking> bookingActual = bookingRepository.findBookingByBooker_IdAndStatus(saveUser2.getId(),
-                BookingStatus.APPROVED);
+        List<Booking> bookingActual = bookingRepository.findByBookerAndStatus(saveUser2.getId(),
+                BookingStatus.APPROVED, new OffsetPageRequest(0, 10));
 
         assertEquals(2, bookingActual.size());
         assertTrue(bookingActual.contains(booking1Save));
@@ -57,7 +61,7 @@ public class JpaBookingRepositoryTest {
 
     @Test
     @DirtiesContext
-    void findBookingByBooker_IdAndStatusWithOneRequestShouldBeOk() {
+    void findByBookerAndStatusWithOneRequestShouldBeOk() {
         User user1 = new User(null, "User 1", "user1@yandex.ru");
         User user2 = new User(null, "User 2", "user2@yandex.ru");
         User saveUser1 = userRepository.save(user1);
@@ -77,8 +81,8 @@ public class JpaBookingRepositoryTest {
         Booking booking1Save = bookingRepository.save(booking1);
         Booking booking2Save = bookingRepository.save(booking2);
 
-        List<Booking> bookingActual = bookingRepository.findBookingByBooker_IdAndStatus(saveUser2.getId(),
-                BookingStatus.APPROVED);
+        List<Booking> bookingActual = bookingRepository.findByBookerAndStatus(saveUser2.getId(),
+                BookingStatus.APPROVED, new OffsetPageRequest(0, 10));
 
         assertEquals(1, bookingActual.size());
         assertTrue(bookingActual.contains(booking2Save));
@@ -86,7 +90,7 @@ public class JpaBookingRepositoryTest {
 
     @Test
     @DirtiesContext
-    void findBookingByBooker_IdOrderByStartDescWithThreeRequestShouldBeOk() {
+    void findAllByBookerWithThreeRequestShouldBeOk() {
         User user1 = new User(null, "User 1", "user1@yandex.ru");
         User user2 = new User(null, "User 2", "user2@yandex.ru");
         User saveUser1 = userRepository.save(user1);
@@ -110,7 +114,8 @@ public class JpaBookingRepositoryTest {
         Booking booking2Save = bookingRepository.save(booking2);
         Booking booking3Save = bookingRepository.save(booking3);
 
-        List<Booking> bookingActual = bookingRepository.findBookingByBooker_IdOrderByStartDesc(saveUser2.getId());
+        List<Booking> bookingActual = bookingRepository.findAllByBooker(saveUser2.getId(),
+                new OffsetPageRequest(0, 10));
 
         assertEquals(3, bookingActual.size());
         assertEquals(bookingActual.get(0), booking1Save);
@@ -120,7 +125,7 @@ public class JpaBookingRepositoryTest {
 
     @Test
     @DirtiesContext
-    void findBookingByBooker_IdOrderByStartDescWithTwoRequestShouldBeOk() {
+    void findAllByBookerWithTwoRequestShouldBeOk() {
         User user1 = new User(null, "User 1", "user1@yandex.ru");
         User user2 = new User(null, "User 2", "user2@yandex.ru");
         User saveUser1 = userRepository.save(user1);
@@ -144,7 +149,8 @@ public class JpaBookingRepositoryTest {
         Booking booking2Save = bookingRepository.save(booking2);
         Booking booking3Save = bookingRepository.save(booking3);
 
-        List<Booking> bookingActual = bookingRepository.findBookingByBooker_IdOrderByStartDesc(saveUser2.getId());
+        List<Booking> bookingActual = bookingRepository.findAllByBooker(saveUser2.getId(),
+                new OffsetPageRequest(0, 10));
 
         assertEquals(3, bookingActual.size());
         assertEquals(bookingActual.get(0), booking1Save);
@@ -154,7 +160,7 @@ public class JpaBookingRepositoryTest {
 
     @Test
     @DirtiesContext
-    void findBookingByItem_Owner_IdAndStatusShouldBeOk() {
+    void findByOwnerAndStatusShouldBeOk() {
         User user1 = new User(null, "User 1", "user1@yandex.ru");
         User user2 = new User(null, "User 2", "user2@yandex.ru");
         User user3 = new User(null, "User 3", "user3@yandex.ru");
@@ -187,8 +193,8 @@ public class JpaBookingRepositoryTest {
         Booking booking3Save = bookingRepository.save(booking3);
         Booking booking4Save = bookingRepository.save(booking4);
 
-        List<Booking> bookingActual = bookingRepository.findBookingByItem_Owner_IdAndStatus(saveItem1.getId(),
-                BookingStatus.APPROVED);
+        List<Booking> bookingActual = bookingRepository.findByOwnerAndStatus(saveUser1.getId(),
+                BookingStatus.APPROVED, new OffsetPageRequest(0, 10));
 
         assertEquals(2, bookingActual.size());
         assertEquals(bookingActual.get(0), booking1Save);
@@ -197,7 +203,7 @@ public class JpaBookingRepositoryTest {
 
     @Test
     @DirtiesContext
-    void findBookingByItem_Owner_IdOrderByStartDescShouldBeOk() {
+    void findAllByOwnerShouldBeOk() {
         User user1 = new User(null, "User 1", "user1@yandex.ru");
         User user2 = new User(null, "User 2", "user2@yandex.ru");
         User user3 = new User(null, "User 3", "user3@yandex.ru");
@@ -237,8 +243,8 @@ public class JpaBookingRepositoryTest {
         Booking booking4Save = bookingRepository.save(booking4);
         Booking booking5Save = bookingRepository.save(booking5);
 
-        List<Booking> bookingActual = bookingRepository.findBookingByItem_Owner_IdOrderByStartDesc(
-                saveItem1.getOwner().getId());
+        List<Booking> bookingActual = bookingRepository.findAllByOwner(saveItem1.getOwner().getId(),
+                new OffsetPageRequest(0, 10));
 
         assertEquals(4, bookingActual.size());
         assertEquals(bookingActual.get(0), booking1Save);
@@ -248,7 +254,7 @@ public class JpaBookingRepositoryTest {
     }
 
     @Test
-    void findBookingByItemAndStartAfterShouldBeOk() {
+    void findNextBookingShouldBeOk() {
         User user1 = new User(null, "User 1", "user1@yandex.ru");
         User user2 = new User(null, "User 2", "user2@yandex.ru");
         User user3 = new User(null, "User 3", "user3@yandex.ru");
@@ -279,19 +285,18 @@ public class JpaBookingRepositoryTest {
         Booking booking4Save = bookingRepository.save(booking4);
         Booking booking5Save = bookingRepository.save(booking5);
 
-        List<Booking> bookingActual = bookingRepository.findBookingByItemAndStartAfter(saveItem1.getId(),
-                BookingStatus.APPROVED);
+        Optional<BookingItemView> bookingActual = bookingRepository.findNextBooking(saveItem1.getId(),
+                BookingStatus.APPROVED, LocalDateTime.now());
 
         assertEquals(5, bookingRepository.findAll().size());
-        assertEquals(3, bookingActual.size());
-        assertEquals(bookingActual.get(0), booking2Save);
-        assertEquals(bookingActual.get(1), booking3Save);
-        assertEquals(bookingActual.get(2), booking1Save);
+        assertTrue(bookingActual.isPresent());
+        assertEquals(booking2Save.getId(), bookingActual.get().getId());
+        assertEquals(saveUser2.getId(), bookingActual.get().getBookerId());
     }
 
     @Test
     @DirtiesContext
-    void findBookingByItemAndStartBeforeShouldBeOk() {
+    void findLastBookingShouldBeOk() {
         User user1 = new User(null, "User 1", "user1@yandex.ru");
         User user2 = new User(null, "User 2", "user2@yandex.ru");
         User user3 = new User(null, "User 3", "user3@yandex.ru");
@@ -322,12 +327,34 @@ public class JpaBookingRepositoryTest {
         Booking booking4Save = bookingRepository.save(booking4);
         Booking booking5Save = bookingRepository.save(booking5);
 
-        List<Booking> bookingActual = bookingRepository.findBookingByItemAndStartBefore(saveItem1.getId(),
-                BookingStatus.APPROVED);
+        Optional<BookingItemView> bookingActual = bookingRepository.findLastBooking(saveItem1.getId(),
+                BookingStatus.APPROVED, LocalDateTime.now());
 
         assertEquals(5, bookingRepository.findAll().size());
-        assertEquals(1, bookingActual.size());
-        assertEquals(bookingActual.get(0), booking5Save);
+        assertTrue(bookingActual.isPresent());
+        assertEquals(booking5Save.getId(), bookingActual.get().getId());
+        assertEquals(saveUser3.getId(), bookingActual.get().getBookerId());
+        assertTrue(bookingRepository.findLastBooking(saveItem1.getId(), BookingStatus.WAITING,
+                LocalDateTime.now()).isEmpty());
+    }
+
+    @Test
+    @DirtiesContext
+    void findLastBookingShouldPreferLatestIdOnSameStart() {
+        User saveUser1 = userRepository.save(new User(null, "User 1", "user1@yandex.ru"));
+        User saveUser2 = userRepository.save(new User(null, "User 2", "user2@yandex.ru"));
+        Item saveItem1 = itemRepository.save(new Item(null, "Item 1", "Desc 1", true, saveUser1, null));
+        LocalDateTime start = LocalDateTime.now().minusDays(2).truncatedTo(ChronoUnit.SECONDS);
+        bookingRepository.save(new Booking(null, start, start.plusDays(1), saveItem1, saveUser2,
+                BookingStatus.APPROVED));
+        Booking latestSave = bookingRepository.save(new Booking(null, start, start.plusDays(1), saveItem1,
+                saveUser2, BookingStatus.APPROVED));
+
+        Optional<BookingItemView> bookingActual = bookingRepository.findLastBooking(saveItem1.getId(),
+                BookingStatus.APPROVED, LocalDateTime.now());
+
+        assertTrue(bookingActual.isPresent());
+        assertEquals(latestSave.getId(), bookingActual.get().getId());
     }
 
     @Test
@@ -370,4 +397,131 @@ public class JpaBookingRepositoryTest {
         assertEquals(1, bookingActual.size());
         assertEquals(bookingActual.get(0), booking1Save);
     }
+
+    @Test
+    @DirtiesContext
+    void findAllByBookerShouldApplyOffsetAndLimit() {
+        User saveUser1 = userRepository.save(new User(null, "User 1", "user1@yandex.ru"));
+        User saveUser2 = userRepository.save(new User(null, "User 2", "user2@yandex.ru"));
+        Item saveItem1 = itemRepository.save(new Item(null, "Item 1", "Desc 1", true, saveUser1, null));
+        LocalDateTime now = LocalDateTime.now();
+        Booking booking1Save = bookingRepository.save(new Booking(null, now.plusDays(1), now.plusDays(2), saveItem1,
+                saveUser2, BookingStatus.APPROVED));
+        Booking booking2Save = bookingRepository.save(new Booking(null, now.plusDays(3), now.plusDays(4), saveItem1,
+                saveUser2, BookingStatus.WAITING));
+        Booking booking3Save = bookingRepository.save(new Booking(null, now.plusDays(5), now.plusDays(6), saveItem1,
+                saveUser2, BookingStatus.APPROVED));
+
+        List<Booking> bookingActual = bookingRepository.findAllByBooker(saveUser2.getId(),
+                new OffsetPageRequest(1, 1));
+
+        assertEquals(1, bookingActual.size());
+        assertEquals(booking2Save, bookingActual.get(0));
+        assertEquals(List.of(booking3Save, booking2Save, booking1Save),
+                bookingRepository.findAllByBooker(saveUser2.getId(), new OffsetPageRequest(0, 10)));
+    }
+
+    @Test
+    @DirtiesContext
+    void findCurrentPastFutureByBookerShouldFilterByTime() {
+        User saveUser1 = userRepository.save(new User(null, "User 1", "user1@yandex.ru"));
+        User saveUser2 = userRepository.save(new User(null, "User 2", "user2@yandex.ru"));
+        Item saveItem1 = itemRepository.save(new Item(null, "Item 1", "Desc 1", true, saveUser1, null));
+        LocalDateTime now = LocalDateTime.now();
+        Booking pastSave = bookingRepository.save(new Booking(null, now.minusDays(5), now.minusDays(4), saveItem1,
+                saveUser2, BookingStatus.APPROVED));
+        Booking currentSave = bookingRepository.save(new Booking(null, now.minusDays(1), now.plusDays(1), saveItem1,
+                saveUser2, BookingStatus.APPROVED));
+        Booking futureSave = bookingRepository.save(new Booking(null, now.plusDays(4), now.plusDays(5), saveItem1,
+                saveUser2, BookingStatus.WAITING));
+        OffsetPageRequest page = new OffsetPageRequest(0, 10);
+
+        assertEquals(List.of(pastSave), bookingRepository.findPastByBooker(saveUser2.getId(), now, page));
+        assertEquals(List.of(currentSave), bookingRepository.findCurrentByBooker(saveUser2.getId(), now, page));
+        assertEquals(List.of(futureSave), bookingRepository.findFutureByBooker(saveUser2.getId(), now, page));
+        assertTrue(bookingRepository.findPastByBooker(saveUser1.getId(), now, page).isEmpty());
+    }
+
+    @Test
+    @DirtiesContext
+    void findCurrentPastFutureByOwnerShouldFilterByTime() {
+        User saveUser1 = userRepository.save(new User(null, "User 1", "user1@yandex.ru"));
+        User saveUser2 = userRepository.save(new User(null, "User 2", "user2@yandex.ru"));
+        Item saveItem1 = itemRepository.save(new Item(null, "Item 1", "Desc 1", true, saveUser1, null));
+        LocalDateTime now = LocalDateTime.now();
+        Booking pastSave = bookingRepository.save(new Booking(null, now.minusDays(5), now.minusDays(4), saveItem1,
+                saveUser2, BookingStatus.APPROVED));
+        Booking currentSave = bookingRepository.save(new Booking(null, now.minusDays(1), now.plusDays(1), saveItem1,
+                saveUser2, BookingStatus.APPROVED));
+        Booking futureSave = bookingRepository.save(new Booking(null, now.plusDays(4), now.plusDays(5), saveItem1,
+                saveUser2, BookingStatus.WAITING));
+        OffsetPageRequest page = new OffsetPageRequest(0, 10);
+
+        assertEquals(List.of(pastSave), bookingRepository.findPastByOwner(saveUser1.getId(), now, page));
+        assertEquals(List.of(currentSave), bookingRepository.findCurrentByOwner(saveUser1.getId(), now, page));
+        assertEquals(List.of(futureSave), bookingRepository.findFutureByOwner(saveUser1.getId(), now, page));
+        assertEquals(List.of(futureSave), bookingRepository.findByOwnerAndStatus(saveUser1.getId(),
+                BookingStatus.WAITING, page));
+        assertTrue(bookingRepository.findAllByOwner(saveUser2.getId(), page).isEmpty());
+    }
+
+    @Test
+    @DirtiesContext
+    void findAllByBookerBeforeShouldSeekPastCursor() {
+        User saveUser1 = userRepository.save(new User(null, "User 1", "user1@yandex.ru"));
+        User saveUser2 = userRepository.save(new User(null, "User 2", "user2@yandex.ru"));
+        Item saveItem1 = itemRepository.save(new Item(null, "Item 1", "Desc 1", true, saveUser1, null));
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        Booking booking1Save = bookingRepository.save(new Booking(null, start, start.plusDays(1), saveItem1,
+                saveUser2, BookingStatus.APPROVED));
+        Booking booking2Save = bookingRepository.save(new Booking(null, start, start.plusDays(2), saveItem1,
+                saveUser2, BookingStatus.APPROVED));
+        Booking booking3Save = bookingRepository.save(new Booking(null, start.plusDays(3), start.plusDays(4),
+                saveItem1, saveUser2, BookingStatus.APPROVED));
+
+        List<Booking> bookingActual = bookingRepository.findAllByBookerBefore(saveUser2.getId(),
+                booking3Save.getStart(), booking3Save.getId(), new OffsetPageRequest(0, 1));
+        List<Booking> bookingNext = bookingRepository.findAllByBookerBefore(saveUser2.getId(),
+                booking2Save.getStart(), booking2Save.getId(), new OffsetPageRequest(0, 10));
+
+        assertEquals(List.of(booking2Save), bookingActual);
+        assertEquals(List.of(booking1Save), bookingNext);
+    }
+
+    @Test
+    @DirtiesContext
+    void findLastAndNextBookingsShouldReturnClosestApprovedBookingsPerItem() {
+        User saveUser1 = userRepository.save(new User(null, "User 1", "user1@yandex.ru"));
+        User saveUser2 = userRepository.save(new User(null, "User 2", "user2@yandex.ru"));
+        Item saveItem1 = itemRepository.save(new Item(null, "Item 1", "Desc 1", true, saveUser1, null));
+        Item saveItem2 = itemRepository.save(new Item(null, "Item 2", "Desc 2", true, saveUser1, null));
+        Item saveItem3 = itemRepository.save(new Item(null, "Item 3", "Desc 3", true, saveUser1, null));
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        bookingRepository.save(new Booking(null, now.minusDays(10), now.minusDays(9), saveItem1, saveUser2,
+                BookingStatus.APPROVED));
+        Booking last1 = bookingRepository.save(new Booking(null, now.minusDays(5), now.minusDays(4), saveItem1,
+                saveUser2, BookingStatus.APPROVED));
+        Booking next1 = bookingRepository.save(new Booking(null, now.plusDays(2), now.plusDays(3), saveItem1,
+                saveUser2, BookingStatus.APPROVED));
+        bookingRepository.save(new Booking(null, now.plusDays(1), now.plusDays(2), saveItem1, saveUser2,
+                BookingStatus.REJECTED));
+        bookingRepository.save(new Booking(null, now.plusDays(9), now.plusDays(10), saveItem1, saveUser2,
+                BookingStatus.APPROVED));
+        Booking next2 = bookingRepository.save(new Booking(null, now.plusDays(4), now.plusDays(5), saveItem2,
+                saveUser2, BookingStatus.APPROVED));
+        bookingRepository.save(new Booking(null, now.minusDays(1), now.plusDays(1), saveItem3, saveUser2,
+                BookingStatus.WAITING));
+
+        List<BookingItemView> bookings = bookingRepository.findLastAndNextBookings(List.of(saveItem1.getId(),
+                saveItem2.getId(), saveItem3.getId()), BookingStatus.APPROVED, now);
+
+        assertEquals(3, bookings.size());
+        assertEquals(last1.getId(), bookings.get(0).getId());
+        assertEquals(saveItem1.getId(), bookings.get(0).getItemId());
+        assertEquals(saveUser2.getId(), bookings.get(0).getBookerId());
+        assertEquals(next1.getId(), bookings.get(1).getId());
+        assertEquals(next1.getStart(), bookings.get(1).getStart());
+        assertEquals(next2.getId(), bookings.get(2).getId());
+        assertEquals(saveItem2.getId(), bookings.get(2).getItemId());
+    }
 }
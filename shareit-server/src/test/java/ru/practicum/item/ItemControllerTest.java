@@ -5,23 +5,34 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.item.dto.CommentResearchDto;
 import ru.practicum.item.dto.CommentResponseDto;
+import ru.practicum.item.dto.ItemAvailabilityDto;
 import ru.practicum.item.dto.ItemDto;
+import ru.practicum.item.dto.ItemImportEventDto;
+import ru.practicum.item.dto.TimeIntervalDto;
 import ru.practicum.item.service.ItemService;
 
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.time.format.DateTimeFormatter;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -63,6 +74,71 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$.requestId", is(3), Integer.class));
     }
 
+    @Test
+    void saveItemsShouldBeOk() throws Exception {
+        List<ItemDto> itemDtos = List.of(new ItemDto(null, "Item 1", "Desc 1", true,
+                null, null, new ArrayList<>(), null), new ItemDto(null, "Item 2", "Desc 2", false,
+                null, null, new ArrayList<>(), null));
+
+        when(service.saveItems(anyList(), anyInt()))
+                .thenAnswer(invocationOnMock -> {
+                    List<ItemDto> items = invocationOnMock.getArgument(0);
+                    for (int i = 0; i < items.size(); i++) {
+                        items.get(i).setId(i + 1);
+                    }
+                    return items;
+                });
+
+        mvc.perform(post("/items/batch")
+                        .header("X-Sharer-User-Id", 1)
+                        .content(mapper.writeValueAsString(itemDtos))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(2)))
+                .andExpect(jsonPath("$[0].id", is(1), Integer.class))
+                .andExpect(jsonPath("$[1].id", is(2), Integer.class))
+                .andExpect(jsonPath("$[1].available", is(false)));
+    }
+
+    @Test
+    void saveItemsShouldThrowValidationExceptionWithInvalidItem() throws Exception {
+        List<ItemDto> itemDtos = List.of(new ItemDto(null, "Item 1", "Desc 1", true,
+                null, null, new ArrayList<>(), null), new ItemDto(null, "", "Desc 2", true,
+                null, null, new ArrayList<>(), null));
+
+        mvc.perform(post("/items/batch")
+                        .header("X-Sharer-User-Id", 1)
+                        .content(mapper.writeValueAsString(itemDtos))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void importItemsShouldStreamReportAsNdjson() throws Exception {
+        when(service.importItems(any(InputStream.class), eq(1), any()))
+                .thenAnswer(invocationOnMock -> {
+                    Consumer<ItemImportEventDto> listener = invocationOnMock.getArgument(2);
+                    ItemImportEventDto done = new ItemImportEventDto(ItemImportEventDto.DONE, 2L, 1L, 1L, null);
+                    listener.accept(new ItemImportEventDto(ItemImportEventDto.ERROR, 2L, null, null,
+                            "Malformed JSON"));
+                    listener.accept(done);
+                    return done;
+                });
+
+        mvc.perform(post("/items/import")
+                        .header("X-Sharer-User-Id", 1)
+                        .content("{\"name\":\"Item 1\",\"description\":\"Desc 1\",\"available\":true}\n{")
+                        .contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"event\":\"error\",\"line\":2,\"error\":\"Malformed JSON\"}\n" +
+                        "{\"event\":\"done\",\"line\":2,\"imported\":1,\"failed\":1}\n"));
+    }
+
     @Test
     void saveItemShouldThrowValidationExceptionWithInvalidName() throws Exception {
         ItemDto itemDto = new ItemDto(null, "", "Desc 1", true,
@@ -84,6 +160,21 @@ public class ItemControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void saveItemShouldThrowValidationExceptionWithTooLongName() throws Exception {
+        ItemDto itemDto = new ItemDto(null, "x".repeat(51), "Desc 1", true,
+                null, null, new ArrayList<>(), 3);
+
+        mvc.perform(post("/items")
+                        .header("X-Sharer-User-Id", 1)
+                        .content(mapper.writeValueAsString(itemDto))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        verify(service, never()).saveItem(any(ItemDto.class), anyInt());
+    }
+
     @Test
     void saveItemShouldThrowValidationExceptionWithInvalidDescription() throws Exception {
         ItemDto itemDto = new ItemDto(null, "Item 1", "", true,
@@ -294,6 +385,35 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$[2].requestId", is(items.get(2).getRequestId()), Integer.class));
     }
 
+    @Test
+    void getItemToUserShouldReturnETag() throws Exception {
+        when(service.getItemToUserVersion(anyInt()))
+                .thenReturn("3-3-5.0-0-0.0-0-0-0");
+        when(service.getItemToUser(anyInt()))
+                .thenReturn(new ArrayList<>());
+
+        mvc.perform(get("/items")
+                        .header("X-Sharer-User-Id", 1)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3-3-5.0-0-0.0-0-0-0\""));
+    }
+
+    @Test
+    void getItemToUserWithMatchingETagShouldBeNotModified() throws Exception {
+        when(service.getItemToUserVersion(anyInt()))
+                .thenReturn("3-3-5.0-0-0.0-0-0-0");
+
+        mvc.perform(get("/items")
+                        .header("X-Sharer-User-Id", 1)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"3-3-5.0-0-0.0-0-0-0\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3-3-5.0-0-0.0-0-0-0\""))
+                .andExpect(content().string(""));
+        verify(service, never()).getItemToUser(anyInt());
+    }
+
     @Test
     void getItemToUserShouldThrowValidationExceptionWithInvalidUserIdInHeader() throws Exception {
         List<ItemDto> items = new ArrayList<>();
@@ -473,7 +593,7 @@ public class ItemControllerTest {
         ItemDto itemDto2 = new ItemDto(2, "Item 2", "Desc 2",
                 true, null, null, new ArrayList<>(), null);
 
-        when(service.searchItem(anyString(), anyInt()))
+        when(service.searchItem(anyString(), anyInt(), anyInt(), anyInt()))
                 .thenReturn(List.of(itemDto1, itemDto2));
 
         mvc.perform(get("/items/search?text=пре")
@@ -506,7 +626,7 @@ public class ItemControllerTest {
                 true, null, null, new ArrayList<>(), null);
         Integer userId = 0;
 
-        when(service.searchItem(anyString(), anyInt()))
+        when(service.searchItem(anyString(), anyInt(), anyInt(), anyInt()))
                 .thenReturn(List.of(itemDto1, itemDto2));
 
         mvc.perform(get("/items/search?text=пре")
@@ -522,7 +642,7 @@ public class ItemControllerTest {
         ItemDto itemDto2 = new ItemDto(2, "Item 2", "Desc 2",
                 true, null, null, new ArrayList<>(), null);
 
-        when(service.searchItem(anyString(), anyInt()))
+        when(service.searchItem(anyString(), anyInt(), anyInt(), anyInt()))
                 .thenReturn(List.of(itemDto1, itemDto2));
 
         mvc.perform(get("/items/search?text=пре")
@@ -538,7 +658,7 @@ public class ItemControllerTest {
         ItemDto itemDto2 = new ItemDto(2, "Item 2", "Desc 2",
                 true, null, null, new ArrayList<>(), null);
 
-        when(service.searchItem(anyString(), anyInt()))
+        when(service.searchItem(anyString(), anyInt(), anyInt(), anyInt()))
                 .thenReturn(List.of(itemDto1, itemDto2));
 
         mvc.perform(get("/items/search?text=over100symbolsssssssssssssssssssssssssssssssssssssssssssssssss" +
@@ -548,6 +668,48 @@ public class ItemControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void getAvailabilityShouldBeOk() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 10, 0);
+        LocalDateTime to = LocalDateTime.of(2030, 1, 2, 10, 0);
+        ItemAvailabilityDto availability = new ItemAvailabilityDto(1, from, to,
+                List.of(new TimeIntervalDto(from, from.plusHours(2))),
+                List.of(new TimeIntervalDto(from.plusHours(2), to)));
+
+        when(service.getAvailability(1, 1, from, to)).thenReturn(availability);
+
+        mvc.perform(get("/items/1/availability?from=2030-01-01T10:00:00&to=2030-01-02T10:00:00")
+                        .accept(MediaType.ALL)
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itemId", is(1)))
+                .andExpect(jsonPath("$.busy", hasSize(1)))
+                .andExpect(jsonPath("$.busy[0].start", is("2030-01-01T10:00:00")))
+                .andExpect(jsonPath("$.free[0].end", is("2030-01-02T10:00:00")));
+    }
+
+    @Test
+    void suggestShouldBeOk() throws Exception {
+        when(service.suggestItemNames("дре", 1, 2))
+                .thenReturn(List.of("Дрель", "Дрель ударная"));
+
+        mvc.perform(get("/items/suggest?prefix=дре&size=2")
+                        .accept(MediaType.ALL)
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0]", is("Дрель")))
+                .andExpect(jsonPath("$[1]", is("Дрель ударная")));
+    }
+
+    @Test
+    void suggestShouldThrowValidationExceptionWithTooLargeSize() throws Exception {
+        mvc.perform(get("/items/suggest?prefix=дре&size=21")
+                        .accept(MediaType.ALL)
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void saveCommentShouldThrowValidationExceptionWithInvalidText() throws Exception {
         CommentResearchDto commentResearchDto = new CommentResearchDto();
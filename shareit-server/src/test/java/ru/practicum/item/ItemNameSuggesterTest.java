@@ -0,0 +1,74 @@
+package ru.practicum.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.item.search.ItemNameSuggester;
+import ru.practicum.item.storage.db.JpaItemRepository;
+import ru.practicum.user.User;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemNameSuggesterTest {
+    private final User user = new User(1, "User 1", "user1@yandex.ru");
+    private ItemNameSuggester suggester;
+    @Mock
+    private JpaItemRepository itemRepository;
+
+    @BeforeEach
+    public void setUp() {
+        when(itemRepository.findAll()).thenReturn(List.of(
+                new Item(1, "Дрель ударная", "Desc", true, user, null),
+                new Item(2, "Дрель", "Desc", true, user, null),
+                new Item(3, "Дрезина", "Desc", true, user, null),
+                new Item(4, "Дрель аккумуляторная", "Desc", false, user, null),
+                new Item(5, "Отвертка", "Desc", true, user, null),
+                new Item(6, "дрель", "Desc", true, user, null)));
+        suggester = new ItemNameSuggester(itemRepository);
+        suggester.rebuild();
+    }
+
+    @Test
+    void suggestShouldReturnAvailableNamesInOrder() {
+        assertEquals(List.of("Дрезина", "Дрель", "Дрель ударная"), suggester.suggest("ДР", 10));
+        assertEquals(List.of("Отвертка"), suggester.suggest("о", 10));
+    }
+
+    @Test
+    void suggestShouldBeLimited() {
+        assertEquals(List.of("Дрезина", "Дрель"), suggester.suggest("др", 2));
+    }
+
+    @Test
+    void suggestShouldBeEmpty() {
+        assertTrue(suggester.suggest("пила", 10).isEmpty());
+        assertTrue(suggester.suggest(" ", 10).isEmpty());
+    }
+
+    @Test
+    void indexShouldFollowNameAndAvailabilityChanges() {
+        suggester.index(new Item(3, "Пила", "Desc", true, user, null));
+        suggester.index(new Item(4, "Дрель аккумуляторная", "Desc", true, user, null));
+        suggester.index(new Item(1, "Дрель ударная", "Desc", false, user, null));
+
+        assertEquals(List.of("Дрель", "Дрель аккумуляторная"), suggester.suggest("дре", 10));
+        assertEquals(List.of("Пила"), suggester.suggest("пи", 10));
+    }
+
+    @Test
+    void indexShouldKeepNameWhileAnotherItemHasIt() {
+        suggester.index(new Item(2, "Дрель", "Desc", false, user, null));
+
+        assertEquals(List.of("дрель"), suggester.suggest("дрель", 1));
+
+        suggester.index(new Item(6, "дрель", "Desc", false, user, null));
+
+        assertEquals(List.of("Дрель ударная"), suggester.suggest("дрель", 10));
+    }
+}
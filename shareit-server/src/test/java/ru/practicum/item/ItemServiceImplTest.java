@@ -8,7 +8,9 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import ru.practicum.booking.Booking;
 import ru.practicum.booking.BookingMapperImpl;
 import ru.practicum.booking.BookingStatus;
+import ru.practicum.booking.dto.BookingItemView;
 import ru.practicum.booking.dto.BookingResponseToItemDto;
+import ru.practicum.booking.service.ItemBookingCalendar;
 import ru.practicum.booking.storage.JpaBookingRepository;
 import ru.practicum.exception.exceptions.BookingNotFoundException;
 import ru.practicum.exception.exceptions.DataNotFoundException;
@@ -16,10 +18,14 @@ import ru.practicum.exception.exceptions.ForbiddenUpdateException;
 import ru.practicum.item.dto.CommentResearchDto;
 import ru.practicum.item.dto.CommentResponseDto;
 import ru.practicum.item.dto.ItemDto;
+import ru.practicum.item.search.ItemNameSuggester;
+import ru.practicum.item.search.ItemSearchEngine;
+import ru.practicum.item.service.ItemImporter;
 import ru.practicum.item.service.ItemService;
 import ru.practicum.item.service.ItemServiceImpl;
 import ru.practicum.item.storage.db.JpaCommentRepository;
 import ru.practicum.item.storage.db.JpaItemRepository;
+import ru.practicum.pagination.OffsetPageRequest;
 import ru.practicum.request.ItemRequest;
 import ru.practicum.request.storage.JpaItemRequestRepository;
 import ru.practicum.user.User;
@@ -50,12 +56,21 @@ public class ItemServiceImplTest {
     private JpaItemRequestRepository itemRequest;
     @Mock
     private JpaCommentRepository commentRepository;
+    @Mock
+    private ItemSearchEngine searchEngine;
+    @Mock
+    private ItemNameSuggester nameSuggester;
+    @Mock
+    private ItemBookingCalendar bookingCalendar;
+    @Mock
+    private ItemImporter itemImporter;
 
     @BeforeEach
     public void setUp() {
         itemService = new ItemServiceImpl(itemRepository, commentRepository, bookingRepository,
                 itemRequest, new ItemMapperImpl(), new BookingMapperImpl(), new CommentMapperImpl(),
-                new UserMapperImpl(), userService);
+                new UserMapperImpl(), userService, searchEngine, nameSuggester,
+                bookingCalendar, itemImporter);
     }
 
     @Test
@@ -157,10 +172,10 @@ public class ItemServiceImplTest {
 
         when(userService.getData(anyInt())).thenReturn(user1Dto);
         when(itemRepository.findById(anyInt())).thenReturn(itemOptional);
-        when(bookingRepository.findBookingByItemAndStartAfter(anyInt(), any(BookingStatus.class)))
-                .thenReturn(new ArrayList<>());
-        when(bookingRepository.findBookingByItemAndStartBefore(anyInt(), any(BookingStatus.class)))
-                .thenReturn(new ArrayList<>());
+        when(bookingRepository.findNextBooking(anyInt(), any(BookingStatus.class),
+                any(LocalDateTime.class))).thenReturn(firstView(new ArrayList<>()));
+        when(bookingRepository.findLastBooking(anyInt(), any(BookingStatus.class),
+                any(LocalDateTime.class))).thenReturn(firstView(new ArrayList<>()));
         ItemDto itemExpected = new ItemDto(1, "Item 1", "Desc 1",
                 true, null, null, new ArrayList<>(), null);
         ItemDto itemActual = itemService.getItem(itemId, userId);
@@ -192,10 +207,10 @@ public class ItemServiceImplTest {
 
         when(userService.getData(anyInt())).thenReturn(user1Dto);
         when(itemRepository.findById(anyInt())).thenReturn(itemOptional);
-        when(bookingRepository.findBookingByItemAndStartAfter(anyInt(), any(BookingStatus.class)))
-                .thenReturn(new ArrayList<>());
-        when(bookingRepository.findBookingByItemAndStartBefore(anyInt(), any(BookingStatus.class)))
-                .thenReturn(bookings);
+        when(bookingRepository.findNextBooking(anyInt(), any(BookingStatus.class),
+                any(LocalDateTime.class))).thenReturn(firstView(new ArrayList<>()));
+        when(bookingRepository.findLastBooking(anyInt(), any(BookingStatus.class),
+                any(LocalDateTime.class))).thenReturn(firstView(bookings));
         BookingResponseToItemDto bookingLastResponse = new BookingResponseToItemDto(1,
                 DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(end),
                 DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(start), 1);
@@ -235,10 +250,10 @@ public class ItemServiceImplTest {
 
         when(userService.getData(anyInt())).thenReturn(user1Dto);
         when(itemRepository.findById(anyInt())).thenReturn(itemOptional);
-        when(bookingRepository.findBookingByItemAndStartAfter(anyInt(), any(BookingStatus.class)))
-                .thenReturn(bookingsNext);
-        when(bookingRepository.findBookingByItemAndStartBefore(anyInt(), any(BookingStatus.class)))
-                .thenReturn(bookingsLast);
+        when(bookingRepository.findNextBooking(anyInt(), any(BookingStatus.class),
+                any(LocalDateTime.class))).thenReturn(firstView(bookingsNext));
+        when(bookingRepository.findLastBooking(anyInt(), any(BookingStatus.class),
+                any(LocalDateTime.class))).thenReturn(firstView(bookingsLast));
         BookingResponseToItemDto bookingNextResponse = new BookingResponseToItemDto(1,
                 DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(endNext),
                 DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(startNext), 1);
@@ -284,10 +299,10 @@ public class ItemServiceImplTest {
 
         when(userService.getData(anyInt())).thenReturn(user1Dto);
         when(itemRepository.findById(anyInt())).thenReturn(itemOptional);
-        when(bookingRepository.findBookingByItemAndStartAfter(anyInt(), any(BookingStatus.class)))
-                .thenReturn(bookings);
-        when(bookingRepository.findBookingByItemAndStartBefore(anyInt(), any(BookingStatus.class)))
-                .thenReturn(new ArrayList<>());
+        when(bookingRepository.findNextBooking(anyInt(), any(BookingStatus.class),
+                any(LocalDateTime.class))).thenReturn(firstView(bookings));
+        when(bookingRepository.findLastBooking(anyInt(), any(BookingStatus.class),
+                any(LocalDateTime.class))).thenReturn(firstView(new ArrayList<>()));
         when(commentRepository.findCommentByItem_Id(anyInt())).thenReturn(comments);
         BookingResponseToItemDto bookingNextResponse = new BookingResponseToItemDto(1,
                 DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(end),
@@ -541,7 +556,7 @@ public class ItemServiceImplTest {
         when(userService.getData(anyInt())).thenThrow(
                 new DataNotFoundException("User with id = " + userId + " not found"));
         DataNotFoundException ex = assertThrows(DataNotFoundException.class,
-                () -> itemService.searchItem(search, userId));
+                () -> itemService.searchItem(search, userId, 0, 10));
 
         assertEquals("User with id = " + userId + " not found", ex.getMessage());
     }
@@ -554,7 +569,7 @@ public class ItemServiceImplTest {
         when(userService.getData(anyInt())).thenReturn(
                 new UserDto(1, "User 1", "user1@yandex.ru"));
 
-        assertEquals(0, itemService.searchItem(search, userId).size());
+        assertEquals(0, itemService.searchItem(search, userId, 0, 10).size());
     }
 
     @Test
@@ -567,9 +582,11 @@ public class ItemServiceImplTest {
 
         when(userService.getData(anyInt())).thenReturn(
                 new UserDto(1, "User 1", "user1@yandex.ru"));
-        when(itemRepository.findByNameAndDescription(anyString(), anyString())).thenReturn(items);
+        when(searchEngine.search(anyString(), any(OffsetPageRequest.class))).thenReturn(List.of(1));
+        when(itemRepository.findAllById(List.of(1))).thenReturn(items);
 
-        assertEquals(1, itemService.searchItem(search, userId).size());
+        assertEquals(1, itemService.searchItem(search, userId, 0, 10).size());
+        verify(searchEngine).search(eq(search), eq(new OffsetPageRequest(0, 10)));
     }
 
     @Test
@@ -686,4 +703,71 @@ public class ItemServiceImplTest {
         assertEquals(commentExpected.getAuthorName(), commentActual.getAuthorName());
         verify(commentRepository, atLeast(1)).save(any(Comment.class));
     }
+
+    @Test
+    void getItemToUserShouldLoadBookingsAndCommentsForAllItemsAtOnce() {
+        Integer userId = 1;
+        UserDto user1Dto = new UserDto(1, "User 1", "user1@yandex.ru");
+        User user1 = new User(1, "User 1", "user1@yandex.ru");
+        User user2 = new User(2, "User 2", "user2@yandex.ru");
+        Item item1 = new Item(1, "Item 1", "Desc 1", true, user1, null);
+        Item item2 = new Item(2, "Item 2", "Desc 2", true, user1, null);
+        LocalDateTime now = LocalDateTime.now();
+        BookingItemView next = mock(BookingItemView.class);
+        when(next.getItemId()).thenReturn(1);
+        when(next.getId()).thenReturn(5);
+        when(next.getBookerId()).thenReturn(2);
+        when(next.getStart()).thenReturn(now.plusDays(1));
+        when(next.getEnd()).thenReturn(now.plusDays(2));
+        Comment comment = new Comment(3, "Text", user2, item2, now);
+
+        when(userService.getData(anyInt())).thenReturn(user1Dto);
+        when(itemRepository.findByOwnerIdOrderByIdAsc(anyInt())).thenReturn(List.of(item1, item2));
+        when(bookingRepository.findLastAndNextBookings(anyList(), any(BookingStatus.class),
+                any(LocalDateTime.class))).thenReturn(List.of(next));
+        when(commentRepository.findCommentByItem_IdIn(anyList())).thenReturn(List.of(comment));
+        List<ItemDto> itemsActual = itemService.getItemToUser(userId);
+
+        assertEquals(2, itemsActual.size());
+        assertEquals(5, itemsActual.get(0).getNextBooking().getId());
+        assertEquals(2, itemsActual.get(0).getNextBooking().getBookerId());
+        assertNull(itemsActual.get(0).getLastBooking());
+        assertNull(itemsActual.get(1).getNextBooking());
+        assertEquals(1, itemsActual.get(1).getComments().size());
+        assertEquals("User 2", itemsActual.get(1).getComments().get(0).getAuthorName());
+        verify(bookingRepository, times(1)).findLastAndNextBookings(eq(List.of(1, 2)),
+                eq(BookingStatus.APPROVED), any(LocalDateTime.class));
+        verify(commentRepository, never()).findCommentByItem_Id(anyInt());
+    }
+
+    private static Optional<BookingItemView> firstView(List<Booking> bookings) {
+        return bookings.stream()
+                .findFirst()
+                .map(booking -> new BookingItemView() {
+                    @Override
+                    public Integer getItemId() {
+                        return booking.getItem().getId();
+                    }
+
+                    @Override
+                    public Integer getId() {
+                        return booking.getId();
+                    }
+
+                    @Override
+                    public Integer getBookerId() {
+                        return booking.getBooker().getId();
+                    }
+
+                    @Override
+                    public LocalDateTime getStart() {
+                        return booking.getStart();
+                    }
+
+                    @Override
+                    public LocalDateTime getEnd() {
+                        return booking.getEnd();
+                    }
+                });
+    }
 }
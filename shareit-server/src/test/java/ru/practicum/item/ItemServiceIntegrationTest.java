@@ -1,28 +1,47 @@
 package ru.practicum.item;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.annotation.DirtiesContext;
 import ru.practicum.booking.dto.BookingResearchDto;
 import ru.practicum.booking.dto.BookingResponseToItemDto;
 import ru.practicum.booking.service.BookingService;
+import ru.practicum.exception.exceptions.BookingDateException;
 import ru.practicum.exception.exceptions.BookingNotFoundException;
 import ru.practicum.exception.exceptions.DataNotFoundException;
 import ru.practicum.exception.exceptions.ForbiddenUpdateException;
 import ru.practicum.item.dto.CommentResearchDto;
 import ru.practicum.item.dto.CommentResponseDto;
+import ru.practicum.item.dto.ItemAvailabilityDto;
 import ru.practicum.item.dto.ItemDto;
+import ru.practicum.item.dto.ItemImportEventDto;
+import ru.practicum.item.dto.TimeIntervalDto;
+import ru.practicum.item.search.ItemSearchEngine;
 import ru.practicum.item.service.ItemService;
 import ru.practicum.item.storage.db.JpaItemRepository;
+import ru.practicum.pagination.OffsetPageRequest;
+import ru.practicum.request.dto.ItemRequestDto;
+import ru.practicum.request.dto.ItemRequestsResponseDto;
+import ru.practicum.request.service.ItemRequestService;
 import ru.practicum.user.dto.UserDto;
 import ru.practicum.user.service.UserService;
 
+import javax.persistence.EntityManagerFactory;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -36,6 +55,14 @@ public class ItemServiceIntegrationTest {
     private JpaItemRepository repository;
     @Autowired
     private BookingService bookingService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private ItemSearchEngine itemSearchEngine;
+    @Autowired
+    private ItemRequestService itemRequestService;
 
     @Test
     @DirtiesContext
@@ -110,6 +137,36 @@ public class ItemServiceIntegrationTest {
         assertEquals("User with id = " + userId + " not found", ex.getMessage());
     }
 
+    @Test
+    @DirtiesContext
+    void getItemToUserVersionShouldChangeWithEverythingTheListRenders() {
+        Integer userId = 1;
+        Integer itemId = 1;
+        LocalDateTime end = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).minusDays(1);
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).minusDays(2);
+        userService.create(new UserDto(null, "User 1", "user1@yandex.ru"));
+        userService.create(new UserDto(null, "User 2", "user2@yandex.ru"));
+        itemService.saveItem(new ItemDto(null, "Item 1", "Desc 1", true,
+                null, null, null, null), userId);
+        List<String> versions = new ArrayList<>();
+        versions.add(itemService.getItemToUserVersion(userId));
+
+        assertEquals(versions.get(0), itemService.getItemToUserVersion(userId));
+
+        itemService.updateItem(new ItemDto(null, "New item 1", null,
+                null, null, null, null, null), userId, itemId);
+        versions.add(itemService.getItemToUserVersion(userId));
+        bookingService.saveBooking(new BookingResearchDto(null, end, start, itemId), 2);
+        bookingService.approvedOrRejectBooking(userId, 1, true);
+        versions.add(itemService.getItemToUserVersion(userId));
+        itemService.saveComment(itemId, 2, new CommentResearchDto("Comment 1", LocalDateTime.now()));
+        versions.add(itemService.getItemToUserVersion(userId));
+        userService.update(2, new UserDto(null, "New user 2", null));
+        versions.add(itemService.getItemToUserVersion(userId));
+
+        assertEquals(versions.size(), new HashSet<>(versions).size());
+    }
+
     @Test
     @DirtiesContext
     void getItemToUserShouldBeOk() {
@@ -294,11 +351,206 @@ public class ItemServiceIntegrationTest {
 
         assertEquals(4, repository.findAll().size());
 
-        List<ItemDto> itemsActual = itemService.searchItem(search, userid);
+        List<ItemDto> itemsActual = itemService.searchItem(search, userid, 0, 10);
 
         assertEquals(3, itemsActual.size());
     }
 
+    @Test
+    @DirtiesContext
+    void searchItemShouldNotFindItemRejectedOnCommit() {
+        Integer userid = 1;
+        userService.create(new UserDto(null, "User 1", "user1@yandex.ru"));
+        ItemDto tooLong = new ItemDto(null, "Отвертка " + "x".repeat(50), "Отвертка", true,
+                null, null, null, null);
+
+        assertThrows(DataIntegrityViolationException.class, () -> itemService.saveItem(tooLong, userid));
+
+        assertTrue(repository.findAll().isEmpty());
+        assertTrue(itemSearchEngine.search("отвертка", new OffsetPageRequest(0, 10)).isEmpty());
+        assertTrue(itemService.suggestItemNames("отв", userid, 10).isEmpty());
+    }
+
+    @Test
+    @DirtiesContext
+    void suggestItemNamesShouldForgetItemsDeletedWithUser() {
+        UserDto owner = userService.create(new UserDto(null, "User 1", "user1@yandex.ru"));
+        UserDto requestor = userService.create(new UserDto(null, "User 2", "user2@yandex.ru"));
+        UserDto other = userService.create(new UserDto(null, "User 3", "user3@yandex.ru"));
+        ItemRequestsResponseDto request = itemRequestService.saveItemRequest(requestor.getId(),
+                new ItemRequestDto("Нужна дрель", LocalDateTime.now()));
+        itemService.saveItem(new ItemDto(null, "Дрель", "Дрель ударная", true,
+                null, null, null, null), owner.getId());
+        itemService.saveItem(new ItemDto(null, "Дрель аккумуляторная", "Дрель", true,
+                null, null, null, request.getId()), other.getId());
+        itemService.saveItem(new ItemDto(null, "Дрожжи", "Дрожжи", true,
+                null, null, null, null), other.getId());
+
+        userService.delete(owner.getId());
+        userService.delete(requestor.getId());
+
+        assertEquals(List.of("Дрожжи"), itemService.suggestItemNames("др", other.getId(), 10));
+        assertEquals(1, itemSearchEngine.search("др", new OffsetPageRequest(0, 10)).size());
+        assertThrows(DataNotFoundException.class,
+                () -> itemService.suggestItemNames("др", owner.getId(), 10));
+    }
+
+    @Test
+    @DirtiesContext
+    void searchItemShouldFindEveryWordAndBePaged() {
+        Integer userid = 1;
+        UserDto user = new UserDto(null, "User 1", "user1@yandex.ru");
+        userService.create(user);
+        itemService.saveItem(new ItemDto(null, "Что-то", "Железная отвертка", true,
+                null, null, null, null), userid);
+        itemService.saveItem(new ItemDto(null, "Железная отвертка", "что-то", true,
+                null, null, null, null), userid);
+        itemService.saveItem(new ItemDto(null, "Деревяная отвертка", "Деревяная отвертка", true,
+                null, null, null, null), userid);
+        ItemDto updated = new ItemDto();
+        updated.setAvailable(false);
+        itemService.updateItem(updated, userid, 3);
+
+        List<ItemDto> firstPage = itemService.searchItem("железная ОТВЕРТКА", userid, 0, 1);
+        List<ItemDto> secondPage = itemService.searchItem("железная ОТВЕРТКА", userid, 1, 1);
+
+        assertEquals(1, firstPage.size());
+        assertEquals(2, firstPage.get(0).getId());
+        assertEquals(1, secondPage.size());
+        assertEquals(1, secondPage.get(0).getId());
+        assertTrue(itemService.searchItem("деревяная", userid, 0, 10).isEmpty());
+    }
+
+    @Test
+    @DirtiesContext
+    void saveItemsShouldInsertInJdbcBatches() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        userService.create(new UserDto(null, "User 1", "user1@yandex.ru"));
+        List<ItemDto> requests = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            requests.add(new ItemDto(null, "Item " + i, "Desc " + i, true, null, null, null, null));
+        }
+        statistics.clear();
+
+        List<ItemDto> items = itemService.saveItems(requests, 1);
+
+        assertEquals(1000, items.size());
+        assertEquals(1, items.get(0).getId());
+        assertEquals(1000, items.get(999).getId());
+        assertEquals(1000, statistics.getEntityInsertCount());
+        assertTrue(statistics.getPrepareStatementCount() < 100);
+        assertEquals("Item 500", itemService.getItemToBooking(500).getName());
+    }
+
+    @Test
+    @DirtiesContext
+    void importItemsShouldWriteBatchesAndReportRejectedLines() throws IOException {
+        userService.create(new UserDto(null, "User 1", "user1@yandex.ru"));
+        StringBuilder body = new StringBuilder();
+        for (int line = 1; line <= 1006; line++) {
+            if (line == 2) {
+                body.append("{not json");
+            } else if (line == 3) {
+                body.append("{\"name\":\"\",\"description\":\"Desc\",\"available\":true}");
+            } else if (line == 5) {
+                body.append("{\"name\":\"Item\",\"description\":\"Desc\",\"available\":true,\"requestId\":99}");
+            } else if (line != 6) {
+                body.append("{\"name\":\"Item ").append(line).append("\",\"description\":\"Desc\",\"available\":true}");
+            }
+            body.append('\n');
+        }
+        List<ItemImportEventDto> events = new ArrayList<>();
+
+        ItemImportEventDto done = itemService.importItems(
+                new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8)), 1, events::add);
+
+        assertEquals(ItemImportEventDto.DONE, done.getEvent());
+        assertEquals(1006, done.getLine());
+        assertEquals(1002, done.getImported());
+        assertEquals(3, done.getFailed());
+        assertEquals(done, events.get(events.size() - 1));
+        assertEquals(List.of(2L, 3L, 5L), events.stream()
+                .filter(event -> ItemImportEventDto.ERROR.equals(event.getEvent()))
+                .map(ItemImportEventDto::getLine)
+                .collect(Collectors.toList()));
+        assertEquals("name: must not be blank", events.get(1).getError());
+        assertEquals("Request with id = 99 not found", events.get(2).getError());
+        assertEquals(2, events.stream().filter(event -> ItemImportEventDto.PROGRESS.equals(event.getEvent())).count());
+        assertEquals(1002, repository.count());
+        assertEquals("Item 1006", itemService.getItemToBooking(1002).getName());
+    }
+
+    @Test
+    @DirtiesContext
+    void saveItemsShouldSaveNothingWhenRequestNotFound() {
+        userService.create(new UserDto(null, "User 1", "user1@yandex.ru"));
+        List<ItemDto> requests = List.of(new ItemDto(null, "Item 1", "Desc 1", true, null, null, null, null),
+                new ItemDto(null, "Item 2", "Desc 2", true, null, null, null, 5));
+
+        DataNotFoundException ex = assertThrows(DataNotFoundException.class,
+                () -> itemService.saveItems(requests, 1));
+
+        assertEquals("Request with id = 5 not found", ex.getMessage());
+        assertTrue(repository.findAll().isEmpty());
+    }
+
+    @Test
+    @DirtiesContext
+    void itemShouldComeFromSecondLevelCacheUntilChanged() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        userService.create(new UserDto(null, "User 1", "user1@yandex.ru"));
+        itemService.saveItem(new ItemDto(null, "Item 1", "Desc 1", true,
+                null, null, null, null), 1);
+        itemService.getItemToBooking(1);
+        statistics.clear();
+
+        itemService.getItemToBooking(1);
+        itemService.getItemToBooking(1);
+
+        assertEquals(2, statistics.getDomainDataRegionStatistics("items").getHitCount());
+        assertEquals(0, statistics.getDomainDataRegionStatistics("items").getMissCount());
+        assertEquals(2, meterRegistry.get("hibernate.second.level.cache.requests")
+                .tag("region", "items")
+                .tag("result", "hit")
+                .functionCounter()
+                .count());
+
+        ItemDto update = new ItemDto();
+        update.setName("Item 2");
+        itemService.updateItem(update, 1, 1);
+
+        assertEquals("Item 2", itemService.getItemToBooking(1).getName());
+
+        userService.delete(1);
+
+        assertThrows(DataNotFoundException.class, () -> itemService.getItemToBooking(1));
+    }
+
+    @Test
+    @DirtiesContext
+    void getAvailabilityShouldFollowBookingChanges() {
+        userService.create(new UserDto(null, "User 1", "user1@yandex.ru"));
+        userService.create(new UserDto(null, "User 2", "user2@yandex.ru"));
+        itemService.saveItem(new ItemDto(null, "Item 1", "Desc 1", true,
+                null, null, null, null), 1);
+        LocalDateTime from = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(1);
+        LocalDateTime to = from.plusDays(10);
+        bookingService.saveBooking(new BookingResearchDto(null, from.plusDays(3), from.plusDays(2), 1), 2);
+
+        ItemAvailabilityDto availability = itemService.getAvailability(1, 2, from, to);
+
+        assertEquals(List.of(new TimeIntervalDto(from.plusDays(2), from.plusDays(3))), availability.getBusy());
+        assertEquals(List.of(new TimeIntervalDto(from, from.plusDays(2)),
+                new TimeIntervalDto(from.plusDays(3), to)), availability.getFree());
+
+        bookingService.saveBooking(new BookingResearchDto(null, from.plusDays(5), from.plusDays(4), 1), 2);
+        bookingService.approvedOrRejectBooking(1, 1, false);
+        availability = itemService.getAvailability(1, 2, from, to);
+
+        assertEquals(List.of(new TimeIntervalDto(from.plusDays(4), from.plusDays(5))), availability.getBusy());
+        assertThrows(BookingDateException.class, () -> itemService.getAvailability(1, 2, to, from));
+    }
+
     @Test
     @DirtiesContext
     void searchItemShouldThrowDataNotFoundExceptionWithNonexistentUser() {
@@ -306,7 +558,7 @@ public class ItemServiceIntegrationTest {
         Integer userid = 1;
 
         DataNotFoundException ex = assertThrows(DataNotFoundException.class,
-                () -> itemService.searchItem(search, userid));
+                () -> itemService.searchItem(search, userid, 0, 10));
 
         assertEquals("User with id = " + userid + " not found", ex.getMessage());
     }
@@ -80,4 +80,22 @@ public class JpaCommentRepositoryTest {
 
         assertEquals(2, comments.size());
     }
+
+    @Test
+    @DirtiesContext
+    void findCommentByItem_IdInShouldReturnCommentsOfAllItems() {
+        User user = userRepository.save(new User(null, "User 1", "user1@yandex.ru"));
+        User user2 = userRepository.save(new User(null, "User 2", "user2@yandex.ru"));
+        Item item1 = itemRepository.save(new Item(null, "Item 1", "Desc 1", true, user, null));
+        Item item2 = itemRepository.save(new Item(null, "Item 2", "Desc 2", true, user, null));
+        Item item3 = itemRepository.save(new Item(null, "Item 3", "Desc 3", true, user, null));
+        Comment comment1 = repository.save(new Comment(null, "Text 1", user2, item1, LocalDateTime.now()));
+        Comment comment2 = repository.save(new Comment(null, "Text 2", user2, item2, LocalDateTime.now()));
+        repository.save(new Comment(null, "Text 3", user2, item3, LocalDateTime.now()));
+
+        List<Comment> comments = repository.findCommentByItem_IdIn(List.of(item1.getId(), item2.getId()));
+
+        assertEquals(List.of(comment1, comment2), comments);
+        assertEquals("User 2", comments.get(0).getAuthor().getName());
+    }
 }
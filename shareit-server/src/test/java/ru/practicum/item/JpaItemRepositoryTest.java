@@ -4,7 +4,9 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.item.search.TrigramItemSearchEngine;
 import ru.practicum.item.storage.db.JpaItemRepository;
+import ru.practicum.pagination.OffsetPageRequest;
 import ru.practicum.request.storage.JpaItemRequestRepository;
 import ru.practicum.user.User;
 import ru.practicum.request.ItemRequest;
@@ -26,15 +28,15 @@ public class JpaItemRepositoryTest {
 
     @Test
     @DirtiesContext
-    void findByNameAndDescriptionShouldBeEmpty() {
-        List<Item> items = repository.findByNameAndDescription("AAAA", "AAAA");
+    void searchByNameAndDescriptionShouldBeEmpty() {
+        List<Integer> items = search("AAAA");
 
         assertTrue(items.isEmpty());
     }
 
     @Test
     @DirtiesContext
-    void findByNameAndDescriptionShouldFindOneItem() {
+    void searchByNameAndDescriptionShouldFindOneItem() {
         User user = new User(null, "User 1", "user1@yandex.ru");
         Item item1 = new Item(null, "Аккумуляторная дрель", "Аккумуляторная дрель с зарядкой",
                 true, user, null);
@@ -46,14 +48,14 @@ public class JpaItemRepositoryTest {
 
         assertEquals(2, repository.findAll().size());
 
-        List<Item> items = repository.findByNameAndDescription("проводная", "проводная");
+        List<Integer> items = search("проводная");
 
-        assertEquals(1, items.size());
+        assertEquals(List.of(item2.getId()), items);
     }
 
     @Test
     @DirtiesContext
-    void findByNameAndDescriptionShouldFindTwoItem() {
+    void searchByNameAndDescriptionShouldFindTwoItem() {
         User user = new User(null, "User 1", "user1@yandex.ru");
         Item item1 = new Item(null, "Аккумуляторная дрель", "Аккумуляторная дрель с зарядкой",
                 true, user, null);
@@ -65,7 +67,7 @@ public class JpaItemRepositoryTest {
 
         assertEquals(2, repository.findAll().size());
 
-        List<Item> items = repository.findByNameAndDescription("ДРель", "ДРель");
+        List<Integer> items = search("ДРель");
 
         assertEquals(2, items.size());
     }
@@ -224,4 +226,13 @@ public class JpaItemRepositoryTest {
         assertEquals(5, repository.findAll().size());
         assertEquals(3, items.size());
     }
+
+    /**
+     * Searches like the server does by default, over the items saved to the repository.
+     */
+    private List<Integer> search(String text) {
+        TrigramItemSearchEngine searchEngine = new TrigramItemSearchEngine(repository);
+        searchEngine.rebuild();
+        return searchEngine.search(text, new OffsetPageRequest(0, 10));
+    }
 }
@@ -0,0 +1,83 @@
+package ru.practicum.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.item.search.TrigramItemSearchEngine;
+import ru.practicum.item.storage.db.JpaItemRepository;
+import ru.practicum.pagination.OffsetPageRequest;
+import ru.practicum.user.User;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class TrigramItemSearchEngineTest {
+    private static final OffsetPageRequest ALL = new OffsetPageRequest(0, Integer.MAX_VALUE);
+    private TrigramItemSearchEngine engine;
+    @Mock
+    private JpaItemRepository itemRepository;
+
+    @BeforeEach
+    public void setUp() {
+        User user = new User(1, "User 1", "user1@yandex.ru");
+        when(itemRepository.findAll()).thenReturn(List.of(
+                new Item(1, "Отвертка", "Крестовая отвертка для дрели", true, user, null),
+                new Item(2, "Дрель аккумуляторная", "Аккумуляторная дрель с зарядкой", true, user, null),
+                new Item(3, "Проводная дрель", "Проводная дрель", true, user, null),
+                new Item(4, "Сломанная дрель", "Не работает", false, user, null)));
+        engine = new TrigramItemSearchEngine(itemRepository);
+        engine.rebuild();
+    }
+
+    @Test
+    void searchShouldBeEmpty() {
+        assertTrue(engine.search("AAAA", ALL).isEmpty());
+        assertTrue(engine.search(" !? ", ALL).isEmpty());
+    }
+
+    @Test
+    void searchShouldFindSubstringIgnoringCase() {
+        assertEquals(List.of(2, 3, 1), engine.search("дрел", ALL));
+        assertEquals(List.of(2), engine.search("КУМУЛЯТ", ALL));
+        assertEquals(List.of(3), engine.search("водн", ALL));
+    }
+
+    @Test
+    void searchShouldVerifySubstringAfterTrigramMatch() {
+        assertTrue(engine.search("дрелель", ALL).isEmpty());
+    }
+
+    @Test
+    void searchShouldHandleWordsShorterThanTrigram() {
+        assertEquals(List.of(1, 2), engine.search("с", ALL).subList(0, 2));
+        assertEquals(List.of(2), engine.search("дрель с", ALL).subList(0, 1));
+    }
+
+    @Test
+    void searchShouldRequireEveryWord() {
+        assertEquals(List.of(2), engine.search("дрель зарядк", ALL));
+        assertTrue(engine.search("проводная зарядк", ALL).isEmpty());
+    }
+
+    @Test
+    void searchShouldBePaged() {
+        assertEquals(List.of(3), engine.search("дрел", new OffsetPageRequest(1, 1)));
+        assertEquals(List.of(3, 1), engine.search("дрел", new OffsetPageRequest(1, 5)));
+    }
+
+    @Test
+    void indexShouldReplaceOldItemState() {
+        User user = new User(1, "User 1", "user1@yandex.ru");
+        engine.index(new Item(3, "Перфоратор", "Мощный", true, user, null));
+        engine.index(new Item(4, "Сломанная дрель", "Починили", true, user, null));
+
+        assertTrue(engine.search("проводная", ALL).isEmpty());
+        assertEquals(List.of(3), engine.search("форат", ALL));
+        assertEquals(List.of(2, 4), engine.search("дрель", ALL));
+    }
+}
@@ -6,10 +6,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import ru.practicum.exception.exceptions.DataNotFoundException;
+import ru.practicum.item.search.ItemNameSuggester;
+import ru.practicum.item.search.ItemSearchEngine;
+import ru.practicum.item.storage.db.JpaItemRepository;
 import ru.practicum.user.dto.UserDto;
 import ru.practicum.user.service.UserService;
 import ru.practicum.user.storage.db.JpaUserRepository;
 
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -24,10 +29,19 @@ public class UserServiceImplTest {
     private UserService userService;
     @Mock
     private JpaUserRepository repository;
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+    @Mock
+    private JpaItemRepository itemRepository;
+    @Mock
+    private ItemSearchEngine itemSearchEngine;
+    @Mock
+    private ItemNameSuggester itemNameSuggester;
 
     @BeforeEach
     public void setUp() {
-        userService = new UserService(repository, new UserMapperImpl());
+        userService = new UserService(repository, new UserMapperImpl(), entityManagerFactory, itemRepository,
+                itemSearchEngine, itemNameSuggester);
     }
 
     @Test
@@ -48,8 +62,7 @@ public class UserServiceImplTest {
         UserDto userDto = new UserDto(null, "User 1", "user1@yandex.ru");
         Integer id = 1;
 
-        when(repository.existsById(anyInt()))
-                .thenThrow(new DataNotFoundException("User with id = " + id + " not found"));
+        when(repository.findById(anyInt())).thenReturn(Optional.empty());
         DataNotFoundException ex = assertThrows(DataNotFoundException.class,
                 () -> userService.update(id, userDto));
 
@@ -64,7 +77,6 @@ public class UserServiceImplTest {
         User userUpdate = new User(id, "New user 1", "user1@yandex.ru");
         UserDto userUpdateDto = new UserDto(id, "New user 1", "user1@yandex.ru");
 
-        when(repository.existsById(anyInt())).thenReturn(true);
         when(repository.findById(anyInt())).thenReturn(lastUser);
         when(repository.save(any(User.class))).thenReturn(userUpdate);
 
@@ -80,7 +92,6 @@ public class UserServiceImplTest {
         User userUpdate = new User(id, "User 1", "user1update@yandex.ru");
         UserDto userUpdateDto = new UserDto(id, "User 1", "user1update@yandex.ru");
 
-        when(repository.existsById(anyInt())).thenReturn(true);
         when(repository.findById(anyInt())).thenReturn(lastUser);
         when(repository.save(any(User.class))).thenReturn(userUpdate);
 
@@ -96,12 +107,12 @@ public class UserServiceImplTest {
         User userUpdate = new User(id, "New user 1", "user1update@yandex.ru");
         UserDto userUpdateDto = new UserDto(id, "New user 1", "user1update@yandex.ru");
 
-        when(repository.existsById(anyInt())).thenReturn(true);
+        when(repository.findById(anyInt())).thenReturn(lastUser);
         when(repository.save(any(User.class))).thenReturn(userUpdate);
 
         assertEquals(userUpdateDto, userService.update(id, userDto));
         verify(repository).save(any(User.class));
-        verify(repository, never()).findById(anyInt());
+        verify(repository).findById(anyInt());
     }
 
     @Test
@@ -113,12 +124,11 @@ public class UserServiceImplTest {
         UserDto userUpdateDto = new UserDto(id, "User 1", "user1@yandex.ru");
 
         when(repository.findById(anyInt())).thenReturn(lastUser);
-        when(repository.existsById(anyInt())).thenReturn(true);
         when(repository.save(any(User.class))).thenReturn(userUpdate);
 
         assertEquals(userUpdateDto, userService.update(id, userDto));
         verify(repository).save(any(User.class));
-        verify(repository, atLeast(2)).findById(anyInt());
+        verify(repository).findById(anyInt());
     }
 
     @Test
@@ -133,12 +143,24 @@ public class UserServiceImplTest {
         assertEquals("User with id = " + id + " not found", ex.getMessage());
     }
 
+    @Test
+    void deleteShouldRemoveCascadedItemsFromIndexes() {
+        when(repository.existsById(1)).thenReturn(true);
+        when(itemRepository.findIdsDeletedWithUser(1)).thenReturn(List.of(3, 5));
+        when(entityManagerFactory.getCache()).thenReturn(mock(Cache.class));
+
+        userService.delete(1);
+
+        verify(repository).deleteById(1);
+        verify(itemSearchEngine).removeAll(List.of(3, 5));
+        verify(itemNameSuggester).removeAll(List.of(3, 5));
+    }
+
     @Test
     void getDataShouldThrowDataNotFoundExceptionWithNonexistentUser() {
         Integer id = 1;
 
-        when(repository.existsById(anyInt()))
-                .thenThrow(new DataNotFoundException("User with id = " + id + " not found"));
+        when(repository.findById(anyInt())).thenReturn(Optional.empty());
         DataNotFoundException ex = assertThrows(DataNotFoundException.class,
                 () -> userService.getData(id));
 
@@ -151,10 +173,10 @@ public class UserServiceImplTest {
         User user = new User(id, "New user 1", "user1update@yandex.ru");
         UserDto userDto = new UserDto(id, "New user 1", "user1update@yandex.ru");
 
-        when(repository.existsById(anyInt())).thenReturn(true);
         when(repository.findById(anyInt())).thenReturn(Optional.of(user));
 
         assertEquals(userDto, userService.getData(id));
+        verify(repository, never()).existsById(anyInt());
     }
 
     @Test
@@ -1,8 +1,10 @@
 package ru.practicum.user;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
 import org.springframework.test.annotation.DirtiesContext;
 import ru.practicum.exception.exceptions.DataNotFoundException;
 import ru.practicum.user.dto.UserDto;
@@ -14,6 +16,10 @@ import static org.junit.jupiter.api.Assertions.*;
 public class UserServiceIntegrationTest {
     @Autowired
     private UserService userService;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     @Test
     @DirtiesContext
@@ -154,6 +160,25 @@ public class UserServiceIntegrationTest {
         assertEquals(userExpected.getEmail(), userCreated.getEmail());
     }
 
+    @Test
+    @DirtiesContext
+    void getDataShouldBeCachedUntilUpdate() {
+        userService.create(new UserDto(null, "User 1", "user1@yandex.ru"));
+        userService.getData(1);
+        userService.getData(1);
+
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", UserService.USER_CACHE)
+                .tag("result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", UserService.USER_CACHE)
+                .tag("result", "miss").functionCounter().count());
+        assertNotNull(cacheManager.getCache(UserService.USER_CACHE).get(1));
+
+        userService.update(1, new UserDto(null, "User 2", null));
+
+        assertNull(cacheManager.getCache(UserService.USER_CACHE).get(1));
+        assertEquals("User 2", userService.getData(1).getName());
+    }
+
     @Test
     @DirtiesContext
     void getDataShouldThrowDataNotFoundExceptionAfterRemoveUser() {